@@ -0,0 +1,309 @@
+import java.io.Closeable;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Title: AsyncLibraryListener.java
+ * Author: Nicholas Fotinakes
+ * Description: This class queues Library events in a fixed size ring buffer and hands them to
+ * another listener on a background thread. The thread takes every event waiting in the buffer
+ * at once, passes them on in order and then flushes the other listener, so a slow sink such as
+ * the console is written in batches instead of once per event. The Library thread only copies
+ * a few references into the buffer, and waits only if the buffer is full.
+ * Date: 10/18/2026
+ */
+public class AsyncLibraryListener implements LibraryListener, Closeable {
+
+    public static final int DEFAULT_CAPACITY = 8192;   // Events held before adding one waits
+    // Event types stored in the ring buffer
+    private static final byte BOOK_ADDED = 1;
+    private static final byte BOOK_SHELVED = 2;
+    private static final byte BOOK_UNSHELVED = 3;
+    private static final byte BOOK_CHECKED_OUT = 4;
+    private static final byte BOOK_RETURNED = 5;
+    private static final byte SHELF_ADDED = 6;
+    private static final byte READER_ADDED = 7;
+    private static final byte READER_REMOVED = 8;
+    private static final byte ERROR = 9;
+    private static final byte SHELF_STOCKED = 10;
+    private static final byte SECTION_PARSING = 11;
+    private static final byte SECTION_PARSED = 12;
+    private static final byte JOURNAL_REPLAYED = 13;
+
+    private final LibraryListener delegate;         // Listener the events are passed on to
+    private final int mask;                         // Capacity - 1, capacity is a power of two
+    // Ring buffer, one array per event field so adding an event allocates nothing
+    private final byte[] types;                     // Type of each event
+    private final Object[] firsts;                  // Book, Reader, Shelf, Code or section of each event
+    private final Object[] seconds;                 // Second object of each event, if any
+    private final int[] counts;                     // Copy count of each event, if any
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();    // Signalled when events are added
+    private final Condition notFull = lock.newCondition();     // Signalled when events are taken
+    private final Thread consumer;                  // Thread passing events to the delegate
+    private long head;                              // Number of events taken from the buffer
+    private long tail;                              // Number of events added to the buffer
+    private long delivered;                         // Number of events passed to the delegate
+    private boolean closed;                         // True once close has been called
+
+    /**
+     * Constructor takes the listener to pass events to and uses the default capacity
+     * @param delegate the listener to pass events to
+     */
+    public AsyncLibraryListener(LibraryListener delegate) {
+        this(delegate, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor takes the listener to pass events to and the size of the ring buffer
+     * @param delegate the listener to pass events to
+     * @param capacity the number of events the buffer holds, rounded up to a power of two
+     */
+    public AsyncLibraryListener(LibraryListener delegate, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size = size << 1;
+        }
+        this.delegate = delegate;
+        this.mask = size - 1;
+        this.types = new byte[size];
+        this.firsts = new Object[size];
+        this.seconds = new Object[size];
+        this.counts = new int[size];
+        this.consumer = new Thread(this::drain, "library-events");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    @Override
+    public void bookAdded(Book book, int copies) {
+        publish(BOOK_ADDED, book, null, copies);
+    }
+
+    @Override
+    public void bookShelved(Book book, Shelf shelf, int copies) {
+        publish(BOOK_SHELVED, book, shelf, copies);
+    }
+
+    @Override
+    public void shelfStocked(Shelf shelf, int books, int copies) {
+        publish(SHELF_STOCKED, shelf, books, copies);
+    }
+
+    @Override
+    public void bookUnshelved(Book book, Shelf shelf) {
+        publish(BOOK_UNSHELVED, book, shelf, 0);
+    }
+
+    @Override
+    public void bookCheckedOut(Reader reader, Book book) {
+        publish(BOOK_CHECKED_OUT, reader, book, 0);
+    }
+
+    @Override
+    public void bookReturned(Reader reader, Book book) {
+        publish(BOOK_RETURNED, reader, book, 0);
+    }
+
+    @Override
+    public void shelfAdded(Shelf shelf) {
+        publish(SHELF_ADDED, shelf, null, 0);
+    }
+
+    @Override
+    public void readerAdded(Reader reader) {
+        publish(READER_ADDED, reader, null, 0);
+    }
+
+    @Override
+    public void readerRemoved(Reader reader) {
+        publish(READER_REMOVED, reader, null, 0);
+    }
+
+    @Override
+    public void sectionParsing(String section, int count) {
+        publish(SECTION_PARSING, section, null, count);
+    }
+
+    @Override
+    public void sectionParsed(String section, Code code) {
+        publish(SECTION_PARSED, section, code, 0);
+    }
+
+    @Override
+    public void journalReplayed(int records) {
+        publish(JOURNAL_REPLAYED, null, null, records);
+    }
+
+    @Override
+    public void error(Code code, Object subject) {
+        publish(ERROR, code, subject, 0);
+    }
+
+    /**
+     * This method waits until every event added so far has been passed on and flushed
+     */
+    @Override
+    public void flush() {
+        lock.lock();
+        try {
+            long target = tail;
+            while (delivered < target && consumer.isAlive()) {
+                notFull.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * This method passes on any events still in the buffer and stops the background thread.
+     * Events added after closing are ignored
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * This method adds an event to the ring buffer, waiting if the buffer is full
+     * @param type the event type
+     * @param first the first object of the event
+     * @param second the second object of the event, or null
+     * @param count the copy count of the event, or 0
+     */
+    private void publish(byte type, Object first, Object second, int count) {
+        lock.lock();
+        try {
+            while (tail - head > mask && !closed) {
+                notFull.awaitUninterruptibly();
+            }
+            if (closed) {
+                return;
+            }
+            int slot = (int) tail & mask;
+            types[slot] = type;
+            firsts[slot] = first;
+            seconds[slot] = second;
+            counts[slot] = count;
+            // Only wake the consumer if it may be waiting on an empty buffer
+            if (tail++ == head) {
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * This method runs on the background thread. It takes every waiting event, passes them
+     * to the delegate in order outside the lock and then flushes the delegate once
+     */
+    private void drain() {
+        while (true) {
+            long from;
+            long to;
+            lock.lock();
+            try {
+                while (head == tail && !closed) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (head == tail) {
+                    delegate.flush();
+                    return;
+                }
+                from = head;
+                to = tail;
+            } finally {
+                lock.unlock();
+            }
+            // Slots from head to tail belong to this thread until head is moved past them
+            for (long i = from; i < to; i++) {
+                dispatch((int) i & mask);
+            }
+            delegate.flush();
+            lock.lock();
+            try {
+                head = to;
+                delivered = to;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * This method passes one buffered event to the delegate and clears its slot
+     * @param slot the index of the event in the ring buffer
+     */
+    private void dispatch(int slot) {
+        Object first = firsts[slot];
+        Object second = seconds[slot];
+        try {
+            switch (types[slot]) {
+                case BOOK_ADDED:
+                    delegate.bookAdded((Book) first, counts[slot]);
+                    break;
+                case BOOK_SHELVED:
+                    delegate.bookShelved((Book) first, (Shelf) second, counts[slot]);
+                    break;
+                case SHELF_STOCKED:
+                    delegate.shelfStocked((Shelf) first, (Integer) second, counts[slot]);
+                    break;
+                case BOOK_UNSHELVED:
+                    delegate.bookUnshelved((Book) first, (Shelf) second);
+                    break;
+                case BOOK_CHECKED_OUT:
+                    delegate.bookCheckedOut((Reader) first, (Book) second);
+                    break;
+                case BOOK_RETURNED:
+                    delegate.bookReturned((Reader) first, (Book) second);
+                    break;
+                case SHELF_ADDED:
+                    delegate.shelfAdded((Shelf) first);
+                    break;
+                case READER_ADDED:
+                    delegate.readerAdded((Reader) first);
+                    break;
+                case READER_REMOVED:
+                    delegate.readerRemoved((Reader) first);
+                    break;
+                case ERROR:
+                    delegate.error((Code) first, second);
+                    break;
+                case SECTION_PARSING:
+                    delegate.sectionParsing((String) first, counts[slot]);
+                    break;
+                case SECTION_PARSED:
+                    delegate.sectionParsed((String) first, (Code) second);
+                    break;
+                case JOURNAL_REPLAYED:
+                    delegate.journalReplayed(counts[slot]);
+                    break;
+                default:
+                    break;
+            }
+        } catch (RuntimeException e) {
+            // A failing listener must not stop the events that follow
+            System.err.println("Library listener failed " + e);
+        }
+        // Drop the references so the buffer doesn't keep old objects alive
+        firsts[slot] = null;
+        seconds[slot] = null;
+    }
+}
@@ -1,5 +1,4 @@
 import java.time.LocalDate;
-import java.util.Objects;
 
 /**
  * Title: Book.java - Pt 1/4 of Library Project
@@ -18,11 +17,15 @@ public class Book {
     public static final int DUE_DATE_ = 5;
     // Private fields to store Book information
     private String isbn;
+    private long isbnKey;       // The ISBN packed by Isbn.pack, or NOT_ISBN
     private String title;
     private String subject;
+    private String subjectKey;  // The subject in the normal form SubjectIndex finds shelves by
     private int pageCount;
     private String author;
-    private LocalDate dueDate;
+    private LocalDate dueDate;  // Due date from the catalog, a loan's due date is kept by its copy
+    private int hash;           // Hash code, worked out again only when a field in it changes
+    private boolean frozen;     // True once the Book is registered to a Library and can't change
 
     /**
      * Book Constructor
@@ -35,11 +38,14 @@ public class Book {
      */
     public Book(String isbn, String title, String subject, int pageCount, String author, LocalDate dueDate) {
         this.isbn = isbn;
+        this.isbnKey = Isbn.pack(isbn);
         this.title = title;
         this.subject = subject;
+        this.subjectKey = subject == null ? null : SubjectIndex.normalize(subject);
         this.pageCount = pageCount;
         this.author = author;
         this.dueDate = dueDate;
+        rehash();
     }
 
     /**
@@ -55,7 +61,20 @@ public class Book {
      * @param isbn the ISBN to set
      */
     public void setIsbn(String isbn) {
+        checkNotFrozen();
         this.isbn = isbn;
+        this.isbnKey = Isbn.pack(isbn);
+        rehash();
+    }
+
+    /**
+     * This method gets a book's ISBN as a number, worked out once when the ISBN is set. Every
+     * way of writing the same ISBN-10 or ISBN-13 gives the same number
+     * @return the ISBN-13 as a number, or Isbn.NOT_ISBN if the ISBN is some other kind of
+     * catalog number
+     */
+    public long getIsbnKey() {
+        return isbnKey;
     }
 
     /**
@@ -71,7 +90,9 @@ public class Book {
      * @param title the title to be set
      */
     public void setTitle(String title) {
+        checkNotFrozen();
         this.title = title;
+        rehash();
     }
 
     /**
@@ -87,7 +108,19 @@ public class Book {
      * @param subject the subject to set
      */
     public void setSubject(String subject) {
+        checkNotFrozen();
         this.subject = subject;
+        this.subjectKey = subject == null ? null : SubjectIndex.normalize(subject);
+        rehash();
+    }
+
+    /**
+     * This method gets the book's subject in lower case letters and digits only, worked out
+     * once when the subject is set so finding the book's shelf allocates nothing
+     * @return the normal subject of the book
+     */
+    public String getSubjectKey() {
+        return subjectKey;
     }
 
     /**
@@ -103,7 +136,9 @@ public class Book {
      * @param pageCount the page count to set
      */
     public void setPageCount(int pageCount) {
+        checkNotFrozen();
         this.pageCount = pageCount;
+        rehash();
     }
 
     /**
@@ -119,7 +154,9 @@ public class Book {
      * @param author the author to set
      */
     public void setAuthor(String author) {
+        checkNotFrozen();
         this.author = author;
+        rehash();
     }
 
     /**
@@ -131,15 +168,18 @@ public class Book {
     }
 
     /**
-     * This method sets the due date for a book
+     * This method sets the due date for a book. Books registered to a Library are frozen, a
+     * loan's due date is passed to Library.checkOutBook
      * @param dueDate the date for book's due date
      */
     public void setDueDate(LocalDate dueDate) {
+        checkNotFrozen();
         this.dueDate = dueDate;
     }
 
     /**
-     * The overridden equals
+     * The overridden equals. ISBNs are compared by their packed number when they have one, so
+     * the same ISBN written with or without hyphens, or as an ISBN-10, is the same book
      * @param o book to check
      * @return true or false if equal or not
      */
@@ -148,13 +188,64 @@ public class Book {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Book book = (Book) o;
-        return getPageCount() == book.getPageCount() && getIsbn().equals(book.getIsbn()) && getTitle().equals(book.getTitle()) && getSubject().equals(book.getSubject()) && getAuthor().equals(book.getAuthor());
+        // Books with different hash codes can't be equal, which skips most string compares
+        if (hash != book.hash) return false;
+        return getPageCount() == book.getPageCount() && isbnKey == book.isbnKey && (isbnKey >= 0 || getIsbn().equals(book.getIsbn())) && getTitle().equals(book.getTitle()) && getSubject().equals(book.getSubject()) && getAuthor().equals(book.getAuthor());
     }
 
 
+    /**
+     * The overridden hashCode, worked out when the Book is made or changed
+     * @return the hash code
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(getIsbn(), getTitle(), getSubject(), getPageCount(), getAuthor());
+        return hash;
+    }
+
+    /**
+     * This method freezes the Book once it is registered to a Library as the one shared copy of
+     * its record. The Book is a key in the Library's and Shelves' maps from then on, so changing
+     * any of its fields throws an IllegalStateException instead of corrupting those maps
+     */
+    void freeze() {
+        frozen = true;
+    }
+
+    /**
+     * This method checks if the Book has been frozen
+     * @return true if the Book can no longer be changed
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * This method throws if the Book is frozen
+     */
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException(this + " is registered to a Library and can't be changed");
+        }
+    }
+
+    /**
+     * This method works out the hash code from the fields used by equals, the same way as
+     * Objects.hash without building an array for every call. An ISBN is hashed by its packed
+     * number when it has one, as equals compares it
+     */
+    private void rehash() {
+        int result = 1;
+        if (isbnKey >= 0) {
+            result = 31 * result + Long.hashCode(isbnKey);
+        } else {
+            result = 31 * result + (isbn == null ? 0 : isbn.hashCode());
+        }
+        result = 31 * result + (title == null ? 0 : title.hashCode());
+        result = 31 * result + (subject == null ? 0 : subject.hashCode());
+        result = 31 * result + Integer.hashCode(pageCount);
+        result = 31 * result + (author == null ? 0 : author.hashCode());
+        hash = result;
     }
 
     /**
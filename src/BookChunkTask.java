@@ -0,0 +1,136 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Title: BookChunkTask.java
+ * Author: Nicholas Fotinakes
+ * Description: This class parses the books section of a mapped Library file on a fork/join pool.
+ * The section is split into line aligned chunks ahead of time. Each task halves its range of
+ * chunks until it holds one, parses that chunk into its own map of Books and counts, and the
+ * halves are merged in file order on the way back up. The maps keep the order each Book was
+ * first seen, so the Books are registered in the same order as a sequential load.
+ * Date: 10/18/2026
+ */
+class BookChunkTask extends RecursiveTask<BookChunkTask> {
+
+    private static final long serialVersionUID = 1L;  // RecursiveTask is Serializable
+    private final Library library;          // Library used for convertInt and convertDate
+    private final MappedRecordReader file;  // Reader of the whole file, used to slice chunks
+    private final long[] bounds;            // File offsets of the chunk boundaries
+    private final int first;                // Index in bounds of the first chunk
+    private final int last;                 // Index in bounds just past the last chunk
+    private LinkedHashMap<Book, Integer> books; // Books parsed by this task and their counts, in file order
+    private Code code;                      // SUCCESS or the error of the first bad line
+    private long stop;                      // File offset just past the last line read
+
+    /**
+     * Constructor for a task covering a range of chunks
+     * @param library the Library the books are being loaded into
+     * @param file the reader of the file being loaded
+     * @param bounds offsets of the chunk boundaries, chunk i runs from bounds[i] to bounds[i+1]
+     * @param first index of the first chunk
+     * @param last index just past the last chunk
+     */
+    BookChunkTask(Library library, MappedRecordReader file, long[] bounds, int first, int last) {
+        this.library = library;
+        this.file = file;
+        this.bounds = bounds;
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * This method parses one chunk, or splits the range in half and merges the two results
+     * @return this task holding the merged result
+     */
+    @Override
+    protected BookChunkTask compute() {
+        if (last - first == 1) {
+            parseChunk();
+            return this;
+        }
+        int middle = (first + last) >>> 1;
+        BookChunkTask right = new BookChunkTask(library, file, bounds, middle, last);
+        right.fork();
+        BookChunkTask left = new BookChunkTask(library, file, bounds, first, middle).compute();
+        right.join();
+        // A bad line stops parsing, so anything after it in the file is dropped
+        if (left.code != Code.SUCCESS) {
+            books = left.books;
+            code = left.code;
+            stop = left.stop;
+            return this;
+        }
+        // Merge the right half into the left, so a Book already seen on the left keeps its place
+        // and the right half's new Books follow in file order
+        for (Map.Entry<Book, Integer> entry : right.books.entrySet()) {
+            left.books.merge(entry.getKey(), entry.getValue(), Integer::sum);
+        }
+        books = left.books;
+        code = right.code;
+        stop = right.stop;
+        return this;
+    }
+
+    /**
+     * This method reads every book line of a single chunk
+     */
+    private void parseChunk() {
+        books = new LinkedHashMap<>();
+        code = Code.SUCCESS;
+        try (MappedRecordReader reader = file.slice(bounds[first], bounds[last])) {
+            while (reader.nextRecord()) {
+                // Fields are read in the same order as Book's final static int variables
+                String isbn = reader.readString();
+                String title = reader.readString();
+                String subject = reader.readString();
+                int pageCount = reader.readInt(library, Code.PAGE_COUNT_ERROR);
+                String author = reader.readString();
+                LocalDate dueDate = reader.readDate(library, Code.DATE_CONVERSION_ERROR);
+
+                // Stop at the first bad line, the same as Library.initBooks
+                if (pageCount <= 0) {
+                    code = Code.PAGE_COUNT_ERROR;
+                } else if (dueDate == null) {
+                    code = Code.DATE_CONVERSION_ERROR;
+                }
+                if (code != Code.SUCCESS) {
+                    stop = reader.position();
+                    return;
+                }
+                books.merge(new Book(isbn, title, subject, pageCount, author, dueDate), 1, Integer::sum);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        stop = bounds[last];
+    }
+
+    /**
+     * This method returns the Books parsed and their counts, in the order they were first seen
+     * @return map of Books to counts
+     */
+    public LinkedHashMap<Book, Integer> getBooks() {
+        return books;
+    }
+
+    /**
+     * This method returns the result of parsing
+     * @return SUCCESS or the Code of the first bad line
+     */
+    public Code getCode() {
+        return code;
+    }
+
+    /**
+     * This method returns where parsing stopped
+     * @return file offset just past the last line read
+     */
+    public long getStop() {
+        return stop;
+    }
+}
@@ -0,0 +1,228 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Title: BookSet.java
+ * Author: Nicholas Fotinakes
+ * Description: This class is a set of Books that keeps them in the order they were added.
+ * Books are appended to an array, and an open addressing table of ints holds the place of the
+ * Book in each slot. A Book that finds its slot taken goes in the next free slot, and a removal
+ * shifts later slots back so a lookup can stop at the first empty one. A removed Book leaves a
+ * gap in the array. When the array fills up the gaps are closed in place if there are enough
+ * of them, so once the set has grown to the most Books it holds at once, adding and removing
+ * allocate nothing.
+ * The set is not thread safe.
+ * Date: 10/18/2026
+ */
+public class BookSet implements Iterable<Book> {
+
+    private static final int MIN_CAPACITY = 8;     // Smallest number of Books, a power of two
+
+    private int[] table;        // Place of the Book plus one by slot, 0 for an empty slot
+    private Book[] books;       // Books in the order added, null where one was removed
+    private int count;          // Places used in books, removed ones included
+    private int size;           // Number of Books in the set
+    private int shift;          // 32 less the log of the table length, for hashing a Book to a slot
+
+    /**
+     * Constructor for an empty set
+     */
+    public BookSet() {
+        books = new Book[MIN_CAPACITY];
+        rehash();
+    }
+
+    /**
+     * This method adds a Book after every Book already in the set
+     * @param book the Book to add
+     * @return true if the Book was added, false if it was already in the set
+     */
+    public boolean add(Book book) {
+        if (find(book) >= 0) {
+            return false;
+        }
+        if (count == books.length) {
+            if (size <= books.length / 2) {
+                compact();
+            } else {
+                books = Arrays.copyOf(books, books.length * 2);
+                rehash();
+            }
+        }
+        books[count] = book;
+        count++;
+        size++;
+        insert(book, count);
+        return true;
+    }
+
+    /**
+     * This method removes a Book
+     * @param book the Book to remove
+     * @return true if the Book was in the set
+     */
+    public boolean remove(Book book) {
+        int mask = table.length - 1;
+        int slot = slot(book);
+        while (table[slot] != 0 && !books[table[slot] - 1].equals(book)) {
+            slot = (slot + 1) & mask;
+        }
+        if (table[slot] == 0) {
+            return false;
+        }
+        books[table[slot] - 1] = null;
+        size--;
+        // Move back any later slot that can't be found past the slot being emptied
+        int empty = slot;
+        for (int next = (empty + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+            int home = slot(books[table[next] - 1]);
+            if (((next - home) & mask) >= ((next - empty) & mask)) {
+                table[empty] = table[next];
+                empty = next;
+            }
+        }
+        table[empty] = 0;
+        return true;
+    }
+
+    /**
+     * This method checks if a Book is in the set
+     * @param book the Book to look for
+     * @return true if the Book is in the set
+     */
+    public boolean contains(Book book) {
+        return find(book) >= 0;
+    }
+
+    /**
+     * This method returns the number of Books in the set
+     * @return the number of Books
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This method returns the Books in the order they were added
+     * @return a new list of the Books
+     */
+    public List<Book> toList() {
+        List<Book> list = new ArrayList<>(size);
+        for (Book book : this) {
+            list.add(book);
+        }
+        return list;
+    }
+
+    /**
+     * This method walks the Books in the order they were added
+     * @return the iterator
+     */
+    @Override
+    public Iterator<Book> iterator() {
+        return new Iterator<Book>() {
+            private int next = skip(0);     // Place of the next Book
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public Book next() {
+                if (next >= count) {
+                    throw new NoSuchElementException();
+                }
+                Book book = books[next];
+                next = skip(next + 1);
+                return book;
+            }
+        };
+    }
+
+    /**
+     * This method finds the first place at or after a place that holds a Book
+     * @param place the place to start at
+     * @return the place, or count if there are no Books after it
+     */
+    private int skip(int place) {
+        while (place < count && books[place] == null) {
+            place++;
+        }
+        return place;
+    }
+
+    /**
+     * This method returns the place of a Book
+     * @param book the Book to look for
+     * @return the place, or -1 if the Book isn't in the set
+     */
+    private int find(Book book) {
+        int mask = table.length - 1;
+        for (int slot = slot(book); table[slot] != 0; slot = (slot + 1) & mask) {
+            int place = table[slot] - 1;
+            if (books[place].equals(book)) {
+                return place;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * This method closes the gaps left by removed Books without making new arrays
+     */
+    private void compact() {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (books[i] != null) {
+                books[kept++] = books[i];
+            }
+        }
+        Arrays.fill(books, kept, count, null);
+        count = kept;
+        Arrays.fill(table, 0);
+        for (int i = 0; i < count; i++) {
+            insert(books[i], i + 1);
+        }
+    }
+
+    /**
+     * This method builds a table for the length of the book array. The table has two slots
+     * for every place, so it is never more than half full
+     */
+    private void rehash() {
+        table = new int[books.length * 2];
+        shift = 32 - Integer.numberOfTrailingZeros(table.length);
+        for (int i = 0; i < count; i++) {
+            if (books[i] != null) {
+                insert(books[i], i + 1);
+            }
+        }
+    }
+
+    /**
+     * This method puts the place of a Book in the first free slot for it
+     * @param book the Book
+     * @param number the place of the Book plus one
+     */
+    private void insert(Book book, int number) {
+        int mask = table.length - 1;
+        int slot = slot(book);
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = number;
+    }
+
+    /**
+     * This method returns the slot a Book is looked for first
+     * @param book the Book
+     * @return the slot
+     */
+    private int slot(Book book) {
+        return (book.hashCode() * 0x9E3779B9) >>> shift;
+    }
+}
@@ -0,0 +1,59 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Title: BookSetTest.java
+ * Author: Nicholas Fotinakes
+ * Abstract: Test file for the BookSet.java class
+ * Date: 10/18/2026
+ */
+class BookSetTest {
+
+    // Test add, remove and contains, and that Books come back in the order they were added
+    @Test
+    void add() {
+        BookSet set = new BookSet();
+        Book first = new Book("1", "First", "sci-fi", 10, "Author", LocalDate.now());
+        Book second = new Book("2", "Second", "sci-fi", 10, "Author", LocalDate.now());
+        assertTrue(set.add(second));
+        assertTrue(set.add(first));
+        assertFalse(set.add(new Book("1", "First", "sci-fi", 10, "Author", LocalDate.now())));
+        assertEquals(List.of(second, first), set.toList());
+        assertTrue(set.remove(second));
+        assertFalse(set.remove(second));
+        assertFalse(set.contains(second));
+        assertTrue(set.contains(first));
+        assertTrue(set.add(second));
+        assertEquals(List.of(first, second), set.toList());
+        assertEquals(2, set.size());
+    }
+
+    // Test that the set agrees with a LinkedHashSet, order included, through growth and gaps
+    @Test
+    void matchesLinkedHashSet() {
+        BookSet set = new BookSet();
+        LinkedHashSet<Book> expected = new LinkedHashSet<>();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            books.add(new Book("isbn-" + i, "Title " + i, "sci-fi", 100, "Author", LocalDate.now()));
+        }
+        Random random = new Random(23);
+        for (int i = 0; i < 20000; i++) {
+            Book book = books.get(random.nextInt(books.size()));
+            if (random.nextInt(2) == 0) {
+                assertEquals(expected.remove(book), set.remove(book));
+            } else {
+                assertEquals(expected.add(book), set.add(book));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        assertEquals(new ArrayList<>(expected), set.toList());
+    }
+}
@@ -3,6 +3,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
+import java.util.Objects;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -165,6 +166,21 @@ class BookTest {
         assertEquals(testbook, testbook3);
     }
 
+    // Test that every spelling of one ISBN is the same book, and other catalog numbers are compared as written
+    @Test
+    void equalsByIsbnKey() {
+        Book hyphenated = new Book("978-0-306-40615-7", title, subject, pageCount, author, dueDate);
+        Book plain = new Book("9780306406157", title, subject, pageCount, author, dueDate);
+        Book isbn10 = new Book("0-306-40615-2", title, subject, pageCount, author, dueDate);
+        assertEquals(hyphenated, plain);
+        assertEquals(hyphenated, isbn10);
+        assertEquals(hyphenated.hashCode(), plain.hashCode());
+        assertEquals(hyphenated.hashCode(), isbn10.hashCode());
+        assertNotEquals(new Book("42-w-87", title, subject, pageCount, author, dueDate),
+                new Book("42w87", title, subject, pageCount, author, dueDate));
+        assertNotEquals(hyphenated, new Book("978-0-306-40615-8", title, subject, pageCount, author, dueDate));
+    }
+
     // Test that the toString properly outputs correctly formatted string
     @Test
     void testToString() {
@@ -172,4 +188,19 @@ class BookTest {
         testbook = new Book(isbn, title, subject, pageCount, author, dueDate);
         assertEquals(testString, testbook.toString());
     }
-}
\ No newline at end of file
+
+    // Test that the cached hash code follows the fields and that a frozen book can't change
+    @Test
+    void freeze() {
+        testbook = new Book(isbn, title, subject, pageCount, author, dueDate);
+        assertEquals(Objects.hash(isbn, title, subject, pageCount, author), testbook.hashCode());
+        testbook.setTitle("New Title");
+        assertEquals(Objects.hash(isbn, "New Title", subject, pageCount, author), testbook.hashCode());
+        assertFalse(testbook.isFrozen());
+        testbook.freeze();
+        assertTrue(testbook.isFrozen());
+        assertThrows(IllegalStateException.class, () -> testbook.setTitle(title));
+        assertThrows(IllegalStateException.class, () -> testbook.setDueDate(dueDate));
+        assertEquals("New Title", testbook.getTitle());
+    }
+}
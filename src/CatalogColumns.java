@@ -0,0 +1,206 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Title: CatalogColumns.java
+ * Author: Nicholas Fotinakes
+ * Description: This class holds the registered titles column by column for reports. Each title
+ * has a number in the order it was registered, and each field is an array indexed by that
+ * number: subject and author as ids into dictionaries of names, page count, copies, copies on
+ * loan and the catalog due date as an epoch day. A report reads only the columns it needs from
+ * start to end instead of visiting every Book object, so scans stay in cache and the loops are
+ * simple enough for the JIT to unroll.
+ * Title numbers are the positions of the titles in Library's catalog list, since both are
+ * added to in registration order. Titles and copies are only added under Library's write
+ * lock. The on loan column is changed by checkouts and returns that share the read lock, so
+ * it is atomic.
+ * Date: 10/18/2026
+ */
+public class CatalogColumns {
+
+    private static final int MIN_CAPACITY = 16;    // Smallest number of titles held
+
+    private final HashMap<Book, Integer> titles = new HashMap<>();  // Title number of each Book
+    private final HashMap<String, Integer> subjectIds = new HashMap<>();   // Id by normal subject
+    private final HashMap<String, Integer> authorIds = new HashMap<>();    // Id by author
+    private final List<String> subjects = new ArrayList<>();    // Subject name by id, as first seen
+    private final List<String> authors = new ArrayList<>();     // Author name by id
+    private int[] subjectColumn = new int[MIN_CAPACITY];        // Subject id of each title
+    private int[] authorColumn = new int[MIN_CAPACITY];         // Author id of each title
+    private int[] pageColumn = new int[MIN_CAPACITY];           // Page count of each title
+    private int[] copyColumn = new int[MIN_CAPACITY];           // Copies registered of each title
+    private int[] dueDayColumn = new int[MIN_CAPACITY];         // Catalog due date, or NO_DUE_DAY
+    private AtomicIntegerArray loanColumn = new AtomicIntegerArray(MIN_CAPACITY);  // Copies on loan
+    private int size;                                           // Number of titles
+
+    /**
+     * This method adds copies of a Book, giving it the next title number if it's new
+     * @param book the registered Book
+     * @param copies how many copies to add
+     */
+    public void addCopies(Book book, int copies) {
+        Integer title = titles.get(book);
+        if (title != null) {
+            copyColumn[title] += copies;
+            return;
+        }
+        if (size == pageColumn.length) {
+            grow();
+        }
+        titles.put(book, size);
+        subjectColumn[size] = id(book.getSubjectKey(), book.getSubject(), subjectIds, subjects);
+        authorColumn[size] = id(book.getAuthor(), book.getAuthor(), authorIds, authors);
+        pageColumn[size] = book.getPageCount();
+        copyColumn[size] = copies;
+        dueDayColumn[size] = CopyLedger.toDueDay(book.getDueDate());
+        size++;
+    }
+
+    /**
+     * This method changes the number of copies of a title on loan. It allocates nothing, so
+     * checkouts and returns can call it
+     * @param book the registered Book
+     * @param change 1 for a checkout, -1 for a return
+     */
+    public void loaned(Book book, int change) {
+        Integer title = titles.get(book);
+        if (title != null) {
+            loanColumn.addAndGet(title, change);
+        }
+    }
+
+    /**
+     * This method returns the copies registered of a title
+     * @param title the title number
+     * @return the copies
+     */
+    public int getCopies(int title) {
+        return copyColumn[title];
+    }
+
+    /**
+     * This method returns the copies of a title on loan
+     * @param title the title number
+     * @return the copies on loan
+     */
+    public int getOnLoan(int title) {
+        return loanColumn.get(title);
+    }
+
+    /**
+     * This method returns the number of titles
+     * @return the number of titles
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This method adds up the pages of every registered copy by subject. Subjects that differ
+     * only in case or punctuation are counted together under the spelling seen first
+     * @return total pages by subject, in the order the subjects were first seen
+     */
+    public Map<String, Long> pagesBySubject() {
+        long[] totals = new long[subjects.size()];
+        for (int title = 0; title < size; title++) {
+            totals[subjectColumn[title]] += (long) pageColumn[title] * copyColumn[title];
+        }
+        return byName(subjects, totals);
+    }
+
+    /**
+     * This method adds up the registered copies by author
+     * @return copies by author, in the order the authors were first seen
+     */
+    public Map<String, Long> copiesByAuthor() {
+        long[] totals = new long[authors.size()];
+        for (int title = 0; title < size; title++) {
+            totals[authorColumn[title]] += copyColumn[title];
+        }
+        return byName(authors, totals);
+    }
+
+    /**
+     * This method returns the average page count of the copies on loan
+     * @return the average, or 0 if nothing is on loan
+     */
+    public double averagePagesOnLoan() {
+        long pages = 0;
+        long loans = 0;
+        for (int title = 0; title < size; title++) {
+            int onLoan = loanColumn.get(title);
+            pages += (long) pageColumn[title] * onLoan;
+            loans += onLoan;
+        }
+        return loans == 0 ? 0 : (double) pages / loans;
+    }
+
+    /**
+     * This method counts the registered copies whose catalog due date is on or before a day
+     * @param dueDay the last due day to include, as an epoch day
+     * @return the number of copies
+     */
+    public long copiesDueBy(int dueDay) {
+        long count = 0;
+        for (int title = 0; title < size; title++) {
+            if (dueDayColumn[title] <= dueDay) {
+                count += copyColumn[title];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * This method returns the id of a name, giving it the next id if it's new
+     * @param key the form of the name ids are kept by
+     * @param name the name to show in reports
+     * @param ids the ids by key
+     * @param names the names by id
+     * @return the id
+     */
+    private static int id(String key, String name, HashMap<String, Integer> ids, List<String> names) {
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = names.size();
+            ids.put(key, id);
+            names.add(name);
+        }
+        return id;
+    }
+
+    /**
+     * This method pairs totals with the names of their ids
+     * @param names the names by id
+     * @param totals the totals by id
+     * @return the totals by name, in id order
+     */
+    private static Map<String, Long> byName(List<String> names, long[] totals) {
+        Map<String, Long> result = new LinkedHashMap<>(totals.length * 2);
+        for (int id = 0; id < totals.length; id++) {
+            result.put(names.get(id), totals[id]);
+        }
+        return result;
+    }
+
+    /**
+     * This method doubles every column
+     */
+    private void grow() {
+        int capacity = pageColumn.length * 2;
+        subjectColumn = Arrays.copyOf(subjectColumn, capacity);
+        authorColumn = Arrays.copyOf(authorColumn, capacity);
+        pageColumn = Arrays.copyOf(pageColumn, capacity);
+        copyColumn = Arrays.copyOf(copyColumn, capacity);
+        dueDayColumn = Arrays.copyOf(dueDayColumn, capacity);
+        AtomicIntegerArray loans = new AtomicIntegerArray(capacity);
+        for (int title = 0; title < size; title++) {
+            loans.set(title, loanColumn.get(title));
+        }
+        loanColumn = loans;
+    }
+}
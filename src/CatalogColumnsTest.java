@@ -0,0 +1,59 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Title: CatalogColumnsTest.java
+ * Author: Nicholas Fotinakes
+ * Abstract: Test file for the CatalogColumns.java class
+ * Date: 10/18/2026
+ */
+class CatalogColumnsTest {
+
+    // Test the reports over a few titles, including a subject spelled two ways
+    @Test
+    void reports() {
+        CatalogColumns columns = new CatalogColumns();
+        LocalDate due = LocalDate.of(2026, 10, 18);
+        Book dune = new Book("1", "Dune", "Sci-Fi", 400, "Herbert", due);
+        Book messiah = new Book("2", "Dune Messiah", "sci fi", 200, "Herbert", due.plusDays(7));
+        Book dracula = new Book("3", "Dracula", "horror", 300, "Stoker", due);
+        columns.addCopies(dune, 2);
+        columns.addCopies(messiah, 1);
+        columns.addCopies(dracula, 1);
+        columns.addCopies(dune, 1);
+        assertEquals(3, columns.size());
+
+        assertEquals(Map.of("Sci-Fi", 1400L, "horror", 300L), columns.pagesBySubject());
+        assertEquals(Map.of("Herbert", 4L, "Stoker", 1L), columns.copiesByAuthor());
+        assertEquals(4, columns.copiesDueBy((int) due.toEpochDay()));
+        assertEquals(5, columns.copiesDueBy((int) due.plusDays(7).toEpochDay()));
+
+        assertEquals(0, columns.averagePagesOnLoan());
+        columns.loaned(dune, 1);
+        columns.loaned(messiah, 1);
+        assertEquals(300, columns.averagePagesOnLoan());
+        columns.loaned(dune, -1);
+        assertEquals(200, columns.averagePagesOnLoan());
+    }
+
+    // Test that the columns keep their values as they grow past their first size
+    @Test
+    void grow() {
+        CatalogColumns columns = new CatalogColumns();
+        long pages = 0;
+        for (int i = 0; i < 1000; i++) {
+            Book book = new Book("isbn-" + i, "Title " + i, "sci-fi", i + 1, "Author " + (i % 10), LocalDate.now());
+            columns.addCopies(book, 2);
+            columns.loaned(book, 1);
+            pages += 2L * (i + 1);
+        }
+        assertEquals(1000, columns.size());
+        assertEquals(pages, columns.pagesBySubject().get("sci-fi"));
+        assertEquals(200L, columns.copiesByAuthor().get("Author 3"));
+        assertEquals(500.5, columns.averagePagesOnLoan());
+    }
+}
@@ -27,6 +27,9 @@ public enum Code {
     PAGE_COUNT_ERROR(-8,"Page count error"),
     DUE_DATE_ERROR(-10,"Due date error"),
     DATE_CONVERSION_ERROR(-101, "Date conversion Error"),
+    SNAPSHOT_WRITE_ERROR(-11, "Could not write snapshot"),
+    SNAPSHOT_FORMAT_ERROR(-111, "Snapshot is damaged or an unknown version"),
+    JOURNAL_ERROR(-12, "Journal read/write error"),
     NOT_IMPLEMENTED_ERROR(-99,"Not yet implemented error"),
     UNKNOWN_ERROR(-999, "Unknown Error");
 
@@ -0,0 +1,124 @@
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+
+/**
+ * Title: ConsoleLibraryListener.java
+ * Author: Nicholas Fotinakes
+ * Description: This class prints Library events as lines of text. It is the listener a Library
+ * starts with, printing to System.out. Given a buffered PrintStream and wrapped in an
+ * AsyncLibraryListener it only writes when a batch of events is flushed.
+ * Date: 10/18/2026
+ */
+public class ConsoleLibraryListener implements LibraryListener {
+
+    // Default sink, prints to whatever System.out is when an event happens
+    public static final ConsoleLibraryListener CONSOLE = new ConsoleLibraryListener(null);
+
+    private final PrintStream stream;   // Stream the events are printed to, null for System.out
+
+    /**
+     * Constructor takes the stream to print events to
+     * @param stream the PrintStream to print to, or null to use System.out at the time
+     */
+    public ConsoleLibraryListener(PrintStream stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * This method creates a listener that prints to standard out through a buffer that is
+     * only written when flushed, meant to be wrapped in an AsyncLibraryListener
+     * @return a new ConsoleLibraryListener
+     */
+    public static ConsoleLibraryListener buffered() {
+        return new ConsoleLibraryListener(new PrintStream(
+                new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false));
+    }
+
+    /**
+     * This method returns the stream to print the next event to
+     * @return the PrintStream
+     */
+    private PrintStream out() {
+        return stream != null ? stream : System.out;
+    }
+
+    @Override
+    public void bookAdded(Book book, int copies) {
+        if (copies > 1) {
+            out().println(copies + " copies of " + book + " in the stacks");
+        } else {
+            out().println(book + " added to the stacks.");
+        }
+    }
+
+    @Override
+    public void bookShelved(Book book, Shelf shelf, int copies) {
+        if (copies == 1) {
+            out().println(book + " added to shelf " + shelf);
+        } else {
+            out().println(copies + " copies of " + book + " added to shelf " + shelf);
+        }
+    }
+
+    @Override
+    public void shelfStocked(Shelf shelf, int books, int copies) {
+        out().println(copies + " copies of " + books + " books added to shelf " + shelf);
+    }
+
+    @Override
+    public void bookUnshelved(Book book, Shelf shelf) {
+        out().println(book + " successfully removed from shelf " + shelf.getSubject());
+    }
+
+    @Override
+    public void bookCheckedOut(Reader reader, Book book) {
+        out().println(book + " checked out successfully");
+    }
+
+    @Override
+    public void bookReturned(Reader reader, Book book) {
+        out().println(reader.getName() + " is returning " + book);
+    }
+
+    @Override
+    public void shelfAdded(Shelf shelf) {
+        out().println("Shelf " + shelf + " added to the library");
+    }
+
+    @Override
+    public void readerAdded(Reader reader) {
+        out().println(reader.getName() + " added to the library!");
+    }
+
+    @Override
+    public void readerRemoved(Reader reader) {
+        out().println(reader.getName() + " removed from the library");
+    }
+
+    @Override
+    public void sectionParsing(String section, int count) {
+        out().println("Parsing " + count + " " + section);
+    }
+
+    @Override
+    public void sectionParsed(String section, Code code) {
+        out().println(code);
+    }
+
+    @Override
+    public void journalReplayed(int records) {
+        out().println("Replayed " + records + " journal records");
+    }
+
+    @Override
+    public void error(Code code, Object subject) {
+        out().println("ERROR: " + code.getMessage() + " (" + subject + ")");
+    }
+
+    @Override
+    public void flush() {
+        out().flush();
+    }
+}
@@ -0,0 +1,177 @@
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Title: CopyLedger.java
+ * Author: Nicholas Fotinakes
+ * Description: This class keeps the loan state of every physical copy of one title. A copy is
+ * identified by its copy number, from 0 to getCopies() - 1, and the card number of its
+ * borrower and its due date (as an epoch day) are kept in two int arrays, so a title costs
+ * two ints per copy instead of an object per copy. The methods are synchronized, so loans of
+ * different titles never wait on each other.
+ * Date: 10/18/2026
+ */
+public class CopyLedger {
+
+    public static final int ON_SHELF = -1;  // Borrower of a copy that isn't checked out
+    public static final int NO_DUE_DAY = Integer.MAX_VALUE; // Due day of a loan with no due date
+    private int[] borrowers;        // Card number of the reader holding each copy, or ON_SHELF
+    private int[] dueDays;          // Due date of each copy on loan, as an epoch day
+    private int copies;             // Number of copies of the title
+    private int onLoan;             // Number of copies checked out
+    private int nextFree;           // Where to start looking for a copy on the shelf
+
+    /**
+     * Constructor for a ledger with a number of copies, all on the shelf
+     * @param copies the number of copies
+     */
+    public CopyLedger(int copies) {
+        borrowers = new int[Math.max(copies, 1)];
+        dueDays = new int[borrowers.length];
+        Arrays.fill(borrowers, ON_SHELF);
+        this.copies = Math.max(copies, 0);
+    }
+
+    /**
+     * This method adds copies of the title, all on the shelf
+     * @param count how many copies to add
+     */
+    public synchronized void addCopies(int count) {
+        if (copies + count > borrowers.length) {
+            int capacity = Math.max(copies + count, borrowers.length + (borrowers.length >> 1));
+            borrowers = Arrays.copyOf(borrowers, capacity);
+            dueDays = Arrays.copyOf(dueDays, capacity);
+            Arrays.fill(borrowers, copies, capacity, ON_SHELF);
+        }
+        copies += count;
+    }
+
+    /**
+     * This method lends a copy on the shelf to a reader
+     * @param cardNumber the card number of the reader
+     * @param dueDay the due date as an epoch day, or NO_DUE_DAY
+     * @return the copy number lent, or -1 if every copy is already out
+     */
+    public synchronized int lend(int cardNumber, int dueDay) {
+        if (onLoan == copies) {
+            return -1;
+        }
+        // Copies are usually given back in about the order they were lent, so start the
+        // search where the last copy was found or given back
+        int copy = nextFree;
+        while (borrowers[copy] != ON_SHELF) {
+            copy = copy + 1 < copies ? copy + 1 : 0;
+        }
+        borrowers[copy] = cardNumber;
+        dueDays[copy] = dueDay;
+        onLoan++;
+        nextFree = copy + 1 < copies ? copy + 1 : 0;
+        return copy;
+    }
+
+    /**
+     * This method puts the copy a reader has back on the shelf
+     * @param cardNumber the card number of the reader
+     * @return the copy number given back, or -1 if the reader has no copy
+     */
+    public synchronized int giveBack(int cardNumber) {
+        int copy = find(cardNumber);
+        if (copy >= 0) {
+            giveBackCopy(copy);
+        }
+        return copy;
+    }
+
+    /**
+     * This method puts a copy found with find back on the shelf, so a return only looks
+     * through the copies once
+     * @param copy the copy number
+     */
+    public synchronized void giveBackCopy(int copy) {
+        checkCopy(copy);
+        if (borrowers[copy] != ON_SHELF) {
+            borrowers[copy] = ON_SHELF;
+            onLoan--;
+            nextFree = copy;
+        }
+    }
+
+    /**
+     * This method finds the copy a reader has. A reader holds at most one copy of a title
+     * @param cardNumber the card number of the reader
+     * @return the copy number, or -1 if the reader has no copy
+     */
+    public synchronized int find(int cardNumber) {
+        for (int copy = 0; copy < copies; copy++) {
+            if (borrowers[copy] == cardNumber) {
+                return copy;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * This method returns who has a copy
+     * @param copy the copy number
+     * @return the card number of the borrower, or ON_SHELF
+     */
+    public synchronized int getBorrower(int copy) {
+        checkCopy(copy);
+        return borrowers[copy];
+    }
+
+    /**
+     * This method returns when a copy is due back
+     * @param copy the copy number
+     * @return the due date as an epoch day, NO_DUE_DAY if the loan has no due date, or 0 if
+     * the copy is on the shelf
+     */
+    public synchronized int getDueDay(int copy) {
+        checkCopy(copy);
+        return borrowers[copy] == ON_SHELF ? 0 : dueDays[copy];
+    }
+
+    /**
+     * This method turns a due date into the epoch day the ledger keeps
+     * @param dueDate the due date, or null if there isn't one
+     * @return the epoch day, or NO_DUE_DAY if the date is null
+     */
+    public static int toDueDay(LocalDate dueDate) {
+        return dueDate == null ? NO_DUE_DAY : (int) dueDate.toEpochDay();
+    }
+
+    /**
+     * This method turns an epoch day kept by the ledger back into a due date
+     * @param dueDay the epoch day, or NO_DUE_DAY
+     * @return the due date, or null if the loan has no due date
+     */
+    public static LocalDate toDueDate(int dueDay) {
+        return dueDay == NO_DUE_DAY ? null : LocalDate.ofEpochDay(dueDay);
+    }
+
+    /**
+     * This method returns the number of copies of the title
+     * @return the number of copies
+     */
+    public synchronized int getCopies() {
+        return copies;
+    }
+
+    /**
+     * This method returns the number of copies checked out
+     * @return the number of copies on loan
+     */
+    public synchronized int getOnLoan() {
+        return onLoan;
+    }
+
+    /**
+     * This method checks that a copy number is in range
+     * @param copy the copy number
+     */
+    private void checkCopy(int copy) {
+        if (copy < 0 || copy >= copies) {
+            throw new IndexOutOfBoundsException("No copy " + copy + " of " + copies);
+        }
+    }
+}
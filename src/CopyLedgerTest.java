@@ -0,0 +1,60 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Title: CopyLedgerTest.java
+ * Author: Nicholas Fotinakes
+ * Abstract: Test file for the CopyLedger.java class
+ * Date: 10/18/2026
+ */
+class CopyLedgerTest {
+
+    // Test that each copy keeps its own borrower and due day and is reused once given back
+    @Test
+    void lend() {
+        CopyLedger ledger = new CopyLedger(2);
+        int first = ledger.lend(1, 100);
+        int second = ledger.lend(2, 200);
+        assertNotEquals(first, second);
+        assertEquals(1, ledger.getBorrower(first));
+        assertEquals(200, ledger.getDueDay(second));
+        assertEquals(2, ledger.getOnLoan());
+
+        assertEquals(first, ledger.giveBack(1));
+        assertEquals(-1, ledger.giveBack(1));
+        assertEquals(CopyLedger.ON_SHELF, ledger.getBorrower(first));
+        assertEquals(-1, ledger.find(1));
+        assertEquals(first, ledger.lend(3, 300));
+        assertEquals(first, ledger.find(3));
+    }
+
+    // Test that adding copies grows the ledger and lending past the last copy fails
+    @Test
+    void addCopies() {
+        CopyLedger ledger = new CopyLedger(0);
+        ledger.addCopies(3);
+        for (int card = 1; card <= 3; card++) {
+            assertTrue(ledger.lend(card, card) >= 0);
+        }
+        assertEquals(-1, ledger.lend(4, 4));
+        assertEquals(3, ledger.getCopies());
+        assertEquals(3, ledger.getOnLoan());
+        assertThrows(IndexOutOfBoundsException.class, () -> ledger.getBorrower(3));
+    }
+
+    // Test that a copy found once can be given back without looking for it again
+    @Test
+    void giveBackCopy() {
+        CopyLedger ledger = new CopyLedger(3);
+        ledger.lend(1, 100);
+        ledger.lend(2, CopyLedger.toDueDay(null));
+        int copy = ledger.find(2);
+        assertEquals(CopyLedger.NO_DUE_DAY, ledger.getDueDay(copy));
+        assertNull(CopyLedger.toDueDate(ledger.getDueDay(copy)));
+        ledger.giveBackCopy(copy);
+        ledger.giveBackCopy(copy);
+        assertEquals(1, ledger.getOnLoan());
+        assertEquals(-1, ledger.find(2));
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Title: Holding.java
+ * Author: Nicholas Fotinakes
+ * Description: This class is a read only row for queries over the catalog: one registered Book
+ * with the number of copies the Library holds and how many of them were checked out when the
+ * query was made.
+ * Date: 10/18/2026
+ */
+public final class Holding {
+
+    private final Book book;        // The registered Book
+    private final int copies;       // Copies registered
+    private final int onLoan;       // Copies checked out
+
+    /**
+     * Holding constructor
+     * @param book the registered Book
+     * @param copies the copies registered
+     * @param onLoan the copies checked out
+     */
+    public Holding(Book book, int copies, int onLoan) {
+        this.book = book;
+        this.copies = copies;
+        this.onLoan = onLoan;
+    }
+
+    /**
+     * This method returns the registered Book
+     * @return the Book
+     */
+    public Book getBook() {
+        return book;
+    }
+
+    /**
+     * This method returns the number of copies registered
+     * @return the copies
+     */
+    public int getCopies() {
+        return copies;
+    }
+
+    /**
+     * This method returns the number of copies checked out
+     * @return the copies on loan
+     */
+    public int getOnLoan() {
+        return onLoan;
+    }
+
+    /**
+     * This method returns the number of copies not checked out
+     * @return the copies available
+     */
+    public int getAvailable() {
+        return copies - onLoan;
+    }
+
+    /**
+     * Overridden toString method to return formatted Holding output
+     * @return the book with its copies and loans
+     */
+    @Override
+    public String toString() {
+        return copies + " copies of " + book + ", " + onLoan + " on loan";
+    }
+}
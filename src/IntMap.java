@@ -0,0 +1,294 @@
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Title: IntMap.java
+ * Author: Nicholas Fotinakes
+ * Description: This class is a hash map from int keys to values that keeps entries in the
+ * order they were added, without boxing the keys. Entries are appended to a key array and a
+ * value array, and an open addressing table of ints holds the number of the entry in each
+ * slot. A key that finds its slot taken goes in the next free slot, and a removal shifts later
+ * slots back so a lookup can stop at the first empty one. A removed entry leaves a gap in the
+ * entry arrays that is closed the next time they fill up. Lookups allocate nothing. Null
+ * values aren't allowed.
+ * The map is not thread safe, but lookups only read, so any number of them can run together
+ * while nothing changes the map.
+ * Date: 10/18/2026
+ */
+public class IntMap<V> {
+
+    private static final int MIN_CAPACITY = 8;     // Smallest number of entries, a power of two
+
+    private int[] table;        // Entry number plus one by slot, 0 for an empty slot
+    private int[] keys;         // Keys in the order added
+    private Object[] values;    // Values in the order added, null where an entry was removed
+    private int count;          // Entries used in keys and values, removed ones included
+    private int size;           // Number of keys in the map
+    private int shift;          // 32 less the log of the table length, for hashing a key to a slot
+
+    /**
+     * Constructor for an empty map
+     */
+    public IntMap() {
+        this(0);
+    }
+
+    /**
+     * Constructor for an empty map that can hold some keys before it grows
+     * @param expected the number of keys expected
+     */
+    public IntMap(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expected) {
+            capacity *= 2;
+        }
+        keys = new int[capacity];
+        values = new Object[capacity];
+        rehash();
+    }
+
+    /**
+     * This method returns the value for a key
+     * @param key the key
+     * @return the value, or null if the key isn't in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int entry = find(key);
+        return entry < 0 ? null : (V) values[entry];
+    }
+
+    /**
+     * This method checks if a key is in the map
+     * @param key the key
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * This method puts a value in the map, replacing the value for the key if there is one. A
+     * new key goes after every key already in the map
+     * @param key the key
+     * @param value the value, not null
+     * @return the value replaced, or null if the key is new
+     */
+    public V put(int key, V value) {
+        return put(key, value, true);
+    }
+
+    /**
+     * This method puts a value in the map only if the key isn't in it yet
+     * @param key the key
+     * @param value the value, not null
+     * @return the value already in the map, or null if the value was put
+     */
+    public V putIfAbsent(int key, V value) {
+        return put(key, value, false);
+    }
+
+    /**
+     * This method removes a key and its value
+     * @param key the key
+     * @return the value removed, or null if the key isn't in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int mask = table.length - 1;
+        int slot = slot(key);
+        while (table[slot] != 0 && keys[table[slot] - 1] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (table[slot] == 0) {
+            return null;
+        }
+        int entry = table[slot] - 1;
+        V removed = (V) values[entry];
+        values[entry] = null;
+        size--;
+        // Move back any later slot that can't be found past the slot being emptied
+        int empty = slot;
+        for (int next = (empty + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+            int home = slot(keys[table[next] - 1]);
+            if (((next - home) & mask) >= ((next - empty) & mask)) {
+                table[empty] = table[next];
+                empty = next;
+            }
+        }
+        table[empty] = 0;
+        return removed;
+    }
+
+    /**
+     * This method returns the number of keys in the map
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This method returns the values in the order their keys were added. The collection is a
+     * view, so it changes with the map
+     * @return the values
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * This method returns the entry number of a key
+     * @param key the key
+     * @return the entry number, or -1 if the key isn't in the map
+     */
+    private int find(int key) {
+        int mask = table.length - 1;
+        for (int slot = slot(key); table[slot] != 0; slot = (slot + 1) & mask) {
+            int entry = table[slot] - 1;
+            if (keys[entry] == key) {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * This method puts a value in the map
+     * @param key the key
+     * @param value the value, not null
+     * @param replace true to replace the value of a key that is already in the map
+     * @return the value that was in the map, or null if the key is new
+     */
+    @SuppressWarnings("unchecked")
+    private V put(int key, V value, boolean replace) {
+        if (value == null) {
+            throw new NullPointerException("IntMap values can't be null");
+        }
+        int entry = find(key);
+        if (entry >= 0) {
+            V old = (V) values[entry];
+            if (replace) {
+                values[entry] = value;
+            }
+            return old;
+        }
+        if (count == keys.length) {
+            // Close the gaps left by removals, and make room if that isn't enough
+            resize(size < keys.length / 2 ? keys.length : keys.length * 2);
+        }
+        keys[count] = key;
+        values[count] = value;
+        count++;
+        size++;
+        insert(key, count);
+        return null;
+    }
+
+    /**
+     * This method moves the entries into arrays of a new length, leaving out removed ones
+     * @param capacity the number of entries the new arrays hold, a power of two
+     */
+    private void resize(int capacity) {
+        int[] newKeys = new int[capacity];
+        Object[] newValues = new Object[capacity];
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (values[i] != null) {
+                newKeys[kept] = keys[i];
+                newValues[kept] = values[i];
+                kept++;
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+        count = kept;
+        rehash();
+    }
+
+    /**
+     * This method builds the table again from the entries. The table has two slots for every
+     * entry, so it is never more than half full
+     */
+    private void rehash() {
+        table = new int[keys.length * 2];
+        shift = 32 - Integer.numberOfTrailingZeros(table.length);
+        for (int i = 0; i < count; i++) {
+            insert(keys[i], i + 1);
+        }
+    }
+
+    /**
+     * This method puts an entry number in the first free slot for its key
+     * @param key the key of the entry
+     * @param number the entry number plus one
+     */
+    private void insert(int key, int number) {
+        int mask = table.length - 1;
+        int slot = slot(key);
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = number;
+    }
+
+    /**
+     * This method returns the slot a key is looked for first, spreading keys that are close
+     * together, like card numbers, across the table
+     * @param key the key
+     * @return the slot
+     */
+    private int slot(int key) {
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    /**
+     * Title: ValueIterator
+     * Description: This class walks the values in the order they were added, skipping removed
+     * entries
+     */
+    private final class ValueIterator implements Iterator<V> {
+
+        private int next = skip(0);     // Entry number of the next value
+
+        @Override
+        public boolean hasNext() {
+            return next < count;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (next >= count) {
+                throw new NoSuchElementException();
+            }
+            V value = (V) values[next];
+            next = skip(next + 1);
+            return value;
+        }
+
+        /**
+         * This method finds the first entry at or after a number that wasn't removed
+         * @param entry the entry number to start at
+         * @return the entry number, or count if there are none left
+         */
+        private int skip(int entry) {
+            while (entry < count && values[entry] == null) {
+                entry++;
+            }
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Title: IntMapTest.java
+ * Author: Nicholas Fotinakes
+ * Abstract: Test file for the IntMap.java class
+ * Date: 10/18/2026
+ */
+class IntMapTest {
+
+    // Test put, get and remove, and that values come back in the order their keys were added
+    @Test
+    void put() {
+        IntMap<String> map = new IntMap<>();
+        assertNull(map.put(30, "c"));
+        assertNull(map.put(10, "a"));
+        assertNull(map.putIfAbsent(20, "b"));
+        assertEquals("b", map.putIfAbsent(20, "x"));
+        assertEquals("a", map.put(10, "A"));
+        assertEquals(List.of("c", "A", "b"), new ArrayList<>(map.values()));
+        assertTrue(map.containsKey(30));
+        assertEquals("c", map.remove(30));
+        assertFalse(map.containsKey(30));
+        assertNull(map.get(30));
+        assertNull(map.put(30, "d"));
+        assertEquals(List.of("A", "b", "d"), new ArrayList<>(map.values()));
+        assertEquals(3, map.values().size());
+        assertThrows(NullPointerException.class, () -> map.put(1, null));
+    }
+
+    // Test that the map agrees with a LinkedHashMap, order included, through growth and removals
+    @Test
+    void matchesLinkedHashMap() {
+        IntMap<Integer> map = new IntMap<>();
+        LinkedHashMap<Integer, Integer> expected = new LinkedHashMap<>();
+        Random random = new Random(22);
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(3000) - 100;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int key = -100; key < 2900; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()));
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Title: Isbn.java
+ * Author: Nicholas Fotinakes
+ * Description: This class reads ISBNs into long keys. Hyphens and spaces are ignored, the check
+ * digit is checked, and an ISBN-10 is turned into the ISBN-13 of the same book, so every way
+ * of writing an ISBN packs to the same thirteen digit number. Text that isn't an ISBN, such as
+ * an older catalog number, gets NOT_ISBN instead of a key. That includes numbers shaped like an
+ * ISBN whose check digit doesn't add up, since legacy catalog numbers can look like one.
+ * Nothing is allocated, so a key can be worked out on the checkout path.
+ * Date: 10/18/2026
+ */
+final class Isbn {
+
+    public static final long NOT_ISBN = -1;         // Text that isn't an ISBN with a valid check digit
+
+    private static final long PREFIX_978 = 978_000_000_000L;    // ISBN-13 prefix of every ISBN-10
+    private static final long PREFIX_DIVISOR = 10_000_000_000L; // Takes the prefix off an ISBN-13
+
+    /**
+     * Constructor is private, this class only has static methods
+     */
+    private Isbn() {
+    }
+
+    /**
+     * This method packs an ISBN-10 or ISBN-13 into the number of its ISBN-13
+     * @param text the ISBN, with or without hyphens and spaces
+     * @return the ISBN-13 as a number, or NOT_ISBN
+     */
+    static long pack(String text) {
+        if (text == null) {
+            return NOT_ISBN;
+        }
+        long value = 0;     // Digits read so far, not counting an X
+        int count = 0;      // Digits read so far, counting an X
+        int sum10 = 0;      // ISBN-10 checksum, digits weighted 10 down to 1
+        int sum13 = 0;      // ISBN-13 checksum, digits weighted 1, 3, 1, ...
+        boolean endsInX = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+            int digit;
+            if (c >= '0' && c <= '9' && !endsInX && count < 13) {
+                digit = c - '0';
+                value = value * 10 + digit;
+            } else if ((c == 'X' || c == 'x') && count == 9) {
+                // Only the check digit of an ISBN-10 can be X, standing for 10
+                digit = 10;
+                endsInX = true;
+            } else {
+                return NOT_ISBN;
+            }
+            sum10 += digit * (10 - count);
+            sum13 += digit * (count % 2 == 0 ? 1 : 3);
+            count++;
+        }
+        if (count == 10) {
+            if (sum10 % 11 != 0) {
+                return NOT_ISBN;
+            }
+            long body = PREFIX_978 + (endsInX ? value : value / 10);
+            return body * 10 + checkDigit13(body);
+        }
+        long prefix = value / PREFIX_DIVISOR;
+        if (count != 13 || (prefix != 978 && prefix != 979)) {
+            return NOT_ISBN;
+        }
+        return sum13 % 10 == 0 ? value : NOT_ISBN;
+    }
+
+    /**
+     * This method works out the ISBN-13 check digit for the first twelve digits
+     * @param body the first twelve digits as a number
+     * @return the check digit
+     */
+    private static int checkDigit13(long body) {
+        int sum = 0;
+        // The last of the twelve digits has weight 3, the one before it 1, and so on
+        for (int i = 0; i < 12; i++) {
+            sum += (int) (body % 10) * (i % 2 == 0 ? 3 : 1);
+            body /= 10;
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
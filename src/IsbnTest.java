@@ -0,0 +1,39 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Title: IsbnTest.java
+ * Author: Nicholas Fotinakes
+ * Abstract: Test file for the Isbn.java class
+ * Date: 10/18/2026
+ */
+class IsbnTest {
+
+    // Test that every way of writing an ISBN packs to the number of its ISBN-13
+    @Test
+    void pack() {
+        assertEquals(9780306406157L, Isbn.pack("978-0-306-40615-7"));
+        assertEquals(9780306406157L, Isbn.pack("9780306406157"));
+        assertEquals(9780306406157L, Isbn.pack("0-306-40615-2"));
+        assertEquals(9780306406157L, Isbn.pack("0 306 40615 2"));
+        assertEquals(9780804429573L, Isbn.pack("0-8044-2957-X"));
+        assertEquals(9780804429573L, Isbn.pack("080442957x"));
+        assertEquals(9791090636071L, Isbn.pack("979-10-90636-07-1"));
+    }
+
+    // Test that text that isn't an ISBN, including a number with a wrong check digit, has no key
+    @Test
+    void packInvalid() {
+        assertEquals(Isbn.NOT_ISBN, Isbn.pack("978-0-306-40615-8"));
+        assertEquals(Isbn.NOT_ISBN, Isbn.pack("0-306-40615-3"));
+        assertEquals(Isbn.NOT_ISBN, Isbn.pack("1234567890"));
+        assertEquals(Isbn.NOT_ISBN, Isbn.pack("42-w-87"));
+        assertEquals(Isbn.NOT_ISBN, Isbn.pack("1337"));
+        assertEquals(Isbn.NOT_ISBN, Isbn.pack("X306406152"));
+        assertEquals(Isbn.NOT_ISBN, Isbn.pack("1234567890128"));
+        assertEquals(Isbn.NOT_ISBN, Isbn.pack("97803064061570"));
+        assertEquals(Isbn.NOT_ISBN, Isbn.pack(""));
+        assertEquals(Isbn.NOT_ISBN, Isbn.pack(null));
+    }
+}
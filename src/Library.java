@@ -1,11 +1,27 @@
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
 import java.util.Scanner;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Title: Library.Java - Pt. 4/4 of Library Project
@@ -18,12 +34,42 @@ import java.util.Scanner;
 public class Library {
 
 
-    public static final int LENDING_LIMIT = 5;  // The set limit of books a reader can check out
+    public static final int LENDING_LIMIT = 5;  // Lending limit of a new Reader
+    public static final int CHUNK_LINES = 16384;    // Fewest book lines per chunk when loading in parallel
+    public static final int JOURNAL_COMPACT_RECORDS = 100000;  // Journal records before a checkpoint
     private String name;                        // Hold library name
-    private static int libraryCard;             // Max library card number
-    private List<Reader> readers;               // A list of readers
-    private HashMap<String, Shelf> shelves;     // Map of shelf values by subject
+    private static final AtomicInteger libraryCard = new AtomicInteger();  // Max library card number
+    private IntMap<Reader> readers;             // Readers by card number, in the order added
+    private HashMap<String, Shelf> shelves;     // Map of shelf values by normal subject
+    private SubjectIndex subjects;              // Shelves by normal subject, alias and number
     private HashMap<Book, Integer> books;       // Map of Books and their count
+    private LongMap<Book> isbnIndex;            // Registered Books by ISBN packed into a number
+    private HashMap<String, Book> otherIsbns;   // Registered Books whose ISBN isn't an ISBN-10 or 13
+    private ArrayList<Book> catalog;            // Registered Books in the order registered, for paging
+    private HashMap<String, List<Book>> booksBySubject;    // Registered Books grouped by normal subject
+    private final LongAdder copyCount = new LongAdder();   // Copies registered, kept with every change
+    private final LongAdder loanCount = new LongAdder();   // Copies checked out, kept with every change
+    private final LongAdder shelvedCount = new LongAdder(); // Copies on every shelf, kept by the shelves
+    private CatalogColumns columns;             // Registered Books column by column, for reports
+    private TreeMap<Integer, Reader> readersByCard; // Readers in card number order, for paging
+    private HashMap<Book, CopyLedger> ledgers;  // Loan state of every copy, by registered Book
+    private OverdueIndex overdue;               // Every loan in order of its due date
+    private SearchIndex searchIndex;            // Registered Books by the words of their title and author
+    private PrefixIndex bookCompletions;        // Titles and authors, weighted by copies
+    private PrefixIndex readerCompletions;      // Reader names, weighted by readers with the name
+    private volatile LibraryJournal journal;    // Journal of changes, null if not journaling
+    private Path snapshotPath;                  // Snapshot the journal builds on
+    private long generation;                    // Generation of the last snapshot saved or loaded
+    private int journalCompactLimit = JOURNAL_COMPACT_RECORDS;  // Records before a checkpoint
+    private LibraryListener listener = ConsoleLibraryListener.CONSOLE;  // Receives Library events
+    // Guards the books, shelves and readers maps. Checkouts and returns share the read lock and
+    // then lock the Reader involved (and the Shelf, only while journaling), so they only wait
+    // on each other when they touch the same reader or shelf. Anything that adds, removes or replaces entries in the
+    // maps, or needs all of them to hold still (snapshots), takes the write lock.
+    // Lock order: catalogLock, then a Reader, then a Shelf, then the journal. A CopyLedger or a
+    // stripe of the OverdueIndex is locked on its own while holding the Reader, never together
+    // with a Shelf, the journal or each other
+    private final ReentrantReadWriteLock catalogLock = new ReentrantReadWriteLock();
 
     /**
      * Library constructor. Takes a name for library and initializes maps and lists
@@ -32,8 +78,45 @@ public class Library {
     public Library(String name) {
         this.name = name;
         books = new HashMap<>();
+        isbnIndex = new LongMap<>();
+        otherIsbns = new HashMap<>();
+        catalog = new ArrayList<>();
+        booksBySubject = new HashMap<>();
+        columns = new CatalogColumns();
+        readersByCard = new TreeMap<>();
+        ledgers = new HashMap<>();
+        overdue = new OverdueIndex();
+        searchIndex = new SearchIndex();
+        bookCompletions = new PrefixIndex();
+        readerCompletions = new PrefixIndex();
         shelves = new HashMap<>();
-        readers = new ArrayList<>();
+        subjects = new SubjectIndex();
+        readers = new IntMap<>();
+    }
+
+    /**
+     * The setListener method sets where Library and Shelf events are sent. Events go to the
+     * console until this is called
+     * @param listener the LibraryListener to use, or LibraryListener.NONE for no events
+     */
+    public void setListener(LibraryListener listener) {
+        catalogLock.writeLock().lock();
+        try {
+            this.listener = listener;
+            for (Shelf shelf : shelves.values()) {
+                shelf.setListener(listener);
+            }
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The getListener method returns where Library and Shelf events are sent
+     * @return the LibraryListener in use
+     */
+    public LibraryListener getListener() {
+        return listener;
     }
 
     /**
@@ -43,6 +126,20 @@ public class Library {
      * @return a Code if successful or not
      */
     public Code init(String filename) {
+        catalogLock.writeLock().lock();
+        try {
+            return parseFile(filename);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The parseFile method does the work of init while the caller holds the write lock
+     * @param filename the file to parse
+     * @return a Code if successful or not
+     */
+    private Code parseFile(String filename) {
         File file = new File(filename); // Create file object from file to parse
         Scanner inputFile;              // Declare Scanner to use for parsing
         String input;                   // input to hold line from file
@@ -55,28 +152,24 @@ public class Library {
             // Scanning Books
             input = inputFile.nextLine();           // Read the first line which should be a number
             lineCount = convertInt(input, Code.UNKNOWN_ERROR);    // Convert that to an integer
-            initBooks(lineCount, inputFile);        // Send this to initBooks to the num of books
-            // Print SUCCESS and call listBooks after parsing
-            System.out.println("SUCCESS");
-            listBooks();
+            // Send this to initBooks to the num of books and report how it went
+            listener.sectionParsed("books", initBooks(lineCount, inputFile));
 
             //Scanning Shelves
             input = inputFile.nextLine();           // Read next line after parsing books for shelf count
             lineCount = convertInt(input, Code.UNKNOWN_ERROR);    // Convert to integer
-            initShelves(lineCount, inputFile);      // Send to initShelves to parse shelves
-            // Print success and call listShelves after parsing shelves
-            System.out.println("SUCCESS");
-            listShelves(true);
+            // Send to initShelves to parse shelves and report how it went
+            listener.sectionParsed("shelves", initShelves(lineCount, inputFile));
 
             //Scanning Readers
             input = inputFile.nextLine();           // Read next line after parsing Shelves
             lineCount = convertInt(input, Code.UNKNOWN_ERROR);    // Convert to integer to check how many readers
-            initReader(lineCount, inputFile);       // Send count and Scanner to initReader to parse Readers
-            System.out.println("SUCCESS");
+            // Send count and Scanner to initReader to parse Readers
+            listener.sectionParsed("readers", initReader(lineCount, inputFile));
 
         // If exception thrown, return error
         } catch (FileNotFoundException e) {
-            System.out.println("Could not find file " + e);
+            listener.error(Code.FILE_NOT_FOUND_ERROR, filename);
             return Code.FILE_NOT_FOUND_ERROR;
         }
         return Code.SUCCESS;
@@ -101,7 +194,7 @@ public class Library {
             return Code.LIBRARY_ERROR;
         }
         // Begin parsing lines passed on bookCount and building Books
-        System.out.println("Parsing " + bookCount + " books");
+        listener.sectionParsing("books", bookCount);
         for(int i = 0; i < bookCount; i++){
             // Read line and split into the array
             input = scan.nextLine();
@@ -125,7 +218,6 @@ public class Library {
                 return Code.DATE_CONVERSION_ERROR;
             }
 
-            System.out.println("Parsing book: " + input);
             // Call addBook method to addBook to Library
             addBook(new Book(isbn, title, subject, parsedPageCount, author, parsedDate));
 
@@ -153,7 +245,7 @@ public class Library {
         }
 
         // Parse each line based on shelfCount to create shelves from file
-        System.out.println("Parsing " + shelfCount + " shelves");
+        listener.sectionParsing("shelves", shelfCount);
         for(int i = 0; i < shelfCount; i++) {
             // Read line and split into array
             input = scan.nextLine();
@@ -167,8 +259,6 @@ public class Library {
             testShelf.setSubject(subject);
             testShelf.setShelfNumber(parsedShelfNumber);
 
-            System.out.println("Parsing Shelf: " + input);
-
             // Call addShelf to add to Library
             addShelf(testShelf);
         }
@@ -212,9 +302,9 @@ public class Library {
             bookCount = readerArray[Reader.BOOK_COUNT_];
             bookStart = readerArray[Reader.BOOK_START_];
 
-            // Create a new reader and add to readers List
+            // Create a new reader and add to readers map, the first reader with a card keeps it
             Reader reader = new Reader(Integer.parseInt(cardNumber), name, phone);
-            readers.add(reader);
+            registerReader(reader);
 
             int bookCountInt = Integer.parseInt(bookCount); // The amount of books Reader has
             int check = 0;  // Used to check if counted all readers books to break loop
@@ -229,12 +319,11 @@ public class Library {
                 // increment number of books checked
                 check++;
                 // Use checkOutBook method to check the book out for reader based on isbn
-                if(!books.containsKey(getBookByISBN(isbn))){
-                    System.out.println("ERROR");
+                Book book = findIsbn(isbn);
+                if(book == null){
+                    listener.error(Code.BOOK_NOT_IN_INVENTORY_ERROR, isbn);
                 } else {
-                    checkOutBook(reader, getBookByISBN(isbn));
-                    getBookByISBN(isbn).setDueDate(date);
-                    System.out.println("SUCCESS");
+                    checkOutBook(reader, book, date);
                 }
                 // If we count all books break loop to avoid array error
                 if(check == bookCountInt){
@@ -246,6 +335,254 @@ public class Library {
         return Code.SUCCESS;
     }
 
+    /**
+     * The initMapped method loads the same three section file as init, but memory maps the file
+     * and reads each field in place instead of scanning and splitting every line. It is meant
+     * for large catalog exports, so it skips the per line messages and the full book and shelf
+     * listings that init prints
+     * @param filename the file to parse
+     * @return a Code if successful or not
+     */
+    public Code initMapped(String filename) {
+        return initMapped(filename, false);
+    }
+
+    /**
+     * This initMapped method loads a file through a memory map and can parse the books section
+     * in parallel. When parallelBooks is true the books section is split into line aligned
+     * chunks that are parsed on the common fork/join pool and then merged into the Library
+     * @param filename the file to parse
+     * @param parallelBooks true to parse the books section in parallel
+     * @return a Code if successful or not
+     */
+    public Code initMapped(String filename, boolean parallelBooks) {
+        catalogLock.writeLock().lock();
+        try {
+            return parseMappedFile(filename, parallelBooks);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The parseMappedFile method does the work of initMapped while the caller holds the
+     * write lock
+     * @param filename the file to parse
+     * @param parallelBooks true to parse the books section in parallel
+     * @return a Code if successful or not
+     */
+    private Code parseMappedFile(String filename, boolean parallelBooks) {
+        // Try to map the file and read each section, otherwise catch the error and return Code
+        try (MappedRecordReader reader = new MappedRecordReader(Paths.get(filename))) {
+            // Reading Books
+            if (!reader.nextRecord()) {
+                return Code.LIBRARY_ERROR;
+            }
+            Code code;
+            if (parallelBooks) {
+                code = initBooksParallel(reader.readLineInt(this, Code.UNKNOWN_ERROR), reader);
+            } else {
+                code = initBooks(reader.readLineInt(this, Code.UNKNOWN_ERROR), reader);
+            }
+            listener.sectionParsed("books", code);
+
+            // Reading Shelves
+            if (!reader.nextRecord()) {
+                return Code.LIBRARY_ERROR;
+            }
+            listener.sectionParsed("shelves", initShelves(reader.readLineInt(this, Code.UNKNOWN_ERROR), reader));
+
+            // Reading Readers
+            if (!reader.nextRecord()) {
+                return Code.LIBRARY_ERROR;
+            }
+            listener.sectionParsed("readers", initReader(reader.readLineInt(this, Code.UNKNOWN_ERROR), reader));
+
+        // If the file is missing or can't be mapped, return error
+        } catch (NoSuchFileException e) {
+            listener.error(Code.FILE_NOT_FOUND_ERROR, filename);
+            return Code.FILE_NOT_FOUND_ERROR;
+        } catch (IOException e) {
+            listener.error(Code.LIBRARY_ERROR, e);
+            return Code.LIBRARY_ERROR;
+        }
+        return Code.SUCCESS;
+    }
+
+    /**
+     * This initBooks method reads books from a mapped file, one record per book
+     * @param bookCount the amount of records(books) to read
+     * @param reader the MappedRecordReader positioned before the first book
+     * @return The Code value of result
+     * @throws IOException if the file can't be read
+     */
+    private Code initBooks(int bookCount, MappedRecordReader reader) throws IOException {
+        String isbn, title, subject, author;    // Values read from the record
+        int parsedPageCount;
+        LocalDate parsedDate;
+
+        // If no lines of books return error
+        if(bookCount < 1) {
+            return Code.LIBRARY_ERROR;
+        }
+        listener.sectionParsing("books", bookCount);
+        for(int i = 0; i < bookCount; i++) {
+            if(!reader.nextRecord()) {
+                return Code.BOOK_COUNT_ERROR;
+            }
+            // Fields are read in the same order as Book's final static int variables
+            isbn = reader.readString();
+            title = reader.readString();
+            subject = reader.readString();
+            parsedPageCount = reader.readInt(this, Code.PAGE_COUNT_ERROR);
+            author = reader.readString();
+            parsedDate = reader.readDate(this, Code.DATE_CONVERSION_ERROR);
+
+            // Check for 0 or null the same way initBooks does
+            if (parsedPageCount <= 0) {
+                return Code.PAGE_COUNT_ERROR;
+            }
+            if (parsedDate == null) {
+                return Code.DATE_CONVERSION_ERROR;
+            }
+            addBook(new Book(isbn, title, subject, parsedPageCount, author, parsedDate));
+        }
+        return Code.SUCCESS;
+    }
+
+    /**
+     * The initBooksParallel method reads books from a mapped file on the common fork/join pool.
+     * One pass over the section finds the chunk boundaries, then BookChunkTask parses the
+     * chunks and merges their counts. The books added and the line the reader is left on are
+     * the same as reading the section one line at a time
+     * @param bookCount the amount of records(books) to read
+     * @param reader the MappedRecordReader positioned before the first book
+     * @return The Code value of result
+     * @throws IOException if the file can't be read
+     */
+    private Code initBooksParallel(int bookCount, MappedRecordReader reader) throws IOException {
+        // If no lines of books return error
+        if(bookCount < 1) {
+            return Code.LIBRARY_ERROR;
+        }
+        listener.sectionParsing("books", bookCount);
+        // Size the chunks so every worker gets a few of them
+        int chunkCount = ForkJoinPool.getCommonPoolParallelism() * 4;
+        int chunkLines = Math.max(CHUNK_LINES, bookCount / chunkCount + 1);
+        long[] bounds = new long[bookCount / chunkLines + 2];
+        int chunks = 0;
+        int found = 0;
+        bounds[0] = reader.position();
+        // Skip through the section recording where each chunk ends
+        while (found < bookCount) {
+            int skipped = reader.skipRecords(Math.min(chunkLines, bookCount - found));
+            if (skipped == 0) {
+                break;
+            }
+            found += skipped;
+            bounds[++chunks] = reader.position();
+        }
+        if (chunks == 0) {
+            return Code.BOOK_COUNT_ERROR;
+        }
+
+        // Parse the chunks, then continue after the last line that was read
+        BookChunkTask result;
+        try {
+            result = ForkJoinPool.commonPool().invoke(new BookChunkTask(this, reader,
+                    Arrays.copyOf(bounds, chunks + 1), 0, chunks));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        reader.seek(result.getStop());
+        addBooks(result.getBooks());
+        if (result.getCode() != Code.SUCCESS) {
+            return result.getCode();
+        }
+        return found == bookCount ? Code.SUCCESS : Code.BOOK_COUNT_ERROR;
+    }
+
+    /**
+     * This initShelves method reads shelves from a mapped file, one record per shelf
+     * @param shelfCount the amount of records/shelves to read
+     * @param reader the MappedRecordReader positioned before the first shelf
+     * @return Corresponding code
+     * @throws IOException if the file can't be read
+     */
+    private Code initShelves(int shelfCount, MappedRecordReader reader) throws IOException {
+        // First check that count sent isn't zero
+        if(shelfCount < 1) {
+            return Code.SHELF_COUNT_ERROR;
+        }
+        listener.sectionParsing("shelves", shelfCount);
+        for(int i = 0; i < shelfCount; i++) {
+            if(!reader.nextRecord()) {
+                return Code.SHELF_COUNT_ERROR;
+            }
+            // Fields are read in the same order as Shelf's final static int variables
+            Shelf shelf = new Shelf();
+            shelf.setShelfNumber(reader.readInt(this, Code.SHELF_COUNT_ERROR));
+            shelf.setSubject(reader.readString());
+            addShelf(shelf);
+        }
+
+        // Check that we parsed the correct amount of shelves
+        if(shelves.size() == shelfCount) {
+            return Code.SUCCESS;
+        }else{
+            return Code.SHELF_NUMBER_PARSE_ERROR;
+        }
+    }
+
+    /**
+     * This initReader method reads readers and the books they have checked out from a
+     * mapped file, one record per reader
+     * @param readerCount the amount of records/readers to read
+     * @param reader the MappedRecordReader positioned before the first reader
+     * @return Corresponding code
+     * @throws IOException if the file can't be read
+     */
+    private Code initReader(int readerCount, MappedRecordReader reader) throws IOException {
+        String isbn;
+        LocalDate date;
+
+        // Check that count is greater than 0 before parsing
+        if(readerCount <= 0) {
+            return Code.READER_COUNT_ERROR;
+        }
+        for (int i = 0; i < readerCount; i++) {
+            if(!reader.nextRecord()) {
+                return Code.READER_COUNT_ERROR;
+            }
+            // Fields are read in the same order as Reader's final static int variables
+            int cardNumber = reader.readInt();
+            String name = reader.readString();
+            String phone = reader.readString();
+            Reader newReader = new Reader(cardNumber, name, phone);
+            registerReader(newReader);
+
+            int bookCountInt = reader.readInt();    // The amount of books Reader has
+            int check = 0;  // Used to check if counted all readers books to break loop
+
+            // Read isbn and due date pairs until all the reader's books are counted
+            while (reader.hasMoreFields()) {
+                isbn = reader.readString();
+                date = reader.readDate(this, Code.DATE_CONVERSION_ERROR);
+                check++;
+                Book book = findIsbn(isbn);
+                if(book == null){
+                    listener.error(Code.BOOK_NOT_IN_INVENTORY_ERROR, isbn);
+                } else {
+                    checkOutBook(newReader, book, date);
+                }
+                if(check == bookCountInt){
+                    break;
+                }
+            }
+        }
+        return Code.SUCCESS;
+    }
+
     /**
      * The addBook method adds a book object to the books hashMap in Library to keep track of
      * books registered to the Library and the book count
@@ -253,28 +590,145 @@ public class Library {
      * @return Corresponding code
      */
     public Code addBook(Book newBook) {
-        // Check if book has already been registered
-        // if so increase copy count and print a statement
-        if(books.containsKey(newBook)){
-            int count;
-            count = books.get(newBook) + 1;
-            books.put(newBook, count);
-            System.out.println(count + " copies of " + newBook + " in the stacks");
-        // If book hasn't been registered, add it to books HashMap
-        } else if(!books.containsKey(newBook)) {
-            books.put(newBook, 1);
-            System.out.println(newBook + " added to the stacks.");
+        Code code;
+        catalogLock.writeLock().lock();
+        try {
+            code = addCopy(newBook);
+        } finally {
+            catalogLock.writeLock().unlock();
         }
+        return commitJournal(code);
+    }
+
+    /**
+     * The addCopy method does the work of addBook while the caller holds the write lock
+     * @param newBook the book to add
+     * @return Corresponding code
+     */
+    private Code addCopy(Book newBook) {
+        // Register the book, increasing the copy count if it was already registered
+        newBook = intern(newBook);
+        int count = registerBook(newBook, 1);
+        listener.bookAdded(newBook, count);
 
         // If a shelf exists already with matching subject of book add it to the shelf
-        // Otherwise, return a statement saying no shelf exists yet
-        if(shelves.containsKey(newBook.getSubject())){
-            shelves.get(newBook.getSubject());
-            return Code.SUCCESS;
+        // Otherwise, report that no shelf exists yet
+        Code code = Code.SHELF_EXISTS_ERROR;
+        Shelf shelf = subjects.get(newBook);
+        if(shelf != null){
+            shelf.addBook(newBook);
+            code = Code.SUCCESS;
+        } else {
+            listener.error(Code.SHELF_EXISTS_ERROR, newBook.getSubject());
+        }
+        if (journal != null) {
+            journal.addBook(newBook);
+        }
+        return code;
+    }
+
+    /**
+     * The addBooks method adds many books at once, each with a count of copies. The counts are
+     * merged into the books HashMap and onto any shelf that matches the book's subject, the
+     * same as calling addBook once per copy but without a message per copy
+     * @param newBooks map of books to add and how many copies of each
+     * @return Corresponding code
+     */
+    private Code addBooks(Map<Book, Integer> newBooks) {
+        for (Map.Entry<Book, Integer> entry : newBooks.entrySet()) {
+            Book newBook = entry.getKey();
+            registerBook(newBook, entry.getValue());
+            // If a shelf exists already with matching subject of book add the copies to it
+            Shelf shelf = subjects.get(newBook);
+            if (shelf != null) {
+                shelf.addBook(newBook, entry.getValue());
+            }
+        }
+        return Code.SUCCESS;
+    }
+
+    /**
+     * The registerBook method adds copies of a Book to the books HashMap and keeps the ISBN
+     * index and the copy ledgers up to date. The first Book registered for an ISBN is the one
+     * found by ISBN
+     * @param book the book to add
+     * @param copies how many copies to add
+     * @return the number of copies registered after adding
+     */
+    private int registerBook(Book book, int copies) {
+        // The columns go first, so nothing else has changed if they can't take the book
+        columns.addCopies(book, copies);
+        int count = books.merge(book, copies, Integer::sum);
+        copyCount.add(copies);
+        // A new key is frozen so it can't be changed while the maps hold it
+        if (count == copies) {
+            book.freeze();
+            indexIsbn(book);
+            catalog.add(book);
+            booksBySubject.computeIfAbsent(book.getSubjectKey(), subject -> new ArrayList<>()).add(book);
+            ledgers.put(book, new CopyLedger(copies));
+            searchIndex.add(book);
+        } else {
+            ledgers.get(book).addCopies(copies);
+        }
+        bookCompletions.add(book.getTitle(), copies);
+        bookCompletions.add(book.getAuthor(), copies);
+        return count;
+    }
+
+    /**
+     * The registerReader method adds a Reader to the readers map unless its card number is
+     * taken, and makes its name available for completion
+     * @param reader the Reader to add
+     * @return true if the Reader was added
+     */
+    private boolean registerReader(Reader reader) {
+        if (readers.putIfAbsent(reader.getCardNumber(), reader) != null) {
+            return false;
+        }
+        readersByCard.put(reader.getCardNumber(), reader);
+        readerCompletions.add(reader.getName(), 1);
+        return true;
+    }
+
+    /**
+     * The intern method returns the registered Book that is equal to the one passed, so maps
+     * and lists all share one frozen object per ISBN and most lookups match on identity. The
+     * caller holds the read or write lock
+     * @param book the Book to look for
+     * @return the registered Book, or the Book passed if it isn't registered
+     */
+    private Book intern(Book book) {
+        // The ISBN was packed when the Book was made, so this looks up a number and allocates
+        // nothing
+        long key = book.getIsbnKey();
+        Book registered = key >= 0 ? isbnIndex.get(key) : otherIsbns.get(book.getIsbn());
+        return book.equals(registered) ? registered : book;
+    }
+
+    /**
+     * The indexIsbn method adds a newly registered Book to the ISBN index unless a Book with
+     * the same ISBN is already there. The caller holds the write lock
+     * @param book the registered Book
+     */
+    private void indexIsbn(Book book) {
+        long key = book.getIsbnKey();
+        if (key >= 0) {
+            isbnIndex.putIfAbsent(key, book);
         } else {
-            System.out.println("No shelf for " + newBook.getSubject() + " books");
+            otherIsbns.putIfAbsent(book.getIsbn(), book);
         }
-        return Code.SHELF_EXISTS_ERROR;
+    }
+
+    /**
+     * The findIsbn method returns the registered Book with an ISBN, written any way that packs
+     * to the same number. The caller holds the read or write lock
+     * @param isbn the ISBN to look for
+     * @return the Book, or null if there isn't one
+     */
+    private Book findIsbn(String isbn) {
+        long key = Isbn.pack(isbn);
+        return key >= 0 ? isbnIndex.get(key) : otherIsbns.get(isbn);
     }
 
     /**
@@ -284,20 +738,47 @@ public class Library {
      * @return Corresponding code
      */
     public Code returnBook(Reader reader, Book book) {
-        // First check that reader actually has the book
-        if(!reader.hasBook(book)){
-            System.out.println(reader.getName() + " doesn't have " + book.getTitle() + " checked out");
-            return Code.READER_DOESNT_HAVE_BOOK_ERROR;
-        // If so, return the book using removeBook method
-        } else if (reader.hasBook(book)){
-            System.out.println(reader.getName() + " is returning " + book);
-            reader.removeBook(book);
-            returnBook(book);
-            return Code.SUCCESS;
+        catalogLock.readLock().lock();
+        try {
+            book = intern(book);
+            synchronized (reader) {
+                // First check that reader actually has the book
+                if(!reader.hasBook(book)){
+                    listener.error(Code.READER_DOESNT_HAVE_BOOK_ERROR, book);
+                    return Code.READER_DOESNT_HAVE_BOOK_ERROR;
+                }
+                // If so, return the book using removeBook method
+                if(!reader.removeBook(book).equals(Code.SUCCESS)){
+                    // If any other error return this
+                    listener.error(Code.READER_COULD_NOT_REMOVE_BOOK_ERROR, book);
+                    return Code.READER_COULD_NOT_REMOVE_BOOK_ERROR;
+                }
+                // Put the reader's copy back before it reaches the shelf
+                CopyLedger ledger = ledgers.get(book);
+                if (ledger != null) {
+                    int dueDay = 0;
+                    synchronized (ledger) {
+                        int copy = ledger.find(reader.getCardNumber());
+                        if (copy >= 0) {
+                            dueDay = ledger.getDueDay(copy);
+                            ledger.giveBackCopy(copy);
+                        }
+                    }
+                    overdue.remove(reader.getCardNumber(), book, dueDay);
+                }
+                loanCount.decrement();
+                columns.loaned(book, -1);
+                listener.bookReturned(reader, book);
+                Shelf shelf = subjects.get(book);
+                if (shelf != null) {
+                    shelf.loaned(-1);
+                }
+                shelveReturnedBook(book, reader);
+            }
+        } finally {
+            catalogLock.readLock().unlock();
         }
-        // If any other error return this
-        System.out.println("Could not return " + book);
-        return Code.READER_COULD_NOT_REMOVE_BOOK_ERROR;
+        return commitJournal(Code.SUCCESS);
     }
 
     /**
@@ -306,13 +787,50 @@ public class Library {
      * @return Corresponding Code
      */
     public Code returnBook(Book book) {
+        Code code;
+        catalogLock.readLock().lock();
+        try {
+            code = shelveReturnedBook(intern(book), null);
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+        return commitJournal(code);
+    }
+
+    /**
+     * The shelveReturnedBook method puts a returned Book back on the shelf for its subject and
+     * journals the return. The caller holds the read lock, and the Reader's monitor if a
+     * reader is returning the book
+     * @param book the book to be returned
+     * @param reader the Reader who returned the book, or null if it isn't from a reader
+     * @return Corresponding Code
+     */
+    private Code shelveReturnedBook(Book book, Reader reader) {
+        LibraryJournal journal = this.journal;
         // Check if a shelf exists for the book by subject
-        if(!shelves.containsKey(book.getSubject())){
-            System.out.println("No shelf for " + book);
+        Shelf shelf = subjects.get(book);
+        if(shelf == null){
+            listener.error(Code.SHELF_EXISTS_ERROR, book);
+            // The reader still gave the book back even though there's nowhere to put it
+            if (reader != null && journal != null) {
+                journal.loan(LibraryJournal.RETURN, reader, book);
+            }
             return Code.SHELF_EXISTS_ERROR;
         }
-        // If so call addBook to return book
-        return shelves.get(book.getSubject()).addBook(book);
+        // If so call addBook to return book. When journaling the shelf is held for the same
+        // reason as in lendBook
+        if (journal == null) {
+            return shelf.addBook(book);
+        }
+        synchronized (shelf) {
+            Code code = shelf.addBook(book);
+            if (reader != null) {
+                journal.loan(LibraryJournal.RETURN, reader, book);
+            } else {
+                journal.returnToShelf(book);
+            }
+            return code;
+        }
     }
 
     /**
@@ -334,11 +852,10 @@ public class Library {
         // Attempt to add book to shelf and check if successful
         code = shelf.addBook(book);
         if(code == Code.SUCCESS){
-            System.out.println(book + " added to shelf");
             return Code.SUCCESS;
         }
         // If it could not be added to shelf return error
-        System.out.println("Could not add " + book + " to shelf");
+        listener.error(code, book);
         return code;
     }
 
@@ -347,109 +864,416 @@ public class Library {
      * @return a print statement with all copies of books
      */
     public int listBooks() {
-        int totalCount = 0; // Keep track of total books in library
-        // Iterate through all books registered and display the book and
-        // how many are registered. Add to totalCount
-        for(Book book : books.keySet()){
-            totalCount = totalCount + books.get(book);
-            System.out.println(books.get(book) + " copies of " + book);
+        catalogLock.readLock().lock();
+        try {
+            int totalCount = 0; // Keep track of total books in library
+            // Iterate through all books registered and display the book and
+            // how many are registered. Add to totalCount
+            for(Book book : books.keySet()){
+                totalCount = totalCount + books.get(book);
+                System.out.println(books.get(book) + " copies of " + book);
+            }
+            // Returns the total number of books
+            return totalCount;
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This listBooks method writes one page of registered Books and their counts, in the order
+     * they were registered, one per line. Only the page is held in memory however large the
+     * catalog is, and the lock is only held while the page is written
+     * @param cursor null for the first page, otherwise the cursor returned with the last page
+     * @param pageSize the most Books to write
+     * @param out where to write the page
+     * @return the cursor of the next page, or null if this was the last page
+     * @throws IOException if out can't be written
+     */
+    public String listBooks(String cursor, int pageSize, Appendable out) throws IOException {
+        catalogLock.readLock().lock();
+        try {
+            int start = cursor == null ? 0 : Integer.parseInt(cursorKey(cursor, 'b'));
+            int end = (int) Math.min(catalog.size(), (long) start + pageSize);
+            for (int i = start; i < end; i++) {
+                Book book = catalog.get(i);
+                out.append(Integer.toString(books.get(book))).append(" copies of ")
+                        .append(book.toString()).append("\n");
+            }
+            return end < catalog.size() ? "b" + end : null;
+        } finally {
+            catalogLock.readLock().unlock();
         }
-        // Returns the total number of books
-        return totalCount;
     }
 
     /**
      * The checkOutBook method checks that a book is available in Library and then checks
-     * that book out for a reader if possible
+     * that book out for a reader if possible. The copy is due on the date in the book's
+     * catalog record
      * @param reader the Reader to check out book
      * @param book the book to checkout
      * @return Corresponding code
      */
     public Code checkOutBook(Reader reader, Book book) {
+        return checkOutBook(reader, book, null);
+    }
+
+    /**
+     * This checkOutBook method checks out a book for a reader with its own due date
+     * @param reader the Reader to check out book
+     * @param book the book to checkout
+     * @param dueDate the date the copy is due back, or null for the book's catalog date
+     * @return Corresponding code
+     */
+    public Code checkOutBook(Reader reader, Book book, LocalDate dueDate) {
+        Code code;
+        catalogLock.readLock().lock();
+        try {
+            // Hold the reader so its loan count can't change between the checks and the loan
+            synchronized (reader) {
+                code = lendBook(reader, book, dueDate);
+            }
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+        return commitJournal(code);
+    }
+
+    /**
+     * The lendBook method does the checks and the work of checkOutBook. The caller holds the
+     * read lock and the Reader's monitor
+     * @param reader the Reader to check out book
+     * @param book the book to checkout
+     * @param dueDate the date the copy is due back, or null for the book's catalog date
+     * @return Corresponding code
+     */
+    private Code lendBook(Reader reader, Book book, LocalDate dueDate) {
+        book = intern(book);
+        Shelf shelf = subjects.get(book);
         // If reader isn't registered to Library show error
-        if (!readers.contains(reader)) {
-            System.out.println(reader.getName() + " doesn't have an account here");
+        if (!isRegistered(reader)) {
+            listener.error(Code.READER_NOT_IN_LIBRARY_ERROR, reader);
             return Code.READER_NOT_IN_LIBRARY_ERROR;
         // If reader already has lending limit of books, return error
-        } else if (readers.contains(reader) && reader.getBookCount() == LENDING_LIMIT){
-            System.out.println(reader.getName() + " has reached the lending limit, (" + LENDING_LIMIT + ")");
+        } else if (reader.getBookCount() >= reader.getLendingLimit()){
+            listener.error(Code.BOOK_LIMIT_REACHED_ERROR, reader);
             return Code.BOOK_LIMIT_REACHED_ERROR;
         // If book hasn't been registered to library return error
-        } else if (readers.contains(reader) && !books.containsKey(book)){
-            System.out.println("ERROR: could not find " + book);
+        } else if (!books.containsKey(book)){
+            listener.error(Code.BOOK_NOT_IN_INVENTORY_ERROR, book);
+            return Code.BOOK_NOT_IN_INVENTORY_ERROR;
         // If shelf isn't made to hold book, return error
-        } else if (readers.contains(reader) && !shelves.containsKey(book.getSubject())){
-            System.out.println("no shelf for " + book.getSubject() + "books!");
+        } else if (shelf == null){
+            listener.error(Code.SHELF_EXISTS_ERROR, book.getSubject());
             return Code.SHELF_EXISTS_ERROR;
         // If no copies of book are available, return error
-        } else if (readers.contains(reader) && books.get(book) < 1) {
-            System.out.println("ERROR: no copies of " + book + " remain");
+        } else if (books.get(book) < 1) {
+            listener.error(Code.BOOK_NOT_IN_INVENTORY_ERROR, book);
             return Code.BOOK_NOT_IN_INVENTORY_ERROR;
         }
-        // Try to add a Book to the Readers list of books they have checked out
-        Code code = reader.addBook(book);
-        // If success code returned, then call removeBook and check the book out
-        if(!code.equals(Code.SUCCESS)){
-            System.out.println("Couldn't checkout " + book);
+        // A reader can only hold one copy of a book
+        if (reader.hasBook(book)) {
+            listener.error(Code.BOOK_ALREADY_CHECKED_OUT_ERROR, book);
+            return Code.BOOK_ALREADY_CHECKED_OUT_ERROR;
         }
-        code = shelves.get(book.getSubject()).removeBook(book);
-        if (code.equals(Code.SUCCESS)){
-            System.out.println(book + " checked out successfully");
+        // Book a registered copy in the ledger first. A book returned without a reader can put
+        // more copies on a shelf than were registered, but only registered copies are lent
+        if (dueDate == null) {
+            dueDate = book.getDueDate();
         }
-        return code;
+        int dueDay = CopyLedger.toDueDay(dueDate);
+        CopyLedger ledger = ledgers.get(book);
+        int copy = ledger.lend(reader.getCardNumber(), dueDay);
+        if (copy < 0) {
+            listener.error(Code.BOOK_NOT_IN_INVENTORY_ERROR, book);
+            return Code.BOOK_NOT_IN_INVENTORY_ERROR;
+        }
+        // Take a copy off the shelf and only then give it to the reader. The shelf's counter
+        // is atomic, but when journaling the shelf is held so the journal's records are in
+        // the same order as the shelf's changes
+        LibraryJournal journal = this.journal;
+        Code code;
+        if (journal == null) {
+            code = shelf.removeBook(book);
+        } else {
+            synchronized (shelf) {
+                code = shelf.removeBook(book);
+                if (code.equals(Code.SUCCESS)) {
+                    journal.checkOut(reader, book, dueDate);
+                }
+            }
+        }
+        if (!code.equals(Code.SUCCESS)) {
+            ledger.giveBackCopy(copy);
+            return code;
+        }
+        reader.addBook(book);
+        loanCount.increment();
+        shelf.loaned(1);
+        columns.loaned(book, 1);
+        overdue.add(reader.getCardNumber(), book, dueDay);
+        listener.bookCheckedOut(reader, book);
+        return Code.SUCCESS;
     }
 
     /**
-     * The getBookByISBN method checks if book has been registered based by isbn number
-     * and returns book if so
-     * @param isbn the ISBN to check for a book
-     * @return the Book if found, or null if not
+     * The getDueDate method returns when a Reader's copy of a book is due back
+     * @param reader the Reader to check
+     * @param book the book checked out
+     * @return the due date, or null if the Reader doesn't have a copy of the book or the copy
+     * has no due date
      */
-    public Book getBookByISBN(String isbn) {
-        // Iterate though the books registered, return the book if found by ISBN
-        for(Book book : books.keySet()){
-            if(book.getIsbn().equals(isbn)){
-                return book;
+    public LocalDate getDueDate(Reader reader, Book book) {
+        catalogLock.readLock().lock();
+        try {
+            CopyLedger ledger = ledgers.get(intern(book));
+            if (ledger == null) {
+                return null;
+            }
+            synchronized (ledger) {
+                int copy = ledger.find(reader.getCardNumber());
+                return copy < 0 ? null : CopyLedger.toDueDate(ledger.getDueDay(copy));
             }
+        } finally {
+            catalogLock.readLock().unlock();
         }
-        // If not found, return null
-        System.out.println("ERROR: Could not find a book with isbn: " + isbn);
-        return null;
     }
 
     /**
-     * The listShelves method takes a boolean and either calls a listBooks method
-     * to display or if boolean is false, it will print the Shelves registered using
-     * toString
-     * @param showbooks the boolean to determine what to print
-     * @return Success Code after printing
+     * The searchBooks method finds registered Books by words in their title or author, best
+     * match first. Words are matched whole and without regard to case
+     * @param query the words to look for
+     * @param matchAll true if a Book must have every word, false if any word is enough
+     * @param limit the most Books to return
+     * @return the matching Books
      */
-    public Code listShelves(boolean showbooks) {
-        if(showbooks){
-            for(String s : shelves.keySet()){
-                System.out.println(shelves.get(s).listBooks());
-                System.out.println();
-            }
-        } else {
-            for(String s : shelves.keySet()) {
-                System.out.println(shelves.get(s).toString());
-            }
+    public List<Book> searchBooks(String query, boolean matchAll, int limit) {
+        catalogLock.readLock().lock();
+        try {
+            return searchIndex.search(query, matchAll, limit);
+        } finally {
+            catalogLock.readLock().unlock();
         }
-        return Code.SUCCESS;
     }
 
     /**
-     * The addShelf method adds a Shelf based on subject
-     * @param shelfSubject the subject to add shelf with
-     * @return Corresponding code
+     * The completeBooks method returns the titles and authors that start with what has been
+     * typed, the ones with the most copies first
+     * @param prefix what has been typed so far
+     * @param count the most completions to return
+     * @return the completions
+     */
+    public List<String> completeBooks(String prefix, int count) {
+        catalogLock.readLock().lock();
+        try {
+            return bookCompletions.complete(prefix, count);
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The completeReaders method returns the names of registered readers that start with what
+     * has been typed
+     * @param prefix what has been typed so far
+     * @param count the most completions to return
+     * @return the completions
+     */
+    public List<String> completeReaders(String prefix, int count) {
+        catalogLock.readLock().lock();
+        try {
+            return readerCompletions.complete(prefix, count);
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The getLoansDueBy method returns every loan due on or before a date, earliest first. It
+     * only looks at the loans it returns, so it is cheap to run often
+     * @param date the last due date to include
+     * @return the loans
+     */
+    public List<Loan> getLoansDueBy(LocalDate date) {
+        catalogLock.readLock().lock();
+        try {
+            return overdue.dueBy((int) date.toEpochDay());
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The getNextDue method returns the next loans to come due, earliest first
+     * @param count the most loans to return
+     * @return the loans
+     */
+    public List<Loan> getNextDue(int count) {
+        catalogLock.readLock().lock();
+        try {
+            return overdue.nextDue(count);
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The getCopyLedger method returns the loan state of every copy of a registered book
+     * @param book the book to look up
+     * @return the CopyLedger, or null if the book isn't registered
+     */
+    public CopyLedger getCopyLedger(Book book) {
+        catalogLock.readLock().lock();
+        try {
+            return ledgers.get(intern(book));
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The getBookByISBN method checks if book has been registered based by isbn number
+     * and returns book if so
+     * @param isbn the ISBN to check for a book
+     * @return the Book if found, or null if not
+     */
+    public Book getBookByISBN(String isbn) {
+        catalogLock.readLock().lock();
+        try {
+            // Look the book up in the ISBN index
+            Book book = findIsbn(isbn);
+            if(book != null){
+                return book;
+            }
+            // If not found, return null
+            listener.error(Code.BOOK_NOT_IN_INVENTORY_ERROR, isbn);
+            return null;
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The findBookByISBN method looks up a registered book by ISBN without printing anything
+     * when it isn't found
+     * @param isbn the ISBN to check for a book
+     * @return the Book, or an empty Optional if not found
+     */
+    public Optional<Book> findBookByISBN(String isbn) {
+        catalogLock.readLock().lock();
+        try {
+            return Optional.ofNullable(findIsbn(isbn));
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The listShelves method takes a boolean and either calls a listBooks method
+     * to display or if boolean is false, it will print the Shelves registered using
+     * toString
+     * @param showbooks the boolean to determine what to print
+     * @return Success Code after printing
+     */
+    public Code listShelves(boolean showbooks) {
+        catalogLock.readLock().lock();
+        try {
+            if(showbooks){
+                // Write each shelf straight out instead of building its listing first
+                for(Shelf shelf : shelves.values()){
+                    try {
+                        shelf.listBooks(System.out);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    System.out.println();
+                    System.out.println();
+                }
+            } else {
+                for(String s : shelves.keySet()) {
+                    System.out.println(shelves.get(s).toString());
+                }
+            }
+            return Code.SUCCESS;
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This listShelves method writes one page of Shelves in order of subject, with the same
+     * lines as listShelves
+     * @param showbooks true to list each Shelf's books as well
+     * @param cursor null for the first page, otherwise the cursor returned with the last page
+     * @param pageSize the most Shelves to write
+     * @param out where to write the page
+     * @return the cursor of the next page, or null if this was the last page
+     * @throws IOException if out can't be written
+     */
+    public String listShelves(boolean showbooks, String cursor, int pageSize, Appendable out) throws IOException {
+        catalogLock.readLock().lock();
+        try {
+            // There are few shelves, so they are put in order for each page
+            NavigableMap<String, Shelf> sorted = new TreeMap<>(shelves);
+            if (cursor != null) {
+                sorted = sorted.tailMap(cursorKey(cursor, 's'), false);
+            }
+            String last = null;
+            int written = 0;
+            for (Map.Entry<String, Shelf> entry : sorted.entrySet()) {
+                Shelf shelf = entry.getValue();
+                if (written == pageSize) {
+                    return "s" + last;
+                }
+                if (showbooks) {
+                    shelf.listBooks(out);
+                    out.append("\n\n");
+                } else {
+                    out.append(shelf.toString()).append("\n");
+                }
+                last = entry.getKey();
+                written++;
+            }
+            return null;
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The addShelf method adds a Shelf based on subject
+     * @param shelfSubject the subject to add shelf with
+     * @return Corresponding code
      */
     public Code addShelf(String shelfSubject) {
-        // Create the shelf and set number and subject
+        // Create the shelf and set subject
         Shelf newShelf = new Shelf();
-        newShelf.setShelfNumber(shelves.size() + 1);
         newShelf.setSubject(shelfSubject);
-        // Use addShelf method that accepts Shelf object to add shelf and return code
-        return addShelf(newShelf);
+        Code code;
+        catalogLock.writeLock().lock();
+        try {
+            // Number the shelf under the same lock it is placed under, so two new shelves
+            // can't be given the same number
+            newShelf.setShelfNumber(nextShelfNumber());
+            code = placeShelf(newShelf);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        return commitJournal(code);
+    }
+
+    /**
+     * The nextShelfNumber method returns one more than the highest shelf number, so a shelf
+     * number is never given out twice even after shelves are merged. The caller holds the
+     * write lock until the shelf with the number is placed
+     * @return the shelf number
+     */
+    private int nextShelfNumber() {
+        int highest = 0;
+        for (Shelf shelf : shelves.values()) {
+            highest = Math.max(highest, shelf.getShelfNumber());
+        }
+        return highest + 1;
     }
 
     /**
@@ -458,26 +1282,128 @@ public class Library {
      * @return the corresponding Code
      */
     public Code addShelf(Shelf shelf) {
-        // If the shelf has already been added to Library shelves HashMap
-        // print a statement and return error
-        if(shelves.containsValue(shelf)){
-            System.out.println("Error: Shelf already exists " + shelf);
+        Code code;
+        catalogLock.writeLock().lock();
+        try {
+            code = placeShelf(shelf);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        return commitJournal(code);
+    }
+
+    /**
+     * The placeShelf method does the work of addShelf while the caller holds the write lock
+     * @param shelf the Shelf to add
+     * @return the corresponding Code
+     */
+    private Code placeShelf(Shelf shelf) {
+        // If the shelf's subject already has a shelf, in any spelling or through an alias,
+        // report it and return error, since both shelves would be stocked with the same copies
+        String key = SubjectIndex.normalize(shelf.getSubject());
+        if(subjects.get(shelf.getSubject()) != null){
+            listener.error(Code.SHELF_EXISTS_ERROR, shelf);
             return Code.SHELF_EXISTS_ERROR;
         }
+        // A subject that is an alias of another is found under the other, so a shelf of its
+        // own would never be found
+        if(!subjects.resolve(shelf.getSubject()).equals(key)){
+            listener.error(Code.SHELF_SUBJECT_MISMATCH_ERROR, shelf);
+            return Code.SHELF_SUBJECT_MISMATCH_ERROR;
+        }
         // Add shelf to Map
-        shelves.put(shelf.getSubject(), shelf);
-        // Check all books registered and check if subject matches the shelf
-        // If so add it to the shelf
-        for(Book book : books.keySet()) {
-            if(book.getSubject().equals(shelf.getSubject())){
-                for(int i = 0; i < books.get(book); i++) {
-                    shelf.addBook(book);
-                }
+        shelf.setListener(listener);
+        shelves.put(key, shelf);
+        subjects.add(shelf);
+        shelf.setSubjects(subjects);
+        shelf.setShelvedCount(shelvedCount);
+        listener.shelfAdded(shelf);
+        // Put every registered copy of the shelf's subject, and of subjects that are
+        // aliases of it, on the shelf in one go, looking only at the books of those subjects
+        HashMap<Book, Integer> counts = new HashMap<>();
+        for (String subject : subjects.keysFor(key)) {
+            for (Book book : booksBySubject.getOrDefault(subject, List.of())) {
+                counts.put(book, books.get(book));
             }
         }
+        if (!counts.isEmpty()) {
+            shelf.addBooks(counts);
+        }
+        if (journal != null) {
+            journal.addShelf(shelf);
+        }
+        return Code.SUCCESS;
+    }
+
+    /**
+     * The addSubjectAlias method makes a subject find the shelf of another subject, for
+     * sources that call the same subject by different names
+     * @param alias the other name for the subject
+     * @param subject the subject it stands for
+     * @return Corresponding code
+     */
+    public Code addSubjectAlias(String alias, String subject) {
+        Code code;
+        catalogLock.writeLock().lock();
+        try {
+            code = aliasSubject(alias, subject);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        return commitJournal(code);
+    }
+
+    /**
+     * The aliasSubject method does the work of addSubjectAlias while the caller holds the write lock
+     * @param alias the other name for the subject
+     * @param subject the subject it stands for
+     * @return Corresponding code
+     */
+    private Code aliasSubject(String alias, String subject) {
+        // A shelf of the alias's own would no longer be found, so its copies move to the
+        // subject's shelf. Without a shelf to move them to the alias is refused
+        Shelf target = subjects.get(subject);
+        Shelf merged = shelves.get(SubjectIndex.normalize(alias));
+        if (merged == target) {
+            merged = null;
+        } else if (merged != null && target == null) {
+            listener.error(Code.SHELF_EXISTS_ERROR, subject);
+            return Code.SHELF_EXISTS_ERROR;
+        }
+        subjects.addAlias(alias, subject);
+        if (merged != null) {
+            mergeShelf(merged, target);
+        }
+        if (journal != null) {
+            journal.addSubjectAlias(alias, subject);
+        }
         return Code.SUCCESS;
     }
 
+    /**
+     * The mergeShelf method moves every copy on a shelf, and its count of copies on loan, to
+     * another shelf and takes the first shelf out of the Library. The caller holds the write
+     * lock and has already made the first shelf's subject an alias of the other's
+     * @param from the Shelf to empty and remove
+     * @param to the Shelf that takes its copies
+     */
+    private void mergeShelf(Shelf from, Shelf to) {
+        HashMap<Book, Integer> counts = from.getBooks();
+        counts.values().removeIf(count -> count == 0);
+        int loaned = from.getLoanCount();
+        shelves.remove(SubjectIndex.normalize(from.getSubject()));
+        subjects.remove(from);
+        // Emptied while still counted in the Library's total, which the other shelf adds back
+        from.setBooks(new HashMap<>());
+        from.loaned(-loaned);
+        from.setShelvedCount(null);
+        from.setSubjects(null);
+        if (!counts.isEmpty()) {
+            to.addBooks(counts);
+        }
+        to.loaned(loaned);
+    }
+
     /**
      * The getShelf method returns a Shelf based on the integer associated with the
      * Shelf number
@@ -485,16 +1411,18 @@ public class Library {
      * @return the Shelf if found, otherwise null
      */
     public Shelf getShelf(Integer shelfNumber) {
-        // Check each shelf in shelves
-        for(String s : shelves.keySet()) {
-            // If shelf number matches integer searching return the shelf
-            if(shelves.get(s).getShelfNumber() == shelfNumber){
-                return shelves.get(s);
+        catalogLock.readLock().lock();
+        try {
+            // Look the shelf up by number in the subject index
+            Shelf shelf = subjects.get(shelfNumber.intValue());
+            // If no shelf number matches, return null
+            if(shelf == null){
+                listener.error(Code.SHELF_EXISTS_ERROR, shelfNumber);
             }
+            return shelf;
+        } finally {
+            catalogLock.readLock().unlock();
         }
-        // If no shelf number matches, return null
-        System.out.println("No shelf number " + shelfNumber + " found");
-        return null;
     }
 
     /**
@@ -503,17 +1431,19 @@ public class Library {
      * @return the shelf if subject matches
      */
     public Shelf getShelf(String subject) {
-        // Iterate through the shelves registered
-        for(String s : shelves.keySet()) {
-            // If the registered shelf matches the subject passed in parameter
-            // return that shelf
-            if(shelves.get(s).getSubject().equals(subject)){
-                return shelves.get(s);
+        catalogLock.readLock().lock();
+        try {
+            // Look the shelf up by its normal subject, so case, punctuation and aliases
+            // don't matter
+            Shelf shelf = subjects.get(subject);
+            // Otherwise, return null
+            if(shelf == null){
+                listener.error(Code.SHELF_EXISTS_ERROR, subject);
             }
+            return shelf;
+        } finally {
+            catalogLock.readLock().unlock();
         }
-        // Otherwise, return null
-        System.out.println("No shelf for " + subject + " books");
-        return null;
     }
 
     /**
@@ -522,12 +1452,17 @@ public class Library {
      * @return total count of readers
      */
     public int listReaders() {
-        // Iterate through each reader registered and print their corresponding toString
-        for(Reader reader : readers) {
-            System.out.println(reader);
+        catalogLock.readLock().lock();
+        try {
+            // Iterate through each reader registered and print their corresponding toString
+            for(Reader reader : readers.values()) {
+                System.out.println(reader);
+            }
+            // Return reader count
+            return readers.size();
+        } finally {
+            catalogLock.readLock().unlock();
         }
-        // Return reader count
-        return readers.size();
     }
 
     /**
@@ -537,22 +1472,73 @@ public class Library {
      * @return the total amount of readers
      */
     public int listReaders(boolean showBooks) {
-        // If true is passed print a custom statement for each reader
-        if(showBooks){
-            for(Reader reader : readers) {
-                System.out.println(reader.getName() + "(#" + reader.getCardNumber() +
-                        ") has the following books:");
-                System.out.println(reader.getBooks());
+        catalogLock.readLock().lock();
+        try {
+            // If true is passed print a custom statement for each reader
+            if(showBooks){
+                for(Reader reader : readers.values()) {
+                    System.out.println(reader.getName() + "(#" + reader.getCardNumber() +
+                            ") has the following books:");
+                    System.out.println(reader.getBooks());
+                }
+                // Return reader count
+                return readers.size();
+            }
+            // If false is passed, print each reader's toString
+            for(Reader reader : readers.values()) {
+                System.out.println(reader.toString());
             }
             // Return reader count
             return readers.size();
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This listReaders method writes one page of registered Readers in order of card number,
+     * one per line
+     * @param cursor null for the first page, otherwise the cursor returned with the last page
+     * @param pageSize the most Readers to write
+     * @param out where to write the page
+     * @return the cursor of the next page, or null if this was the last page
+     * @throws IOException if out can't be written
+     */
+    public String listReaders(String cursor, int pageSize, Appendable out) throws IOException {
+        catalogLock.readLock().lock();
+        try {
+            NavigableMap<Integer, Reader> remaining = readersByCard;
+            if (cursor != null) {
+                remaining = readersByCard.tailMap(Integer.parseInt(cursorKey(cursor, 'r')), false);
+            }
+            int last = 0;
+            int written = 0;
+            for (Reader reader : remaining.values()) {
+                if (written == pageSize) {
+                    return "r" + last;
+                }
+                out.append(reader.toString()).append("\n");
+                last = reader.getCardNumber();
+                written++;
+            }
+            return null;
+        } finally {
+            catalogLock.readLock().unlock();
         }
-        // If false is passed, print each reader's toString
-        for(Reader reader : readers) {
-            System.out.println(reader.toString());
+    }
+
+    /**
+     * The cursorKey method checks that a cursor came from the listing it is passed back to
+     * and returns the position it holds
+     * @param cursor the cursor
+     * @param kind the letter the listing starts its cursors with
+     * @return the position after the kind letter
+     */
+    private static String cursorKey(String cursor, char kind) {
+        if (cursor.isEmpty() || cursor.charAt(0) != kind) {
+            throw new IllegalArgumentException("Not a cursor of this listing: " + cursor);
         }
-        // Return reader count
-        return readers.size();
+        return cursor.substring(1);
     }
 
     /**
@@ -562,17 +1548,29 @@ public class Library {
      * @return Reader if card number found
      */
     public Reader getReaderByCard(int cardNumber) {
-        // Iterate through each registered Reader
-        for(Reader reader : readers) {
-            // If card number passed matches a Reader's card number return the reader
-            if(reader.getCardNumber() == cardNumber){
-                System.out.println("Returning Reader " + reader);
+        catalogLock.readLock().lock();
+        try {
+            // Look the card number up in the readers map and return the reader if found
+            Reader reader = readers.get(cardNumber);
+            if(reader != null){
                 return reader;
             }
+            // If no card number matches, return null
+            listener.error(Code.READER_NOT_IN_LIBRARY_ERROR, cardNumber);
+            return null;
+        } finally {
+            catalogLock.readLock().unlock();
         }
-        // If no card number matches, return null
-        System.out.println("Could not find a reader with card#" + cardNumber);
-        return null;
+    }
+
+    /**
+     * The findReaderByCard method looks up a registered Reader by card number without printing
+     * anything
+     * @param cardNumber the card number of a possible reader
+     * @return the Reader, or an empty Optional if not found
+     */
+    public Optional<Reader> findReaderByCard(int cardNumber) {
+        return Optional.ofNullable(findReader(cardNumber));
     }
 
     /**
@@ -582,29 +1580,73 @@ public class Library {
      * @return Corresponding Code
      */
     public Code addReader(Reader reader) {
+        Code code;
+        catalogLock.writeLock().lock();
+        try {
+            code = enrollReader(reader);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        return commitJournal(code);
+    }
+
+    /**
+     * The enrollReader method does the work of addReader while the caller holds the write lock
+     * @param reader the Reader to add
+     * @return Corresponding Code
+     */
+    private Code enrollReader(Reader reader) {
         // If reader already registered return error
-        if (readers.contains(reader)){
-            System.out.println(reader.getName() + " already has an account!");
+        Reader value = readers.get(reader.getCardNumber());
+        if (reader.equals(value)){
+            listener.error(Code.READER_ALREADY_EXISTS_ERROR, reader);
             return Code.READER_ALREADY_EXISTS_ERROR;
         }
-        // Check registered Readers card numbers, return error if matches the reader
-        // card number that trying to add
-        for (Reader value : readers) {
-            if (value.getCardNumber() == reader.getCardNumber()) {
-                System.out.println(value.getName() + " and " + reader.getName() +
-                        " have the same card number!");
-                return Code.READER_CARD_NUMBER_ERROR;
-            }
+        // Return error if another registered Reader has the card number that trying to add
+        if (value != null) {
+            listener.error(Code.READER_CARD_NUMBER_ERROR, reader);
+            return Code.READER_CARD_NUMBER_ERROR;
         }
         // If checks passed add the reader and check the libraryCard number
-        readers.add(reader);
-        System.out.println(reader.getName() + " added to the library!");
-        if (reader.getCardNumber() > libraryCard){
-            libraryCard = reader.getCardNumber();
+        registerReader(reader);
+        listener.readerAdded(reader);
+        libraryCard.accumulateAndGet(reader.getCardNumber(), Math::max);
+        if (journal != null) {
+            journal.addReader(reader);
+            if (reader.getLendingLimit() != LENDING_LIMIT) {
+                journal.lendingLimit(reader);
+            }
         }
         return Code.SUCCESS;
     }
 
+    /**
+     * The setLendingLimit method changes the most books a registered Reader can have checked
+     * out at once. Books already checked out are kept if the limit drops below them
+     * @param reader the Reader to change
+     * @param lendingLimit the new lending limit
+     * @return Corresponding code
+     */
+    public Code setLendingLimit(Reader reader, int lendingLimit) {
+        catalogLock.readLock().lock();
+        try {
+            if (!isRegistered(reader)) {
+                listener.error(Code.READER_NOT_IN_LIBRARY_ERROR, reader);
+                return Code.READER_NOT_IN_LIBRARY_ERROR;
+            }
+            synchronized (reader) {
+                reader.setLendingLimit(lendingLimit);
+                LibraryJournal journal = this.journal;
+                if (journal != null) {
+                    journal.lendingLimit(reader);
+                }
+            }
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+        return commitJournal(Code.SUCCESS);
+    }
+
     /**
      * The removeReader method removes a reader from the Library as long as they have been
      * registered and do not have any books checked out
@@ -612,19 +1654,42 @@ public class Library {
      * @return Corresponding Code
      */
     public Code removeReader(Reader reader) {
+        Code code;
+        catalogLock.writeLock().lock();
+        try {
+            code = dropReader(reader);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        return commitJournal(code);
+    }
+
+    /**
+     * The dropReader method does the work of removeReader while the caller holds the write lock
+     * @param reader the Reader to remove
+     * @return Corresponding Code
+     */
+    private Code dropReader(Reader reader) {
         // Check that the registered reader doesn't have books checked out, if so
         // return error
-        if(readers.contains(reader) && reader.getBookCount() > 0){
-            System.out.println(reader.getName() + " must return all books!");
+        boolean registered = isRegistered(reader);
+        if(registered && reader.getBookCount() > 0){
+            listener.error(Code.READER_STILL_HAS_BOOKS_ERROR, reader);
             return Code.READER_STILL_HAS_BOOKS_ERROR;
         }
         // If reader not registered, return error
-        if(!readers.contains(reader)){
-            System.out.println(reader.getName() + " is not part of this Library");
+        if(!registered){
+            listener.error(Code.READER_NOT_IN_LIBRARY_ERROR, reader);
             return Code.READER_NOT_IN_LIBRARY_ERROR;
         }
         // Remove reader and return success code
-        readers.remove(reader);
+        readers.remove(reader.getCardNumber());
+        readersByCard.remove(reader.getCardNumber());
+        readerCompletions.add(reader.getName(), -1);
+        listener.readerRemoved(reader);
+        if (journal != null) {
+            journal.removeReader(reader);
+        }
         return Code.SUCCESS;
     }
 
@@ -644,16 +1709,16 @@ public class Library {
             returnCount = Integer.parseInt(recordCountString);
         } catch (NumberFormatException e) {
             if(code == Code.PAGE_COUNT_ERROR){
-                System.out.println("Error: Could not parse page count");
+                listener.error(Code.PAGE_COUNT_ERROR, recordCountString);
                 return Code.PAGE_COUNT_ERROR.getCode();
             } else if(code == Code.BOOK_COUNT_ERROR) {
-                System.out.println("Error: Could not read number of books");
+                listener.error(Code.BOOK_COUNT_ERROR, recordCountString);
                 return Code.BOOK_COUNT_ERROR.getCode();
             } else if(code == Code.DATE_CONVERSION_ERROR) {
-                System.out.println("Error: Could not parse date component");
+                listener.error(Code.DATE_CONVERSION_ERROR, recordCountString);
                 return Code.DATE_CONVERSION_ERROR.getCode();
             } else {
-                System.out.println("Error: Unknown conversion error");
+                listener.error(Code.UNKNOWN_ERROR, recordCountString);
                 return Code.UNKNOWN_ERROR.getCode();
             }
         }
@@ -685,24 +1750,21 @@ public class Library {
                 year = dateArray[0];
                 month = dateArray[1];
                 day = dateArray[2];
-                // Check year, month, and date are greater than 0 or return default date
+                // Check year, month, and date are greater than 0 or report the error
+                // and return default date
                 if(convertInt(year, errorCode) < 0){
-                    System.out.println("Error converting date: Year " + dateArray[0]);
-                    System.out.println("Using default date (01-jan-1970)");
+                    listener.error(errorCode, date);
                     return LocalDate.parse(defaultDate, formatter);
                 } else if (convertInt(month, errorCode) < 0) {
-                    System.out.println("Error converting date: Month " + dateArray[1]);
-                    System.out.println("Using default date (01-jan-1970)");
+                    listener.error(errorCode, date);
                     return LocalDate.parse(defaultDate, formatter);
                 } else if (convertInt(day, errorCode) < 0) {
-                    System.out.println("Error converting date: Day " + dateArray[2]);
-                    System.out.println("Using default date (01-jan-1970)");
+                    listener.error(errorCode, date);
                     return LocalDate.parse(defaultDate, formatter);
                 }
             // If problem with the array parsing, use default date
             } catch (ArrayIndexOutOfBoundsException e) {
-                System.out.println("ERROR: date conversion error, could not parse " + date);
-                System.out.println("Using default date (01-jan-1970)");
+                listener.error(errorCode, date);
                 return LocalDate.parse(defaultDate, formatter);
             }
         }
@@ -710,12 +1772,516 @@ public class Library {
         return LocalDate.parse(year + month + day, formatter2);
     }
 
+    /**
+     * The saveSnapshot method writes the Library's books, shelves and readers to a binary
+     * snapshot file that loadSnapshot can read back much faster than init can parse a csv
+     * @param path the snapshot file to write
+     * @return Corresponding Code
+     */
+    public Code saveSnapshot(Path path) {
+        catalogLock.writeLock().lock();
+        try {
+            return LibrarySnapshot.write(this, path);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The loadSnapshot method replaces the Library's books, shelves and readers with the ones
+     * saved in a snapshot file. The Library is left as it was if the snapshot can't be read
+     * @param path the snapshot file to read
+     * @return Corresponding Code
+     */
+    public Code loadSnapshot(Path path) {
+        catalogLock.writeLock().lock();
+        try {
+            return LibrarySnapshot.read(this, path);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The restore method swaps in books, shelves and readers that were loaded elsewhere
+     * @param books map of Books and their count, iterating in the order they were registered
+     * @param ledgers the loan state of the copies of every Book in books
+     * @param shelves map of shelves by normal subject
+     * @param aliases normal subject aliases and the normal subjects they stand for
+     * @param readers the readers, in the order they were added
+     * @param libraryCard the highest library card number handed out
+     * @param generation the generation of the snapshot
+     */
+    void restore(HashMap<Book, Integer> books, HashMap<Book, CopyLedger> ledgers,
+                 HashMap<String, Shelf> shelves, Map<String, String> aliases, List<Reader> readers,
+                 int libraryCard, long generation) {
+        this.books = books;
+        this.ledgers = ledgers;
+        this.isbnIndex = new LongMap<>(books.size());
+        this.otherIsbns = new HashMap<>();
+        this.catalog = new ArrayList<>(books.size());
+        this.booksBySubject = new HashMap<>();
+        this.columns = new CatalogColumns();
+        copyCount.reset();
+        loanCount.reset();
+        shelvedCount.reset();
+        this.searchIndex = new SearchIndex();
+        this.bookCompletions = new PrefixIndex();
+        for (Map.Entry<Book, Integer> entry : books.entrySet()) {
+            Book book = entry.getKey();
+            book.freeze();
+            indexIsbn(book);
+            catalog.add(book);
+            booksBySubject.computeIfAbsent(book.getSubjectKey(), subject -> new ArrayList<>()).add(book);
+            searchIndex.add(book);
+            bookCompletions.add(book.getTitle(), entry.getValue());
+            bookCompletions.add(book.getAuthor(), entry.getValue());
+            columns.addCopies(book, entry.getValue());
+            copyCount.add(entry.getValue());
+        }
+        this.shelves = shelves;
+        this.subjects = new SubjectIndex();
+        for (Map.Entry<String, String> alias : aliases.entrySet()) {
+            subjects.addAlias(alias.getKey(), alias.getValue());
+        }
+        for (Shelf shelf : shelves.values()) {
+            shelf.setListener(listener);
+            subjects.add(shelf);
+            shelf.setSubjects(subjects);
+            shelf.setShelvedCount(shelvedCount);
+        }
+        this.readers = new IntMap<>(readers.size());
+        this.readersByCard = new TreeMap<>();
+        this.overdue = new OverdueIndex();
+        this.readerCompletions = new PrefixIndex();
+        for (Reader reader : readers) {
+            registerReader(reader);
+            loanCount.add(reader.getBookCount());
+            // Index the loans the ledgers were rebuilt with
+            for (Book book : reader.getBooks()) {
+                columns.loaned(book, 1);
+                Shelf shelf = subjects.get(book);
+                if (shelf != null) {
+                    shelf.loaned(1);
+                }
+                CopyLedger ledger = ledgers.get(book);
+                int copy = ledger == null ? -1 : ledger.find(reader.getCardNumber());
+                if (copy >= 0) {
+                    overdue.add(reader.getCardNumber(), book, ledger.getDueDay(copy));
+                }
+            }
+        }
+        this.generation = generation;
+        Library.libraryCard.accumulateAndGet(libraryCard, Math::max);
+    }
+
+    /**
+     * The openJournal method starts journaling every change to the Library so it can be
+     * rebuilt after a crash. If the snapshot exists it is loaded and the journal is replayed on
+     * top of it. Otherwise the Library as it is now (for example straight after init) is saved
+     * as the first snapshot and the journal starts empty. After that the journal is folded into
+     * a new snapshot every time it reaches the compaction limit
+     * @param snapshotPath the snapshot file the journal builds on
+     * @param journalPath the journal file
+     * @return Corresponding Code
+     */
+    public Code openJournal(Path snapshotPath, Path journalPath) {
+        catalogLock.writeLock().lock();
+        try {
+            if (journal != null) {
+                listener.error(Code.JOURNAL_ERROR, journalPath);
+                return Code.JOURNAL_ERROR;
+            }
+            this.snapshotPath = snapshotPath;
+            try {
+                if (Files.exists(snapshotPath)) {
+                    Code code = loadSnapshot(snapshotPath);
+                    if (code != Code.SUCCESS) {
+                        return code;
+                    }
+                } else {
+                    // Without its snapshot an old journal can't be replayed, so start over
+                    Files.deleteIfExists(journalPath);
+                    generation++;
+                    Code code = saveSnapshot(snapshotPath);
+                    if (code != Code.SUCCESS) {
+                        return code;
+                    }
+                }
+                // Replay before attaching the journal so the replayed changes aren't written again
+                LibraryJournal opened = new LibraryJournal(journalPath, generation, this);
+                int replayed = opened.replay();
+                journal = opened;
+                listener.journalReplayed(replayed);
+            } catch (IOException e) {
+                listener.error(Code.JOURNAL_ERROR, e);
+                return Code.JOURNAL_ERROR;
+            }
+            compactJournal();
+            return Code.SUCCESS;
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The checkpoint method saves the Library to a new snapshot and empties the journal. If
+     * the process dies between the two steps the old journal is ignored on the next start
+     * because it belongs to an older generation
+     * @return Corresponding Code
+     */
+    public Code checkpoint() {
+        catalogLock.writeLock().lock();
+        try {
+            if (journal == null) {
+                return Code.JOURNAL_ERROR;
+            }
+            generation++;
+            Code code = saveSnapshot(snapshotPath);
+            if (code != Code.SUCCESS) {
+                generation--;
+                return code;
+            }
+            return journal.reset(generation);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The syncJournal method waits until every change so far is safely on disk. Each change
+     * already waits for its own record before it returns, so this is only needed to wait for
+     * changes made by other threads
+     * @return Corresponding Code
+     */
+    public Code syncJournal() {
+        if (journal == null) {
+            return Code.JOURNAL_ERROR;
+        }
+        return journal.sync();
+    }
+
+    /**
+     * The closeJournal method writes out any remaining changes and stops journaling
+     * @return Corresponding Code
+     */
+    public Code closeJournal() {
+        catalogLock.writeLock().lock();
+        try {
+            if (journal == null) {
+                return Code.JOURNAL_ERROR;
+            }
+            try {
+                journal.close();
+            } catch (IOException e) {
+                listener.error(Code.JOURNAL_ERROR, e);
+                return Code.JOURNAL_ERROR;
+            } finally {
+                journal = null;
+            }
+            return Code.SUCCESS;
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This method sets how many journal records are kept before they are folded into a
+     * new snapshot
+     * @param journalCompactLimit the number of records
+     */
+    public void setJournalCompactLimit(int journalCompactLimit) {
+        this.journalCompactLimit = journalCompactLimit;
+    }
+
+    /**
+     * The commitJournal method is called by every change after it lets go of its locks. When
+     * journaling it waits until the change's record, and every record before it, is on disk,
+     * so a change is only reported once it would survive a crash. Changes waiting at the same
+     * time share one fsync. Then it starts a checkpoint if the journal is over its limit
+     * @param code the Code of the change
+     * @return the code, or JOURNAL_ERROR if the journal couldn't be written
+     */
+    private Code commitJournal(Code code) {
+        LibraryJournal journal = this.journal;
+        if (journal == null) {
+            return code;
+        }
+        if (journal.sync() != Code.SUCCESS) {
+            return Code.JOURNAL_ERROR;
+        }
+        compactJournal();
+        return code;
+    }
+
+    /**
+     * The compactJournal method starts a checkpoint once the journal is over its limit. It
+     * takes the write lock, so it must not be called while holding only the read lock
+     */
+    private void compactJournal() {
+        LibraryJournal journal = this.journal;
+        if (journal == null || journal.getRecordCount() < journalCompactLimit) {
+            return;
+        }
+        catalogLock.writeLock().lock();
+        try {
+            // Another thread may have checkpointed while this one waited for the lock
+            if (this.journal != null && this.journal.getRecordCount() >= journalCompactLimit) {
+                checkpoint();
+            }
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This method returns the generation of the last snapshot saved or loaded
+     * @return the generation
+     */
+    long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * The findReader method returns a registered Reader by card number without printing
+     * @param cardNumber the card number to look for
+     * @return the Reader or null if not found
+     */
+    Reader findReader(int cardNumber) {
+        catalogLock.readLock().lock();
+        try {
+            return readers.get(cardNumber);
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The isRegistered method checks if this exact Reader (card number, name and phone) is
+     * registered to the Library. A Reader's card number shouldn't be changed once registered
+     * @param reader the Reader to check
+     * @return true if registered
+     */
+    private boolean isRegistered(Reader reader) {
+        return reader.equals(readers.get(reader.getCardNumber()));
+    }
+
+    /**
+     * The findBook method returns the registered copy of a Book that is equal to the one
+     * passed, so maps and lists all share the same object
+     * @param book the Book to look for
+     * @return the registered Book, or the Book passed if it isn't registered
+     */
+    Book findBook(Book book) {
+        catalogLock.readLock().lock();
+        try {
+            return intern(book);
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This method returns the map of Books registered to the Library and their count
+     * @return map of Books
+     */
+    HashMap<Book, Integer> getBooks() {
+        return books;
+    }
+
+    /**
+     * This method returns the registered Books in the order they were registered
+     * @return the Books
+     */
+    List<Book> getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * This method returns the map of Shelves by normal subject
+     * @return map of Shelves
+     */
+    HashMap<String, Shelf> getShelves() {
+        return shelves;
+    }
+
+    /**
+     * This method returns the subject index of the shelves
+     * @return the SubjectIndex
+     */
+    SubjectIndex getSubjects() {
+        return subjects;
+    }
+
+    /**
+     * This method returns the registered Readers in the order they were added
+     * @return the Readers
+     */
+    Collection<Reader> getReaders() {
+        return readers.values();
+    }
+
+    /**
+     * The getCopyCount method returns how many copies are registered to the Library, from a
+     * running total that is kept as books are added
+     * @return the number of copies
+     */
+    public long getCopyCount() {
+        return copyCount.sum();
+    }
+
+    /**
+     * The getTitleCount method returns how many different books are registered
+     * @return the number of books
+     */
+    public int getTitleCount() {
+        catalogLock.readLock().lock();
+        try {
+            return books.size();
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The getLoanCount method returns how many copies are checked out, from a running total
+     * that checkouts and returns keep
+     * @return the number of copies on loan
+     */
+    public long getLoanCount() {
+        return loanCount.sum();
+    }
+
+    /**
+     * The getAvailableCount method returns how many copies are on a shelf ready to lend, from
+     * a running total every shelf keeps as copies are put on and taken off it. A book returned
+     * without a reader counts here as soon as it is shelved
+     * @return the number of copies available
+     */
+    public long getAvailableCount() {
+        return shelvedCount.sum();
+    }
+
+    /**
+     * The getPagesBySubject method adds up the pages of every registered copy by subject, from
+     * the column view of the catalog
+     * @return total pages by subject
+     */
+    public Map<String, Long> getPagesBySubject() {
+        catalogLock.readLock().lock();
+        try {
+            return columns.pagesBySubject();
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The getCopiesByAuthor method adds up the registered copies by author, from the column
+     * view of the catalog
+     * @return copies by author
+     */
+    public Map<String, Long> getCopiesByAuthor() {
+        catalogLock.readLock().lock();
+        try {
+            return columns.copiesByAuthor();
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The getAveragePagesOnLoan method returns the average page count of the copies checked
+     * out, from the column view of the catalog
+     * @return the average, or 0 if nothing is checked out
+     */
+    public double getAveragePagesOnLoan() {
+        catalogLock.readLock().lock();
+        try {
+            return columns.averagePagesOnLoan();
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The getCopiesDueBy method counts the registered copies whose catalog due date is on or
+     * before a date, from the column view of the catalog
+     * @param date the last due date to include
+     * @return the number of copies
+     */
+    public long getCopiesDueBy(LocalDate date) {
+        catalogLock.readLock().lock();
+        try {
+            return columns.copiesDueBy((int) date.toEpochDay());
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The queryBooks method starts a query over the registered Books with their copies and
+     * copies on loan as they are now
+     * @return the query
+     */
+    public LibraryQuery<Holding> queryBooks() {
+        catalogLock.readLock().lock();
+        try {
+            List<Holding> holdings = new ArrayList<>(catalog.size());
+            for (int title = 0; title < catalog.size(); title++) {
+                holdings.add(new Holding(catalog.get(title), columns.getCopies(title), columns.getOnLoan(title)));
+            }
+            return new LibraryQuery<>(holdings);
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The queryShelves method starts a query over the Shelves
+     * @return the query
+     */
+    public LibraryQuery<Shelf> queryShelves() {
+        catalogLock.readLock().lock();
+        try {
+            return new LibraryQuery<>(new ArrayList<>(shelves.values()));
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The queryReaders method starts a query over the registered Readers
+     * @return the query
+     */
+    public LibraryQuery<Reader> queryReaders() {
+        catalogLock.readLock().lock();
+        try {
+            return new LibraryQuery<>(new ArrayList<>(readers.values()));
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The queryLoans method starts a query over every copy checked out as it is now
+     * @return the query
+     */
+    public LibraryQuery<Loan> queryLoans() {
+        catalogLock.readLock().lock();
+        try {
+            return new LibraryQuery<>(overdue.loans());
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
     /**
      * The getLibraryCard number returns Library card number
      * @return libraryCard
      */
     public int getLibraryCardNumber() {
-        return libraryCard + 1;
+        return libraryCard.get() + 1;
     }
 
     /**
@@ -0,0 +1,335 @@
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Title: LibraryBenchmark.java
+ * Author: Nicholas Fotinakes
+ * Description: This class times the Library hot paths over generated catalogs of different sizes.
+ * For every size LibraryGenerator writes a catalog in memory, then each benchmark is warmed up
+ * and measured over several timed iterations and the average time per operation is printed.
+ * Events go to LibraryListener.NONE, init included, so only the Library's own work is timed.
+ * JMH isn't used because its generated code can't reach classes in the default package and
+ * the project has no build file to run its annotation processor.
+ * Usage: java LibraryBenchmark [size ...] [-only name,name] [-iterations n] [-time ms]
+ * Date: 10/18/2026
+ */
+public class LibraryBenchmark {
+
+    public static final int[] DEFAULT_SIZES = {1000, 10000, 100000, 1000000};
+    public static final int COPIES = 2;             // Copies of each ISBN in a generated catalog
+    public static final int SUBJECTS = 32;          // Subjects (and shelves) in a generated catalog
+    public static final int BOOKS_PER_READER = 100; // Book lines per reader in a generated catalog
+    private static final int WARMUP_ITERATIONS = 3; // Untimed iterations before measuring
+    private static final String[] NAMES = {"init", "checkOutBook", "returnBook", "getBookByISBN",
+            "getReaderByCard", "getShelf(String)", "getShelf(Integer)", "addShelf", "Shelf.listBooks",
+            "queryBooks"};
+
+    private final int size;             // Book lines in the catalog
+    private final String catalog;       // The catalog in the Library file format
+    private final Path file;            // The catalog written to a temporary file for init
+    private final String[] isbns;       // Every ISBN in the catalog
+    private final String[] subjects;    // Every subject in the catalog
+    private int iterations = 5;         // Timed iterations per benchmark
+    private long iterationNanos = 500_000_000L;    // Least time spent in each iteration
+    private Library library;            // Library the operations run against
+    private Book[] books;               // The registered Book of every ISBN
+    private Reader[] readers;           // Every registered reader
+    private long sink;                  // Results are folded in here so they can't be optimized away
+    private int counter;                // Used to make new shelf subjects for addShelf
+
+    /**
+     * Constructor generates a catalog with a set number of book lines
+     * @param size the number of book lines
+     * @param seed the seed for the generator
+     * @throws IOException if the temporary file can't be written
+     */
+    public LibraryBenchmark(int size, long seed) throws IOException {
+        this.size = size;
+        LibraryGenerator generator = new LibraryGenerator();
+        generator.setBooks(size);
+        generator.setCopies(COPIES);
+        generator.setSubjects(SUBJECTS);
+        // Every reader starts with one book checked out
+        generator.setReaders(Math.max(1, size / BOOKS_PER_READER));
+        generator.setLoans(1);
+        generator.setSeed(seed);
+        isbns = new String[generator.getTitles()];
+        subjects = new String[SUBJECTS];
+        for (int i = 0; i < isbns.length; i++) {
+            isbns[i] = generator.isbn(i);
+        }
+        for (int i = 0; i < subjects.length; i++) {
+            subjects[i] = generator.subject(i);
+        }
+        StringWriter out = new StringWriter(size * 64);
+        generator.write(out);
+        catalog = out.toString();
+        file = Files.createTempFile("library-benchmark-", ".csv");
+        file.toFile().deleteOnExit();
+        Files.write(file, catalog.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Runs the benchmarks for each size passed, or for DEFAULT_SIZES
+     * @param args sizes, -only with a comma separated list of benchmarks, -iterations and -time
+     * @throws IOException if a catalog can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        List<Integer> sizes = new ArrayList<>();
+        List<String> only = Arrays.asList(NAMES);
+        int iterations = 5;
+        long millis = 500;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-only":
+                    only = Arrays.asList(args[++i].split(","));
+                    break;
+                case "-iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                case "-time":
+                    millis = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    sizes.add(Integer.parseInt(args[i]));
+            }
+        }
+        if (sizes.isEmpty()) {
+            for (int size : DEFAULT_SIZES) {
+                sizes.add(size);
+            }
+        }
+
+        System.out.printf("%-20s %10s %16s %12s%n", "Benchmark", "Size", "ns/op", "+/-");
+        for (int size : sizes) {
+            LibraryBenchmark benchmark = new LibraryBenchmark(size, 42);
+            benchmark.iterations = iterations;
+            benchmark.iterationNanos = millis * 1_000_000L;
+            for (Map.Entry<String, double[]> result : benchmark.run(only).entrySet()) {
+                double[] score = result.getValue();
+                System.out.printf("%-20s %10d %16.1f %12.1f%n", result.getKey(), size, score[0], score[1]);
+            }
+        }
+    }
+
+    /**
+     * This method runs a set of benchmarks against this catalog
+     * @param names the names of the benchmarks to run
+     * @return the average and standard deviation in nanoseconds per operation, by benchmark
+     */
+    public Map<String, double[]> run(List<String> names) {
+        Map<String, double[]> results = new LinkedHashMap<>();
+        for (String name : NAMES) {
+            if (names.contains(name)) {
+                results.put(name, measure(name));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * This method warms up and then times one benchmark
+     * @param name the name of the benchmark
+     * @return the average and standard deviation in nanoseconds per operation
+     */
+    private double[] measure(String name) {
+        double[] scores = new double[iterations];
+        for (int i = -WARMUP_ITERATIONS; i < iterations; i++) {
+            long operations = 0;
+            long elapsed = 0;
+            // Repeat batches until the iteration has run for long enough
+            while (elapsed < iterationNanos) {
+                long[] batch = batch(name);
+                operations += batch[0];
+                elapsed += batch[1];
+            }
+            if (i >= 0) {
+                scores[i] = (double) elapsed / operations;
+            }
+        }
+        double mean = 0;
+        for (double score : scores) {
+            mean += score / scores.length;
+        }
+        double variance = 0;
+        for (double score : scores) {
+            variance += (score - mean) * (score - mean) / scores.length;
+        }
+        return new double[] {mean, Math.sqrt(variance)};
+    }
+
+    /**
+     * This method runs one timed batch of a benchmark. Setup and cleanup such as loading the
+     * Library or returning checked out books are done outside the timed part
+     * @param name the name of the benchmark
+     * @return the number of operations and the nanoseconds they took
+     */
+    private long[] batch(String name) {
+        if (library == null) {
+            load();
+        }
+        int lookups = Math.min(size, 100_000);
+        long start;
+        long end;
+        switch (name) {
+            case "init": {
+                Library fresh = new Library("Benchmark");
+                fresh.setListener(LibraryListener.NONE);
+                start = System.nanoTime();
+                fresh.init(file.toString());
+                end = System.nanoTime();
+                sink += fresh.getLibraryCardNumber();
+                return new long[] {1, end - start};
+            }
+            case "checkOutBook": {
+                // Readers fill up to the lending limit with books they don't have yet
+                start = System.nanoTime();
+                int loans = lendAll();
+                end = System.nanoTime();
+                returnAll();
+                return new long[] {loans, end - start};
+            }
+            case "returnBook": {
+                int loans = lendAll();
+                start = System.nanoTime();
+                returnAll();
+                end = System.nanoTime();
+                return new long[] {loans, end - start};
+            }
+            case "getBookByISBN":
+                start = System.nanoTime();
+                for (int i = 0; i < lookups; i++) {
+                    sink += library.getBookByISBN(isbns[(i * 7919) % isbns.length]).getPageCount();
+                }
+                end = System.nanoTime();
+                return new long[] {lookups, end - start};
+            case "getReaderByCard":
+                start = System.nanoTime();
+                for (int i = 0; i < lookups; i++) {
+                    sink += library.getReaderByCard(1 + (i * 7919) % readers.length).getBookCount();
+                }
+                end = System.nanoTime();
+                return new long[] {lookups, end - start};
+            case "getShelf(String)":
+                start = System.nanoTime();
+                for (int i = 0; i < lookups; i++) {
+                    sink += library.getShelf(subjects[i % subjects.length]).getShelfNumber();
+                }
+                end = System.nanoTime();
+                return new long[] {lookups, end - start};
+            case "getShelf(Integer)":
+                start = System.nanoTime();
+                for (int i = 0; i < lookups; i++) {
+                    sink += library.getShelf(Integer.valueOf(1 + i % subjects.length)).getShelfNumber();
+                }
+                end = System.nanoTime();
+                return new long[] {lookups, end - start};
+            case "addShelf": {
+                // Each new subject has no books, so this times the duplicate check and the
+                // scan of registered books for matching subjects. Reload before shelves pile up
+                if (counter >= 1000) {
+                    load();
+                }
+                int count = Math.max(1, Math.min(100, 10_000_000 / size));
+                start = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    sink += library.addShelf("new-subject-" + counter++).getCode();
+                }
+                end = System.nanoTime();
+                return new long[] {count, end - start};
+            }
+            case "Shelf.listBooks": {
+                Shelf shelf = library.getShelf(subjects[0]);
+                start = System.nanoTime();
+                sink += shelf.listBooks().length();
+                end = System.nanoTime();
+                return new long[] {1, end - start};
+            }
+            case "queryBooks": {
+                // Copies the rows, then adds up the pages of every copy by subject across the pool
+                start = System.nanoTime();
+                sink += library.queryBooks()
+                        .groupBy(holding -> holding.getBook().getSubject(),
+                                holding -> (long) holding.getBook().getPageCount() * holding.getCopies())
+                        .size();
+                end = System.nanoTime();
+                return new long[] {1, end - start};
+            }
+            default:
+                throw new IllegalArgumentException("Unknown benchmark " + name);
+        }
+    }
+
+    /**
+     * This method loads the catalog into a new Library, returns the books checked out in the
+     * file, and looks up the registered Books and Readers used by the benchmarks
+     */
+    private void load() {
+        library = new Library("Benchmark");
+        library.setListener(LibraryListener.NONE);
+        library.init(file.toString());
+        books = new Book[isbns.length];
+        for (int i = 0; i < isbns.length; i++) {
+            books[i] = library.getBookByISBN(isbns[i]);
+        }
+        readers = library.getReaders().toArray(new Reader[0]);
+        for (Reader reader : readers) {
+            for (Book book : new ArrayList<>(reader.getBooks())) {
+                library.returnBook(reader, book);
+            }
+        }
+        counter = 0;
+    }
+
+    /**
+     * This method has every reader check out books up to the lending limit
+     * @return the number of books checked out
+     */
+    private int lendAll() {
+        int loans = 0;
+        for (int r = 0; r < readers.length; r++) {
+            for (int j = 0; j < Library.LENDING_LIMIT; j++) {
+                Book book = books[(r * Library.LENDING_LIMIT + j) % books.length];
+                if (library.checkOutBook(readers[r], book) == Code.SUCCESS) {
+                    loans++;
+                }
+            }
+        }
+        return loans;
+    }
+
+    /**
+     * This method has every reader return the books lent by lendAll
+     */
+    private void returnAll() {
+        for (int r = 0; r < readers.length; r++) {
+            for (int j = 0; j < Library.LENDING_LIMIT; j++) {
+                library.returnBook(readers[r], books[(r * Library.LENDING_LIMIT + j) % books.length]);
+            }
+        }
+    }
+
+    /**
+     * This method returns the catalog in the Library file format
+     * @return the catalog text
+     */
+    public String getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * This method returns the value results were folded into, so the JIT can't drop the work
+     * @return the folded results
+     */
+    public long getSink() {
+        return sink;
+    }
+}
@@ -0,0 +1,390 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Title: LibraryGenerator.java
+ * Author: Nicholas Fotinakes
+ * Description: This class writes synthetic catalogs in the count prefixed books, shelves and
+ * readers format that Library.init reads. Every line is worked out from its index and a seeded
+ * Random as it is written, so a catalog of millions of books is streamed in constant memory and
+ * the same settings always give the same file. The number of copies of each ISBN, the number of
+ * subjects, the number of readers and their loans, and how strongly loans favour popular titles
+ * (a Zipf exponent) can all be set.
+ * Usage: java LibraryGenerator file [-books n] [-copies n] [-subjects n] [-readers n] [-loans n]
+ * [-zipf s] [-seed n]
+ * Date: 10/18/2026
+ */
+public class LibraryGenerator {
+
+    public static final String ISBN_PREFIX = "978";     // EAN prefix of every generated ISBN
+
+    private int books = 1000;           // Book lines to write, at least 1 since init needs one
+    private int copies = 1;             // Copies of each ISBN, the last title may get fewer
+    private int subjects = 10;          // Distinct subjects, each with a shelf
+    private int readers = 100;          // Reader lines to write
+    private int loans = 1;              // Most books a reader starts with, at least 1
+    private double zipfExponent = 1.0;  // Skew of loan popularity, 0 for uniform
+    private long seed = 42;             // Seed for the Random that picks loans
+
+    /**
+     * Runs the generator from the command line
+     * @param args the output file followed by any of the options in the class description
+     * @throws IOException if the file can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: java LibraryGenerator file [-books n] [-copies n] [-subjects n]"
+                    + " [-readers n] [-loans n] [-zipf s] [-seed n]");
+            return;
+        }
+        LibraryGenerator generator = new LibraryGenerator();
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-books":
+                    generator.setBooks(Integer.parseInt(value));
+                    break;
+                case "-copies":
+                    generator.setCopies(Integer.parseInt(value));
+                    break;
+                case "-subjects":
+                    generator.setSubjects(Integer.parseInt(value));
+                    break;
+                case "-readers":
+                    generator.setReaders(Integer.parseInt(value));
+                    break;
+                case "-loans":
+                    generator.setLoans(Integer.parseInt(value));
+                    break;
+                case "-zipf":
+                    generator.setZipfExponent(Double.parseDouble(value));
+                    break;
+                case "-seed":
+                    generator.setSeed(Long.parseLong(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        generator.write(Paths.get(args[0]));
+    }
+
+    /**
+     * This method writes a catalog to a file
+     * @param path the file to write
+     * @throws IOException if the file can't be written
+     */
+    public void write(Path path) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            write(out);
+        }
+    }
+
+    /**
+     * This method writes a catalog, one line at a time
+     * @param out the Writer to write to
+     * @throws IOException if the Writer fails
+     */
+    public void write(Writer out) throws IOException {
+        // Books, with all copies of a title together
+        out.write(books + "\n");
+        for (int line = 0; line < books; line++) {
+            int title = line / copies;
+            out.write(isbn(title) + ",Title " + title + "," + subject(subjectOf(title)) + ","
+                    + (50 + title % 950) + ",Author " + (title % 5000) + ",0000\n");
+        }
+
+        // One shelf per subject, numbered from 1
+        out.write(subjects + "\n");
+        for (int i = 0; i < subjects; i++) {
+            out.write((i + 1) + "," + subject(i) + "\n");
+        }
+
+        // Readers, each with 1 to loans distinct titles picked by popularity
+        Random random = new Random(seed);
+        ZipfSampler popularity = zipfExponent > 0 ? new ZipfSampler(getTitles(), zipfExponent) : null;
+        long step = scatterStep(getTitles());
+        int[] picked = new int[loans];
+        out.write(readers + "\n");
+        for (int reader = 1; reader <= readers; reader++) {
+            int count = 1 + random.nextInt(Math.min(loans, getTitles()));
+            StringBuilder line = new StringBuilder(64 + count * 32);
+            line.append(reader).append(",Reader ").append(reader).append(",")
+                    .append(String.format("%03d-%03d-%04d", 200 + reader / 10000000 % 800,
+                            reader / 10000 % 1000, reader % 10000))
+                    .append(",").append(count);
+            for (int i = 0; i < count; i++) {
+                int title;
+                boolean repeat;
+                // Draw again until the reader doesn't already have the title
+                do {
+                    title = popularity != null ? rankToTitle(popularity.sample(random) - 1, step)
+                            : random.nextInt(getTitles());
+                    repeat = false;
+                    for (int j = 0; j < i; j++) {
+                        repeat |= picked[j] == title;
+                    }
+                } while (repeat);
+                picked[i] = title;
+                line.append(",").append(isbn(title)).append(",").append(dueDate(random));
+            }
+            out.write(line.append("\n").toString());
+        }
+    }
+
+    /**
+     * This method returns the ISBN-13 of a generated title. The check digit is valid
+     * @param title the index of the title
+     * @return the ISBN
+     */
+    public String isbn(int title) {
+        String digits = ISBN_PREFIX + String.format("%09d", title);
+        int sum = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return digits + (10 - sum % 10) % 10;
+    }
+
+    /**
+     * This method returns the name of a generated subject
+     * @param index the index of the subject
+     * @return the subject
+     */
+    public String subject(int index) {
+        return "subject-" + index;
+    }
+
+    /**
+     * This method returns the subject a title is filed under. Titles are spread over the
+     * subjects by a hash so neighbouring titles land on different shelves
+     * @param title the index of the title
+     * @return the index of the subject
+     */
+    public int subjectOf(int title) {
+        int hash = title * 0x9E3779B9;
+        return (int) ((hash ^ (hash >>> 16)) & 0x7fffffffL) % subjects;
+    }
+
+    /**
+     * This method maps a popularity rank to a title. Ranks are scattered over the titles so the
+     * most popular titles aren't all the first ones written or all on one shelf
+     * @param rank the popularity rank, 0 is the most popular
+     * @param step a step from scatterStep
+     * @return the index of the title
+     */
+    private int rankToTitle(int rank, long step) {
+        return (int) (rank * step % getTitles());
+    }
+
+    /**
+     * This method finds a multiplier that has no common factor with the number of titles, so
+     * multiplying ranks by it visits every title exactly once
+     * @param titles the number of titles
+     * @return the multiplier
+     */
+    private static long scatterStep(int titles) {
+        long step = 0x9E3779B1L % titles;
+        while (gcd(step, titles) != 1) {
+            step++;
+        }
+        return step;
+    }
+
+    /**
+     * This method returns the greatest common divisor of two numbers
+     * @param a the first number
+     * @param b the second number
+     * @return the greatest common divisor
+     */
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * This method picks a due date in October or November 2021
+     * @param random the Random to use
+     * @return the date in yyyy-mm-dd form
+     */
+    private String dueDate(Random random) {
+        return String.format("2021-%02d-%02d", 10 + random.nextInt(2), 1 + random.nextInt(28));
+    }
+
+    /**
+     * This method returns the number of distinct titles (ISBNs) written
+     * @return the number of titles
+     */
+    public int getTitles() {
+        return (books + copies - 1) / copies;
+    }
+
+    public int getBooks() {
+        return books;
+    }
+
+    public void setBooks(int books) {
+        this.books = Math.max(1, books);
+    }
+
+    public int getCopies() {
+        return copies;
+    }
+
+    public void setCopies(int copies) {
+        this.copies = Math.max(1, copies);
+    }
+
+    public int getSubjects() {
+        return subjects;
+    }
+
+    public void setSubjects(int subjects) {
+        this.subjects = Math.max(1, subjects);
+    }
+
+    public int getReaders() {
+        return readers;
+    }
+
+    public void setReaders(int readers) {
+        this.readers = readers;
+    }
+
+    public int getLoans() {
+        return loans;
+    }
+
+    /**
+     * This method sets the most books a reader starts with. It is kept between 1, since init
+     * expects every reader line to list a book, and the Library's lending limit
+     * @param loans the most books per reader
+     */
+    public void setLoans(int loans) {
+        this.loans = Math.max(1, Math.min(loans, Library.LENDING_LIMIT));
+    }
+
+    public double getZipfExponent() {
+        return zipfExponent;
+    }
+
+    public void setZipfExponent(double zipfExponent) {
+        this.zipfExponent = zipfExponent;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Title: ZipfSampler
+     * Description: This class draws ranks from 1 to n where rank k is picked with probability
+     * proportional to 1 / k^exponent. It uses rejection-inversion sampling, so it needs no
+     * table of probabilities and each draw takes constant time and memory
+     */
+    static class ZipfSampler {
+
+        private final int count;                // Number of ranks
+        private final double exponent;          // Zipf exponent, must be above 0
+        private final double hIntegralX1;       // hIntegral(1.5) - 1
+        private final double hIntegralCount;    // hIntegral(count + 0.5)
+        private final double s;                 // Squeeze bound that skips most rejection tests
+
+        /**
+         * Constructor for a sampler over count ranks
+         * @param count the number of ranks
+         * @param exponent the Zipf exponent, must be above 0
+         */
+        ZipfSampler(int count, double exponent) {
+            this.count = count;
+            this.exponent = exponent;
+            this.hIntegralX1 = hIntegral(1.5) - 1;
+            this.hIntegralCount = hIntegral(count + 0.5);
+            this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+        }
+
+        /**
+         * This method draws a rank
+         * @param random the Random to use
+         * @return a rank from 1 to count
+         */
+        int sample(Random random) {
+            while (true) {
+                double u = hIntegralCount + random.nextDouble() * (hIntegralX1 - hIntegralCount);
+                double x = hIntegralInverse(u);
+                int k = (int) (x + 0.5);
+                k = Math.max(1, Math.min(count, k));
+                if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                    return k;
+                }
+            }
+        }
+
+        /**
+         * This method returns the integral of h, shifted so it is 0 at x = 1
+         * @param x the point to integrate to
+         * @return the integral
+         */
+        private double hIntegral(double x) {
+            double logX = Math.log(x);
+            return helper2((1 - exponent) * logX) * logX;
+        }
+
+        /**
+         * This method returns the unnormalized weight 1 / x^exponent
+         * @param x the point
+         * @return the weight
+         */
+        private double h(double x) {
+            return Math.exp(-exponent * Math.log(x));
+        }
+
+        /**
+         * This method returns the inverse of hIntegral
+         * @param x the value of hIntegral
+         * @return the point it is reached at
+         */
+        private double hIntegralInverse(double x) {
+            double t = Math.max(-1, x * (1 - exponent));
+            return Math.exp(helper1(t) * x);
+        }
+
+        /**
+         * This method returns log(1 + x) / x, accurate near 0
+         * @param x the value
+         * @return the result
+         */
+        private static double helper1(double x) {
+            if (Math.abs(x) > 1e-8) {
+                return Math.log1p(x) / x;
+            }
+            return 1 - x * (0.5 - x * (1.0 / 3 - x * 0.25));
+        }
+
+        /**
+         * This method returns (e^x - 1) / x, accurate near 0
+         * @param x the value
+         * @return the result
+         */
+        private static double helper2(double x) {
+            if (Math.abs(x) > 1e-8) {
+                return Math.expm1(x) / x;
+            }
+            return 1 + x * 0.5 * (1 + x / 3 * (1 + x * 0.25));
+        }
+    }
+}
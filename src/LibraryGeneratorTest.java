@@ -0,0 +1,94 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Title: LibraryGeneratorTest.java
+ * Author: Nicholas Fotinakes
+ * Abstract: Test file for the LibraryGenerator.java class
+ * Date: 10/18/2026
+ */
+class LibraryGeneratorTest {
+
+    // Test that a generated file loads through init with the counts it was generated with
+    @Test
+    void write(@TempDir Path tempDir) throws IOException {
+        LibraryGenerator generator = new LibraryGenerator();
+        generator.setBooks(2000);
+        generator.setCopies(4);
+        generator.setSubjects(7);
+        generator.setReaders(50);
+        generator.setLoans(3);
+        Path file = tempDir.resolve("generated.csv");
+        generator.write(file);
+
+        Library library = new Library("Generated");
+        library.setListener(LibraryListener.NONE);
+        assertEquals(Code.SUCCESS, library.init(file.toString()));
+        assertEquals(500, library.getBooks().size());
+        assertEquals(7, library.getShelves().size());
+        assertEquals(50, library.getReaders().size());
+        assertEquals(4, library.getBooks().get(library.getBookByISBN(generator.isbn(499))));
+        for (Reader reader : library.getReaders()) {
+            assertTrue(reader.getBookCount() <= 3);
+        }
+
+        // The same settings give the same file
+        StringWriter first = new StringWriter();
+        StringWriter second = new StringWriter();
+        generator.write(first);
+        generator.write(second);
+        assertEquals(first.toString(), second.toString());
+    }
+
+    // Test that asking for no books still writes a catalog with one book that readers can borrow
+    @Test
+    void noBooks() throws IOException {
+        LibraryGenerator generator = new LibraryGenerator();
+        generator.setBooks(0);
+        generator.setLoans(3);
+        assertEquals(1, generator.getBooks());
+        assertEquals(1, generator.getTitles());
+        StringWriter out = new StringWriter();
+        generator.write(out);
+        assertTrue(out.toString().startsWith("1\n"));
+    }
+
+    // Test that generated ISBNs have a valid ISBN-13 check digit
+    @Test
+    void isbn() {
+        LibraryGenerator generator = new LibraryGenerator();
+        assertEquals("9780000000002", generator.isbn(0));
+        for (int title = 0; title < 1000; title += 37) {
+            String isbn = generator.isbn(title);
+            assertEquals(13, isbn.length());
+            int sum = 0;
+            for (int i = 0; i < isbn.length(); i++) {
+                sum += (isbn.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+            }
+            assertEquals(0, sum % 10);
+        }
+    }
+
+    // Test that the Zipf sampler favours low ranks roughly as 1 / rank
+    @Test
+    void zipfSampler() {
+        LibraryGenerator.ZipfSampler sampler = new LibraryGenerator.ZipfSampler(1000, 1.0);
+        Random random = new Random(7);
+        int[] counts = new int[1001];
+        for (int i = 0; i < 200000; i++) {
+            int rank = sampler.sample(random);
+            assertTrue(rank >= 1 && rank <= 1000);
+            counts[rank]++;
+        }
+        // Rank 1 is picked about twice as often as rank 2 and ten times as often as rank 10
+        assertEquals(2.0, (double) counts[1] / counts[2], 0.2);
+        assertEquals(10.0, (double) counts[1] / counts[10], 1.5);
+    }
+}
@@ -0,0 +1,602 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+
+/**
+ * Title: LibraryJournal.java
+ * Author: Nicholas Fotinakes
+ * Description: This class is an append only journal of the operations that change a Library.
+ * Each operation is written as a small binary record, and a background thread writes and
+ * fsyncs whatever records have piled up in one go (group commit). Library waits in sync for
+ * a change's record to be on disk before reporting the change, after letting go of its locks,
+ * so callers waiting at the same time share one fsync. On startup the journal is replayed on
+ * top of the last snapshot.
+ * If the file can't be written the error is kept, every later sync returns JOURNAL_ERROR and
+ * no more records are queued, so the file never has a gap. Reopening the journal brings the
+ * Library back to what is on disk.
+ * Date: 10/18/2026
+ *
+ * Format:
+ *   header:  int magic, short version, long generation
+ *   records: int length, int CRC32 of the payload, payload
+ *   payload: byte operation, then the fields of that operation
+ * A journal only belongs to the snapshot with the same generation. A file with a damaged
+ * header is refused rather than started over. Replay stops at the first record that is cut
+ * short or fails its checksum, and the file is cut back to that point. Dates are written as
+ * in LibrarySnapshot, with NO_DATE for a null date.
+ */
+class LibraryJournal implements Closeable {
+
+    public static final int MAGIC = 0x4C49424A;     // "LIBJ"
+    public static final short VERSION = 1;          // Current version of the format
+    public static final int HEADER_SIZE = 14;       // Bytes in the header
+    // Operation codes written at the start of each record
+    public static final byte ADD_BOOK = 1;
+    public static final byte ADD_SHELF = 2;
+    public static final byte ADD_READER = 3;
+    public static final byte REMOVE_READER = 4;
+    public static final byte CHECK_OUT = 5;
+    public static final byte RETURN = 6;
+    public static final byte RETURN_TO_SHELF = 7;
+    public static final byte CHECK_OUT_DUE = 8;     // A checkout with its own due date
+    public static final byte LENDING_LIMIT = 9;     // A reader's lending limit changed
+    public static final byte SUBJECT_ALIAS = 10;    // A subject was made an alias of another
+
+    private final Library library;                  // Library replayed into and told of errors
+    private final FileChannel channel;              // Channel of the journal file
+    private final RecordBuffer payload;             // Reusable buffer for one record's payload
+    private final DataOutputStream payloadOut;      // Writes fields into payload
+    private final CRC32 crc;                        // Reusable checksum for payloads
+    private final Thread flusher;                   // Thread that writes and fsyncs records
+    private ByteBuffer pending;                     // Records waiting to be written
+    private ByteBuffer writing;                     // Records being written by the flusher
+    private long generation;                        // Generation of the snapshot this belongs to
+    private long appended;                          // Number of records appended
+    private long durable;                           // Number of records written and fsynced
+    private int records;                            // Number of records in the file
+    private IOException failure;                    // Error that stopped the flusher, if any
+    private boolean closed;
+
+    /**
+     * Constructor opens a journal file for appending, starting a new one if the file is
+     * missing, empty or belongs to an older snapshot
+     * @param path the journal file
+     * @param generation the generation of the snapshot the journal belongs to
+     * @param library the Library the journal records
+     * @throws IOException if the file can't be opened, has a damaged header or belongs to a
+     * newer snapshot
+     */
+    LibraryJournal(Path path, long generation, Library library) throws IOException {
+        this.library = library;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        payload = new RecordBuffer();
+        payloadOut = new DataOutputStream(payload);
+        crc = new CRC32();
+        pending = ByteBuffer.allocate(1 << 16);
+        writing = ByteBuffer.allocate(1 << 16);
+        this.generation = generation;
+
+        long fileGeneration;
+        try {
+            fileGeneration = readGeneration();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        if (fileGeneration > generation) {
+            channel.close();
+            throw new IOException("Journal generation " + fileGeneration + " is newer than snapshot " + generation);
+        }
+        // A missing or older journal was already folded into the snapshot, so start fresh
+        if (fileGeneration < generation) {
+            writeHeader(generation);
+        }
+        flusher = new Thread(this::flushLoop, "library-journal");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * This method replays every complete record in the journal into its Library. The file is
+     * cut back to the end of the last good record so new records follow on from it
+     * @return the number of records replayed
+     * @throws IOException if the file can't be read
+     */
+    synchronized int replay() throws IOException {
+        long size = channel.size();
+        long position = HEADER_SIZE;
+        ByteBuffer head = ByteBuffer.allocate(8);
+        int count = 0;
+        while (position + 8 <= size) {
+            head.clear();
+            channel.read(head, position);
+            head.flip();
+            int length = head.getInt();
+            int checksum = head.getInt();
+            if (length <= 0 || position + 8 + length > size) {
+                break;
+            }
+            byte[] bytes = new byte[length];
+            channel.read(ByteBuffer.wrap(bytes), position + 8);
+            crc.reset();
+            crc.update(bytes);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            apply(library, new DataInputStream(new ByteArrayInputStream(bytes)));
+            position += 8 + length;
+            count++;
+        }
+        // Drop a torn record left by a crash
+        if (position < size) {
+            library.getListener().error(Code.JOURNAL_ERROR, "torn record, cut back from " + size
+                    + " to " + position + " bytes");
+            channel.truncate(position);
+        }
+        channel.position(position);
+        records = count;
+        return count;
+    }
+
+    /**
+     * This method adds a book to the journal
+     * @param book the book added
+     */
+    synchronized void addBook(Book book) {
+        try {
+            start(ADD_BOOK);
+            writeBook(book);
+            finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This method adds a new shelf to the journal
+     * @param shelf the shelf added
+     */
+    synchronized void addShelf(Shelf shelf) {
+        try {
+            start(ADD_SHELF);
+            payloadOut.writeInt(shelf.getShelfNumber());
+            payloadOut.writeUTF(shelf.getSubject());
+            finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This method adds a new reader to the journal
+     * @param reader the reader added
+     */
+    synchronized void addReader(Reader reader) {
+        try {
+            start(ADD_READER);
+            payloadOut.writeInt(reader.getCardNumber());
+            payloadOut.writeUTF(reader.getName());
+            payloadOut.writeUTF(reader.getPhone());
+            finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This method adds a removed reader to the journal
+     * @param reader the reader removed
+     */
+    synchronized void removeReader(Reader reader) {
+        try {
+            start(REMOVE_READER);
+            payloadOut.writeInt(reader.getCardNumber());
+            finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This method adds a change to a reader's lending limit to the journal
+     * @param reader the reader with the new limit
+     */
+    synchronized void lendingLimit(Reader reader) {
+        try {
+            start(LENDING_LIMIT);
+            payloadOut.writeInt(reader.getCardNumber());
+            payloadOut.writeInt(reader.getLendingLimit());
+            finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This method adds a subject alias to the journal
+     * @param alias the other name for the subject
+     * @param subject the subject it stands for
+     */
+    synchronized void addSubjectAlias(String alias, String subject) {
+        try {
+            start(SUBJECT_ALIAS);
+            payloadOut.writeUTF(alias);
+            payloadOut.writeUTF(subject);
+            finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This method adds a checkout or a return by a reader to the journal
+     * @param operation CHECK_OUT or RETURN
+     * @param reader the reader checking out or returning
+     * @param book the book checked out or returned
+     */
+    synchronized void loan(byte operation, Reader reader, Book book) {
+        try {
+            start(operation);
+            payloadOut.writeInt(reader.getCardNumber());
+            writeBook(book);
+            finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This method adds a checkout with its due date to the journal
+     * @param reader the reader checking out
+     * @param book the book checked out
+     * @param dueDate the date the copy is due back
+     */
+    synchronized void checkOut(Reader reader, Book book, LocalDate dueDate) {
+        try {
+            start(CHECK_OUT_DUE);
+            payloadOut.writeInt(reader.getCardNumber());
+            writeBook(book);
+            payloadOut.writeLong(LibrarySnapshot.toEpochDay(dueDate));
+            finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This method adds a book returned straight to its shelf to the journal
+     * @param book the book returned
+     */
+    synchronized void returnToShelf(Book book) {
+        try {
+            start(RETURN_TO_SHELF);
+            writeBook(book);
+            finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This method waits until every record appended so far, including any the calling thread
+     * has just appended, has been written and fsynced
+     * @return SUCCESS, or JOURNAL_ERROR if the journal couldn't be written now or earlier
+     */
+    synchronized Code sync() {
+        long target = appended;
+        notifyAll();
+        while (durable < target && failure == null && !closed) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Code.JOURNAL_ERROR;
+            }
+        }
+        return failure == null && durable >= target ? Code.SUCCESS : Code.JOURNAL_ERROR;
+    }
+
+    /**
+     * This method empties the journal after its records have been saved in a snapshot
+     * @param generation the generation of the new snapshot
+     * @return SUCCESS or JOURNAL_ERROR
+     */
+    synchronized Code reset(long generation) {
+        if (sync() != Code.SUCCESS) {
+            return Code.JOURNAL_ERROR;
+        }
+        try {
+            writeHeader(generation);
+        } catch (IOException e) {
+            failure = e;
+            return Code.JOURNAL_ERROR;
+        }
+        this.generation = generation;
+        records = 0;
+        return Code.SUCCESS;
+    }
+
+    /**
+     * This method returns how many records are in the journal
+     * @return record count
+     */
+    synchronized int getRecordCount() {
+        return records;
+    }
+
+    /**
+     * This method returns the generation of the snapshot the journal belongs to
+     * @return the generation
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Writes out any remaining records, stops the flusher and closes the file
+     * @throws IOException if the remaining records couldn't be written
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            sync();
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * This method starts a new record
+     * @param operation the operation code of the record
+     * @throws IOException never, the payload is in memory
+     */
+    private void start(byte operation) throws IOException {
+        payload.reset();
+        payloadOut.write(operation);
+    }
+
+    /**
+     * This method frames the current record with its length and checksum and queues it for
+     * the flusher
+     */
+    private void finish() {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        // Once the file can't be written every sync reports the error, and queueing more records
+        // after the ones that were lost would leave a gap in the file
+        if (failure != null) {
+            return;
+        }
+        // Read the payload where it is instead of copying it out, so a record allocates nothing
+        byte[] bytes = payload.buffer();
+        int length = payload.size();
+        crc.reset();
+        crc.update(bytes, 0, length);
+        if (pending.remaining() < length + 8) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + length + 8));
+            pending.flip();
+            bigger.put(pending);
+            pending = bigger;
+        }
+        pending.putInt(length);
+        pending.putInt((int) crc.getValue());
+        pending.put(bytes, 0, length);
+        appended++;
+        records++;
+        notifyAll();
+    }
+
+    /**
+     * This method writes the fields of a book into the current record
+     * @param book the book to write
+     * @throws IOException never, the payload is in memory
+     */
+    private void writeBook(Book book) throws IOException {
+        payloadOut.writeUTF(book.getIsbn());
+        payloadOut.writeUTF(book.getTitle());
+        payloadOut.writeUTF(book.getSubject());
+        payloadOut.writeInt(book.getPageCount());
+        payloadOut.writeUTF(book.getAuthor());
+        payloadOut.writeLong(LibrarySnapshot.toEpochDay(book.getDueDate()));
+    }
+
+    /**
+     * This method reads the fields of a book from a record
+     * @param in the record being read
+     * @return the Book
+     * @throws IOException if the record is short
+     */
+    private static Book readBook(DataInputStream in) throws IOException {
+        String isbn = in.readUTF();
+        String title = in.readUTF();
+        String subject = in.readUTF();
+        int pageCount = in.readInt();
+        String author = in.readUTF();
+        return new Book(isbn, title, subject, pageCount, author, LibrarySnapshot.toDate(in.readLong()));
+    }
+
+    /**
+     * This method applies one record to a Library by calling the method that wrote it
+     * @param library the Library to apply the record to
+     * @param in the record being read
+     * @throws IOException if the record is short or has an unknown operation
+     */
+    private static void apply(Library library, DataInputStream in) throws IOException {
+        byte operation = in.readByte();
+        switch (operation) {
+            case ADD_BOOK:
+                library.addBook(readBook(in));
+                break;
+            case ADD_SHELF:
+                Shelf shelf = new Shelf();
+                shelf.setShelfNumber(in.readInt());
+                shelf.setSubject(in.readUTF());
+                library.addShelf(shelf);
+                break;
+            case ADD_READER:
+                library.addReader(new Reader(in.readInt(), in.readUTF(), in.readUTF()));
+                break;
+            case LENDING_LIMIT:
+                Reader limited = library.findReader(in.readInt());
+                int limit = in.readInt();
+                if (limited != null) {
+                    library.setLendingLimit(limited, limit);
+                }
+                break;
+            case SUBJECT_ALIAS:
+                library.addSubjectAlias(in.readUTF(), in.readUTF());
+                break;
+            case REMOVE_READER:
+                Reader removed = library.findReader(in.readInt());
+                if (removed != null) {
+                    library.removeReader(removed);
+                }
+                break;
+            case CHECK_OUT:
+            case CHECK_OUT_DUE:
+            case RETURN:
+                Reader reader = library.findReader(in.readInt());
+                Book book = library.findBook(readBook(in));
+                // Checkouts written before due dates were journaled use the catalog date
+                LocalDate dueDate = operation == CHECK_OUT_DUE ? LibrarySnapshot.toDate(in.readLong()) : null;
+                if (reader == null) {
+                    break;
+                }
+                if (operation != RETURN) {
+                    library.checkOutBook(reader, book, dueDate);
+                } else {
+                    library.returnBook(reader, book);
+                }
+                break;
+            case RETURN_TO_SHELF:
+                library.returnBook(library.findBook(readBook(in)));
+                break;
+            default:
+                throw new IOException("Unknown journal operation " + operation);
+        }
+    }
+
+    /**
+     * This method reads the generation from the header of the file. Anything but an empty
+     * file or a whole header of this version is refused, since starting over would throw away
+     * records that might not be in the snapshot
+     * @return the generation, or -1 if the file is empty
+     * @throws IOException if the file can't be read or its header is damaged
+     */
+    private long readGeneration() throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            return -1;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (size >= HEADER_SIZE) {
+            channel.read(header, 0);
+            header.flip();
+            if (header.getInt() == MAGIC && header.getShort() == VERSION) {
+                return header.getLong();
+            }
+        }
+        throw new IOException("Journal header is damaged or an unknown version");
+    }
+
+    /**
+     * This method empties the file and writes a new header
+     * @param generation the generation to write in the header
+     * @throws IOException if the file can't be written
+     */
+    private void writeHeader(long generation) throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putShort(VERSION).putLong(generation).flip();
+        channel.write(header, 0);
+        channel.force(true);
+        channel.position(HEADER_SIZE);
+    }
+
+    /**
+     * This method is run by the flusher thread. It swaps out whatever records are pending,
+     * writes them and fsyncs once for the whole group
+     */
+    private void flushLoop() {
+        while (true) {
+            long target;
+            synchronized (this) {
+                while (pending.position() == 0 && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.position() == 0) {
+                    return;
+                }
+                // Swap buffers so appends can carry on while this group is written
+                ByteBuffer full = pending;
+                pending = writing;
+                writing = full;
+                target = appended;
+            }
+            try {
+                writing.flip();
+                while (writing.hasRemaining()) {
+                    channel.write(writing);
+                }
+                channel.force(false);
+                writing.clear();
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                library.getListener().error(Code.JOURNAL_ERROR, e);
+                return;
+            }
+            synchronized (this) {
+                durable = target;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Title: RecordBuffer
+     * Description: This class is a ByteArrayOutputStream that lets the journal read the bytes
+     * written to it without copying them
+     */
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+
+        RecordBuffer() {
+            super(256);
+        }
+
+        /**
+         * This method returns the array the bytes are written to, valid up to size()
+         * @return the array
+         */
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
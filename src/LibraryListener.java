@@ -0,0 +1,126 @@
+/**
+ * Title: LibraryListener.java
+ * Author: Nicholas Fotinakes
+ * Description: This interface receives the events of a Library and its Shelves, such as books
+ * being added, checked out and returned, and errors with their Code. Every method does nothing
+ * by default, so a listener only overrides the events it cares about. NONE ignores everything,
+ * ConsoleLibraryListener prints the events and AsyncLibraryListener hands them to another
+ * listener on a background thread.
+ * Date: 10/18/2026
+ */
+public interface LibraryListener {
+
+    /**
+     * A listener that ignores every event
+     */
+    LibraryListener NONE = new LibraryListener() { };
+
+    /**
+     * Called when copies of a book are registered to the Library
+     * @param book the book added
+     * @param copies how many copies the Library has after adding
+     */
+    default void bookAdded(Book book, int copies) {
+    }
+
+    /**
+     * Called when copies of a book are put on a shelf
+     * @param book the book shelved
+     * @param shelf the shelf it was put on
+     * @param copies how many copies were put on the shelf
+     */
+    default void bookShelved(Book book, Shelf shelf, int copies) {
+    }
+
+    /**
+     * Called when a new shelf is filled with the registered copies of its subject, in place of
+     * a bookShelved call per book
+     * @param shelf the shelf filled
+     * @param books how many different books were put on it
+     * @param copies how many copies were put on it in all
+     */
+    default void shelfStocked(Shelf shelf, int books, int copies) {
+    }
+
+    /**
+     * Called when a copy of a book is taken off a shelf
+     * @param book the book taken
+     * @param shelf the shelf it was taken from
+     */
+    default void bookUnshelved(Book book, Shelf shelf) {
+    }
+
+    /**
+     * Called when a reader checks out a book
+     * @param reader the reader checking out
+     * @param book the book checked out
+     */
+    default void bookCheckedOut(Reader reader, Book book) {
+    }
+
+    /**
+     * Called when a reader returns a book
+     * @param reader the reader returning
+     * @param book the book returned
+     */
+    default void bookReturned(Reader reader, Book book) {
+    }
+
+    /**
+     * Called when a shelf is added to the Library
+     * @param shelf the shelf added
+     */
+    default void shelfAdded(Shelf shelf) {
+    }
+
+    /**
+     * Called when a reader is added to the Library
+     * @param reader the reader added
+     */
+    default void readerAdded(Reader reader) {
+    }
+
+    /**
+     * Called when a reader is removed from the Library
+     * @param reader the reader removed
+     */
+    default void readerRemoved(Reader reader) {
+    }
+
+    /**
+     * Called when init starts reading a section of a Library file
+     * @param section the section, such as "books" or "shelves"
+     * @param count how many records the section holds
+     */
+    default void sectionParsing(String section, int count) {
+    }
+
+    /**
+     * Called when init has read a section of a Library file
+     * @param section the section, "books", "shelves" or "readers"
+     * @param code the Code the section was read with
+     */
+    default void sectionParsed(String section, Code code) {
+    }
+
+    /**
+     * Called when a journal has been replayed on top of its snapshot
+     * @param records how many records were replayed
+     */
+    default void journalReplayed(int records) {
+    }
+
+    /**
+     * Called when an operation fails
+     * @param code the Code returned for the error
+     * @param subject what the error is about, such as a Book, Reader, Shelf, ISBN or card number
+     */
+    default void error(Code code, Object subject) {
+    }
+
+    /**
+     * Called when any events held back by the listener should be written out
+     */
+    default void flush() {
+    }
+}
@@ -0,0 +1,329 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Title: LibraryQuery.java
+ * Author: Nicholas Fotinakes
+ * Description: This class answers ad hoc questions about rows taken from a Library, such as its
+ * books, shelves, readers or loans. A query keeps the rows that pass its filters, then groups
+ * them and sums, counts and finds the smallest and largest of a value, or finds the rows with
+ * the largest values. The rows are split into ranges on the common fork/join pool, each range
+ * is aggregated into its own partial result without sharing anything, and the partial results
+ * are merged on the way back up, the same way BookChunkTask loads books.
+ * Rows are copied out of the Library when the query is made, so a query doesn't hold the
+ * Library's lock while it runs. Queries are read only, filter returns a new query.
+ * Date: 10/18/2026
+ */
+public class LibraryQuery<T> {
+
+    public static final int LEAF_ROWS = 8192;  // Rows a task aggregates itself instead of splitting
+
+    private final List<T> rows;                 // The rows, with fast access by index
+    private final Predicate<? super T> filter;  // Rows must pass this, null to keep every row
+
+    /**
+     * Constructor for a query over every row
+     * @param rows the rows, a list with fast access by index
+     */
+    public LibraryQuery(List<T> rows) {
+        this(rows, null);
+    }
+
+    /**
+     * Constructor for a query over the rows that pass a filter
+     * @param rows the rows
+     * @param filter the filter, or null for none
+     */
+    private LibraryQuery(List<T> rows, Predicate<? super T> filter) {
+        this.rows = rows;
+        this.filter = filter;
+    }
+
+    /**
+     * This method returns a query that also keeps only the rows passing a filter
+     * @param predicate the filter
+     * @return the new query
+     */
+    public LibraryQuery<T> filter(Predicate<? super T> predicate) {
+        Predicate<? super T> current = filter;
+        if (current == null) {
+            return new LibraryQuery<>(rows, predicate);
+        }
+        return new LibraryQuery<>(rows, (T row) -> current.test(row) && predicate.test(row));
+    }
+
+    /**
+     * This method counts the rows that pass the filters
+     * @return the number of rows
+     */
+    public long count() {
+        return aggregate(row -> 0).getCount();
+    }
+
+    /**
+     * This method sums, counts and finds the smallest and largest of a value over the rows
+     * @param value the value of a row
+     * @return the statistics of the value
+     */
+    public Stats aggregate(ToLongFunction<? super T> value) {
+        Stats stats = groupBy(row -> Boolean.TRUE, value).get(Boolean.TRUE);
+        return stats == null ? new Stats() : stats;
+    }
+
+    /**
+     * This method groups the rows by a key and sums, counts and finds the smallest and largest
+     * of a value in each group
+     * @param key the group of a row
+     * @param value the value of a row
+     * @return the statistics of the value by group, only for groups with a row
+     */
+    public <K> Map<K, Stats> groupBy(Function<? super T, ? extends K> key, ToLongFunction<? super T> value) {
+        return ForkJoinPool.commonPool().invoke(new GroupTask<K>(0, rows.size(), key, value));
+    }
+
+    /**
+     * This method finds the rows with the largest values. Rows with the same value come in
+     * the order they are in the query
+     * @param count the most rows to return
+     * @param value the value of a row
+     * @return the rows, largest value first
+     */
+    public List<T> top(int count, ToLongFunction<? super T> value) {
+        List<T> top = new ArrayList<>();
+        if (count <= 0) {
+            return top;
+        }
+        PriorityQueue<Integer> best = ForkJoinPool.commonPool().invoke(new TopTask(0, rows.size(), count, value));
+        Integer[] indexes = best.toArray(new Integer[0]);
+        Arrays.sort(indexes, order(value).reversed());
+        for (Integer index : indexes) {
+            top.add(rows.get(index));
+        }
+        return top;
+    }
+
+    /**
+     * This method returns the order of row indexes from smallest value to largest, with later
+     * rows counted as smaller when the values are the same
+     * @param value the value of a row
+     * @return the order
+     */
+    private Comparator<Integer> order(ToLongFunction<? super T> value) {
+        return (a, b) -> {
+            int order = Long.compare(value.applyAsLong(rows.get(a)), value.applyAsLong(rows.get(b)));
+            return order != 0 ? order : Integer.compare(b, a);
+        };
+    }
+
+    /**
+     * This method checks a row against the filters
+     * @param row the row
+     * @return true if the row passes
+     */
+    private boolean keeps(T row) {
+        return filter == null || filter.test(row);
+    }
+
+    /**
+     * Title: Stats
+     * Description: This class is the count, sum, smallest and largest of a value over some rows.
+     * The smallest and largest are 0 when there are no rows
+     */
+    public static final class Stats {
+
+        private long count;                     // Number of rows
+        private long sum;                       // Sum of the value
+        private long min = Long.MAX_VALUE;      // Smallest value
+        private long max = Long.MIN_VALUE;      // Largest value
+
+        /**
+         * This method adds the value of one row
+         * @param value the value
+         */
+        void add(long value) {
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        /**
+         * This method adds in the statistics of other rows
+         * @param other the statistics to add
+         */
+        void merge(Stats other) {
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+
+        /**
+         * This method returns the number of rows
+         * @return the count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * This method returns the sum of the value
+         * @return the sum
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * This method returns the smallest value
+         * @return the smallest value, or 0 if there are no rows
+         */
+        public long getMin() {
+            return count == 0 ? 0 : min;
+        }
+
+        /**
+         * This method returns the largest value
+         * @return the largest value, or 0 if there are no rows
+         */
+        public long getMax() {
+            return count == 0 ? 0 : max;
+        }
+
+        /**
+         * This method returns the average value
+         * @return the average, or 0 if there are no rows
+         */
+        public double getAverage() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Overridden toString method to return formatted Stats output
+         * @return the count, sum, smallest and largest
+         */
+        @Override
+        public String toString() {
+            return "count " + count + ", sum " + sum + ", min " + getMin() + ", max " + getMax();
+        }
+    }
+
+    /**
+     * Title: GroupTask
+     * Description: This class groups a range of rows, splitting it in half until it is small
+     * enough to group in one pass, and merges the halves' groups
+     */
+    private final class GroupTask<K> extends RecursiveTask<Map<K, Stats>> {
+
+        private static final long serialVersionUID = 1L;    // RecursiveTask is Serializable
+        private final int first;                            // Index of the first row
+        private final int last;                             // Index just past the last row
+        private final Function<? super T, ? extends K> key; // Group of a row
+        private final ToLongFunction<? super T> value;      // Value of a row
+
+        GroupTask(int first, int last, Function<? super T, ? extends K> key, ToLongFunction<? super T> value) {
+            this.first = first;
+            this.last = last;
+            this.key = key;
+            this.value = value;
+        }
+
+        /**
+         * This method groups the range, or splits it in half and merges the two results
+         * @return the statistics by group
+         */
+        @Override
+        protected Map<K, Stats> compute() {
+            if (last - first <= LEAF_ROWS) {
+                HashMap<K, Stats> groups = new HashMap<>();
+                for (int i = first; i < last; i++) {
+                    T row = rows.get(i);
+                    if (keeps(row)) {
+                        groups.computeIfAbsent(key.apply(row), group -> new Stats()).add(value.applyAsLong(row));
+                    }
+                }
+                return groups;
+            }
+            int middle = (first + last) >>> 1;
+            GroupTask<K> right = new GroupTask<K>(middle, last, key, value);
+            right.fork();
+            Map<K, Stats> groups = new GroupTask<K>(first, middle, key, value).compute();
+            for (Map.Entry<K, Stats> entry : right.join().entrySet()) {
+                Stats stats = groups.putIfAbsent(entry.getKey(), entry.getValue());
+                if (stats != null) {
+                    stats.merge(entry.getValue());
+                }
+            }
+            return groups;
+        }
+    }
+
+    /**
+     * Title: TopTask
+     * Description: This class finds the rows with the largest values in a range, splitting it
+     * in half until it is small enough to scan in one pass, and keeps the best of both halves
+     */
+    private final class TopTask extends RecursiveTask<PriorityQueue<Integer>> {
+
+        private static final long serialVersionUID = 1L;  // RecursiveTask is Serializable
+        private final int first;                        // Index of the first row
+        private final int last;                         // Index just past the last row
+        private final int count;                        // Most rows to keep
+        private final ToLongFunction<? super T> value;  // Value of a row
+
+        TopTask(int first, int last, int count, ToLongFunction<? super T> value) {
+            this.first = first;
+            this.last = last;
+            this.count = count;
+            this.value = value;
+        }
+
+        /**
+         * This method finds the best rows of the range, or splits it in half and keeps the
+         * best of the two results
+         * @return the indexes of the best rows, with the worst of them at the head
+         */
+        @Override
+        protected PriorityQueue<Integer> compute() {
+            if (last - first <= LEAF_ROWS) {
+                PriorityQueue<Integer> best = new PriorityQueue<>(order(value));
+                for (int i = first; i < last; i++) {
+                    if (keeps(rows.get(i))) {
+                        offer(best, i);
+                    }
+                }
+                return best;
+            }
+            int middle = (first + last) >>> 1;
+            TopTask right = new TopTask(middle, last, count, value);
+            right.fork();
+            PriorityQueue<Integer> best = new TopTask(first, middle, count, value).compute();
+            for (Integer index : right.join()) {
+                offer(best, index);
+            }
+            return best;
+        }
+
+        /**
+         * This method adds a row to the best rows, dropping the worst if there are too many
+         * @param best the best rows so far
+         * @param index the index of the row
+         */
+        private void offer(PriorityQueue<Integer> best, int index) {
+            best.add(index);
+            if (best.size() > count) {
+                best.poll();
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Title: LibraryQueryTest.java
+ * Author: Nicholas Fotinakes
+ * Abstract: Test file for the LibraryQuery.java class
+ * Date: 10/18/2026
+ */
+class LibraryQueryTest {
+
+    // Test grouping over enough rows to be split across tasks against a single loop
+    @Test
+    void groupBy() {
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < LibraryQuery.LEAF_ROWS * 10 + 7; i++) {
+            rows.add(i);
+        }
+        Map<Integer, long[]> expected = new HashMap<>();
+        for (int row : rows) {
+            if (row % 3 != 0) {
+                long[] stats = expected.computeIfAbsent(row % 7, key -> new long[] {0, 0, Long.MAX_VALUE, Long.MIN_VALUE});
+                stats[0]++;
+                stats[1] += row;
+                stats[2] = Math.min(stats[2], row);
+                stats[3] = Math.max(stats[3], row);
+            }
+        }
+
+        LibraryQuery<Integer> query = new LibraryQuery<>(rows).filter(row -> row % 3 != 0);
+        Map<Integer, LibraryQuery.Stats> groups = query.groupBy(row -> row % 7, row -> row);
+        assertEquals(expected.keySet(), groups.keySet());
+        for (Map.Entry<Integer, long[]> entry : expected.entrySet()) {
+            LibraryQuery.Stats stats = groups.get(entry.getKey());
+            assertArrayEquals(entry.getValue(),
+                    new long[] {stats.getCount(), stats.getSum(), stats.getMin(), stats.getMax()});
+        }
+        assertEquals(rows.size() - (rows.size() + 2) / 3, query.count());
+        assertEquals(rows.size() - 1, query.aggregate(row -> row).getMax());
+    }
+
+    // Test that filters combine and an empty result has zero statistics
+    @Test
+    void filter() {
+        LibraryQuery<Integer> query = new LibraryQuery<>(List.of(1, 2, 3, 4, 5, 6));
+        LibraryQuery<Integer> even = query.filter(row -> row % 2 == 0);
+        assertEquals(3, even.count());
+        assertEquals(10, even.filter(row -> row > 2).aggregate(row -> row).getSum());
+        assertEquals(6, query.count());
+        LibraryQuery.Stats none = even.filter(row -> row > 10).aggregate(row -> row);
+        assertEquals(0, none.getCount());
+        assertEquals(0, none.getMin());
+        assertEquals(0, none.getAverage());
+    }
+
+    // Test that top returns the largest values first, earlier rows first on ties
+    @Test
+    void top() {
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < LibraryQuery.LEAF_ROWS * 4; i++) {
+            rows.add(i % 1000);
+        }
+        LibraryQuery<Integer> query = new LibraryQuery<>(rows);
+        assertEquals(List.of(999, 999, 999, 999, 999), query.top(5, row -> row));
+        assertEquals(List.of("b", "a"), new LibraryQuery<>(List.of("b", "a", "c")).top(2, row -> 1));
+        assertEquals(List.of(0, 0), query.top(2, row -> -row));
+        assertEquals(List.of(5, 4), new LibraryQuery<>(List.of(4, 5)).top(10, row -> row));
+        assertTrue(query.top(0, row -> row).isEmpty());
+    }
+}
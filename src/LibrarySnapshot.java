@@ -0,0 +1,357 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Title: LibrarySnapshot.java
+ * Author: Nicholas Fotinakes
+ * Description: This class saves and loads a binary snapshot of a Library so it can be rebuilt
+ * with one sequential read instead of parsing the csv again. The snapshot holds the books and
+ * their copy counts, the shelves with their numbers and counts, and the readers with their
+ * loans and due dates.
+ * Date: 10/18/2026
+ *
+ * Format (all numbers big endian, as written by DataOutputStream):
+ *   int magic, short version
+ *   long journal generation (version 2 and up)
+ *   int library card number
+ *   strings:  int count, then each String with writeUTF
+ *   books:    int count, then isbn, title, subject, int pageCount, author, long dueDate
+ *             (epoch day, or NO_DATE), int copies (-1 if the book isn't in the Library's books
+ *             map). Registered books come first, in the order they were registered
+ *   shelves:  int count, then int shelfNumber, subject, int entries, then int book, int count
+ *   aliases:  int count, then alias, subject, both in normal form (version 4 and up)
+ *   readers:  int count, then int cardNumber, name, phone, int lendingLimit (version 3 and up),
+ *             int loans, then int book, long dueDate (epoch day, or NO_DATE)
+ *   int CRC32 of everything before it
+ * Strings are written once in the string table and referred to by index after that. Books are
+ * referred to by their index in the book table.
+ */
+final class LibrarySnapshot {
+
+    public static final int MAGIC = 0x4C494253;     // "LIBS"
+    public static final short VERSION = 4;          // Current version of the format
+    public static final long NO_DATE = Long.MIN_VALUE;  // Written in place of a null date
+    private static final int BUFFER_SIZE = 1 << 16; // Size of the stream buffers
+
+    /**
+     * Constructor is private, this class only has static methods
+     */
+    private LibrarySnapshot() {
+    }
+
+    /**
+     * This method writes a snapshot of a Library. The snapshot is written to a temporary file
+     * first and moved over the target, so a crash never leaves a half written snapshot. The
+     * file is forced to disk before the move and the directory after it, so once this returns
+     * SUCCESS the snapshot survives a power loss and the journal behind it can be reset
+     * @param library the Library to save
+     * @param path the file to write
+     * @return SUCCESS or SNAPSHOT_WRITE_ERROR
+     */
+    static Code write(Library library, Path path) {
+        // Number every string and every book the library refers to
+        HashMap<String, Integer> strings = new HashMap<>();
+        List<String> stringTable = new ArrayList<>();
+        HashMap<Book, Integer> bookIndex = new HashMap<>();
+        List<Book> bookTable = new ArrayList<>();
+        for (Book book : library.getCatalog()) {
+            addBook(book, bookIndex, bookTable, strings, stringTable);
+        }
+        for (Shelf shelf : library.getShelves().values()) {
+            addString(shelf.getSubject(), strings, stringTable);
+            for (Book book : shelf.getBooks().keySet()) {
+                addBook(book, bookIndex, bookTable, strings, stringTable);
+            }
+        }
+        Map<String, String> aliases = library.getSubjects().getAliases();
+        for (Map.Entry<String, String> alias : aliases.entrySet()) {
+            addString(alias.getKey(), strings, stringTable);
+            addString(alias.getValue(), strings, stringTable);
+        }
+        for (Reader reader : library.getReaders()) {
+            addString(reader.getName(), strings, stringTable);
+            addString(reader.getPhone(), strings, stringTable);
+            for (Book book : reader.getBooks()) {
+                addBook(book, bookIndex, bookTable, strings, stringTable);
+            }
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new CheckedOutputStream(Channels.newOutputStream(channel), crc), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(library.getGeneration());
+            out.writeInt(library.getLibraryCardNumber() - 1);
+
+            out.writeInt(stringTable.size());
+            for (String string : stringTable) {
+                out.writeUTF(string);
+            }
+
+            out.writeInt(bookTable.size());
+            for (Book book : bookTable) {
+                out.writeInt(strings.get(book.getIsbn()));
+                out.writeInt(strings.get(book.getTitle()));
+                out.writeInt(strings.get(book.getSubject()));
+                out.writeInt(book.getPageCount());
+                out.writeInt(strings.get(book.getAuthor()));
+                out.writeLong(toEpochDay(book.getDueDate()));
+                out.writeInt(library.getBooks().getOrDefault(book, -1));
+            }
+
+            out.writeInt(library.getShelves().size());
+            for (Shelf shelf : library.getShelves().values()) {
+                out.writeInt(shelf.getShelfNumber());
+                out.writeInt(strings.get(shelf.getSubject()));
+                out.writeInt(shelf.getBooks().size());
+                for (Map.Entry<Book, Integer> entry : shelf.getBooks().entrySet()) {
+                    out.writeInt(bookIndex.get(entry.getKey()));
+                    out.writeInt(entry.getValue());
+                }
+            }
+
+            out.writeInt(aliases.size());
+            for (Map.Entry<String, String> alias : aliases.entrySet()) {
+                out.writeInt(strings.get(alias.getKey()));
+                out.writeInt(strings.get(alias.getValue()));
+            }
+
+            out.writeInt(library.getReaders().size());
+            for (Reader reader : library.getReaders()) {
+                out.writeInt(reader.getCardNumber());
+                out.writeInt(strings.get(reader.getName()));
+                out.writeInt(strings.get(reader.getPhone()));
+                out.writeInt(reader.getLendingLimit());
+                out.writeInt(reader.getBookCount());
+                for (Book book : reader.getBooks()) {
+                    out.writeInt(bookIndex.get(book));
+                    // A loan of a book that was never registered has no copy to date it
+                    LocalDate dueDate = library.getDueDate(reader, book);
+                    out.writeLong(toEpochDay(dueDate != null ? dueDate : book.getDueDate()));
+                }
+            }
+
+            // The checksum covers everything written so far
+            out.flush();
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            channel.force(true);
+        } catch (IOException e) {
+            library.getListener().error(Code.SNAPSHOT_WRITE_ERROR, e);
+            return Code.SNAPSHOT_WRITE_ERROR;
+        }
+
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // The rename is only durable once the directory holding it is
+            syncDirectory(path.toAbsolutePath().getParent());
+        } catch (IOException e) {
+            library.getListener().error(Code.SNAPSHOT_WRITE_ERROR, e);
+            return Code.SNAPSHOT_WRITE_ERROR;
+        }
+        return Code.SUCCESS;
+    }
+
+    /**
+     * This method forces a directory's entries to disk, so a file created or renamed in it is
+     * still there after a power loss
+     * @param directory the directory
+     * @throws IOException if the directory can't be opened or forced
+     */
+    static void syncDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * This method reads a snapshot into a Library, replacing its books, shelves and readers.
+     * Nothing in the Library changes unless the whole snapshot is read successfully
+     * @param library the Library to load into
+     * @param path the file to read
+     * @return SUCCESS, FILE_NOT_FOUND_ERROR or SNAPSHOT_FORMAT_ERROR
+     */
+    static Code read(Library library, Path path) {
+        CRC32 crc = new CRC32();
+        long size;      // Size of the file, no table can have more entries than this
+        // The checksum sits above the buffer so it only sees the bytes actually read
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE), crc))) {
+            size = Files.size(path);
+            if (in.readInt() != MAGIC) {
+                return Code.SNAPSHOT_FORMAT_ERROR;
+            }
+            // Version 1 snapshots were written before there was a journal
+            short version = in.readShort();
+            if (version < 1 || version > VERSION) {
+                return Code.SNAPSHOT_FORMAT_ERROR;
+            }
+            long generation = version >= 2 ? in.readLong() : 0;
+            int libraryCard = in.readInt();
+
+            String[] strings = new String[readCount(in, size)];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = in.readUTF();
+            }
+
+            Book[] bookTable = new Book[readCount(in, size)];
+            // Linked, so the Library gets its books back in the order they were registered
+            LinkedHashMap<Book, Integer> books = new LinkedHashMap<>(bookTable.length * 2);
+            HashMap<Book, CopyLedger> ledgers = new HashMap<>(bookTable.length * 2);
+            for (int i = 0; i < bookTable.length; i++) {
+                String isbn = strings[in.readInt()];
+                String title = strings[in.readInt()];
+                String subject = strings[in.readInt()];
+                int pageCount = in.readInt();
+                String author = strings[in.readInt()];
+                LocalDate dueDate = toDate(in.readLong());
+                bookTable[i] = new Book(isbn, title, subject, pageCount, author, dueDate);
+                int copies = in.readInt();
+                if (copies >= 0) {
+                    books.put(bookTable[i], copies);
+                    ledgers.put(bookTable[i], new CopyLedger(copies));
+                }
+            }
+
+            int shelfCount = readCount(in, size);
+            HashMap<String, Shelf> shelves = new HashMap<>(shelfCount * 2);
+            for (int i = 0; i < shelfCount; i++) {
+                Shelf shelf = new Shelf();
+                shelf.setShelfNumber(in.readInt());
+                shelf.setSubject(strings[in.readInt()]);
+                int entries = readCount(in, size);
+                HashMap<Book, Integer> shelfBooks = new HashMap<>(entries * 2);
+                for (int j = 0; j < entries; j++) {
+                    Book book = bookTable[in.readInt()];
+                    shelfBooks.put(book, in.readInt());
+                }
+                shelf.setBooks(shelfBooks);
+                shelves.put(SubjectIndex.normalize(shelf.getSubject()), shelf);
+            }
+
+            // Version 3 and older snapshots were written before subjects had aliases
+            HashMap<String, String> aliases = new HashMap<>();
+            if (version >= 4) {
+                int aliasCount = readCount(in, size);
+                for (int i = 0; i < aliasCount; i++) {
+                    aliases.put(strings[in.readInt()], strings[in.readInt()]);
+                }
+            }
+
+            int readerCount = readCount(in, size);
+            List<Reader> readers = new ArrayList<>(readerCount);
+            for (int i = 0; i < readerCount; i++) {
+                Reader reader = new Reader(in.readInt(), strings[in.readInt()], strings[in.readInt()]);
+                // Version 2 and older snapshots were written before readers had their own limit
+                if (version >= 3) {
+                    reader.setLendingLimit(in.readInt());
+                }
+                int loans = readCount(in, size);
+                for (int j = 0; j < loans; j++) {
+                    Book book = bookTable[in.readInt()];
+                    reader.addBook(book);
+                    int dueDay = CopyLedger.toDueDay(toDate(in.readLong()));
+                    CopyLedger ledger = ledgers.get(book);
+                    if (ledger != null) {
+                        ledger.lend(reader.getCardNumber(), dueDay);
+                    }
+                }
+                readers.add(reader);
+            }
+
+            // Check the stored checksum against everything read so far
+            int expected = (int) crc.getValue();
+            if (in.readInt() != expected) {
+                return Code.SNAPSHOT_FORMAT_ERROR;
+            }
+            library.restore(books, ledgers, shelves, aliases, readers, libraryCard, generation);
+        } catch (NoSuchFileException e) {
+            library.getListener().error(Code.FILE_NOT_FOUND_ERROR, path);
+            return Code.FILE_NOT_FOUND_ERROR;
+        } catch (IOException | RuntimeException e) {
+            // Damaged counts, indexes or dates all end up here
+            library.getListener().error(Code.SNAPSHOT_FORMAT_ERROR, e);
+            return Code.SNAPSHOT_FORMAT_ERROR;
+        }
+        return Code.SUCCESS;
+    }
+
+    /**
+     * This method turns a date into the number written for it
+     * @param date the date, or null
+     * @return the epoch day, or NO_DATE if the date is null
+     */
+    static long toEpochDay(LocalDate date) {
+        return date == null ? NO_DATE : date.toEpochDay();
+    }
+
+    /**
+     * This method turns a number written by toEpochDay back into a date
+     * @param epochDay the epoch day, or NO_DATE
+     * @return the date, or null for NO_DATE
+     */
+    static LocalDate toDate(long epochDay) {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    /**
+     * This method reads the size of a table and checks that it could fit in the file
+     * @param in the stream to read from
+     * @param size the size of the file
+     * @return the number of entries in the table
+     * @throws IOException if the count can't be read or doesn't make sense
+     */
+    private static int readCount(DataInputStream in, long size) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > size) {
+            throw new IOException("Bad table size " + count);
+        }
+        return count;
+    }
+
+    /**
+     * This method gives a book and its strings a number if they don't have one yet
+     */
+    private static void addBook(Book book, HashMap<Book, Integer> bookIndex, List<Book> bookTable,
+                                HashMap<String, Integer> strings, List<String> stringTable) {
+        if (bookIndex.putIfAbsent(book, bookTable.size()) == null) {
+            bookTable.add(book);
+            addString(book.getIsbn(), strings, stringTable);
+            addString(book.getTitle(), strings, stringTable);
+            addString(book.getSubject(), strings, stringTable);
+            addString(book.getAuthor(), strings, stringTable);
+        }
+    }
+
+    /**
+     * This method gives a string a number if it doesn't have one yet
+     */
+    private static void addString(String string, HashMap<String, Integer> strings, List<String> stringTable) {
+        if (strings.putIfAbsent(string, stringTable.size()) == null) {
+            stringTable.add(string);
+        }
+    }
+}
@@ -1,14 +1,30 @@
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import com.sun.management.ThreadMXBean;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 /**
  * Title: LibraryTest.java
@@ -63,6 +79,271 @@ class LibraryTest {
         assertEquals(Code.SUCCESS, testLibrary.init("TestLibrary.txt"));
     }
 
+    // Test that initMapped reads the same file format as init and builds the same Library
+    @Test
+    void initMapped() {
+        testLibrary = new Library(name);
+        // Check that calling the method with no file name returns error
+        assertEquals(Code.FILE_NOT_FOUND_ERROR, testLibrary.initMapped("Wrong.csv"));
+
+        // Load the test file both ways and check the books, shelves and readers match
+        assertEquals(Code.SUCCESS, testLibrary.initMapped("TestLibrary.txt"));
+        Library scannedLibrary = new Library(name);
+        scannedLibrary.init("TestLibrary.txt");
+        assertEquals(scannedLibrary.listBooks(), testLibrary.listBooks());
+        assertEquals(scannedLibrary.getShelf("education"), testLibrary.getShelf("education"));
+        assertEquals(0, testLibrary.getShelf("education").getBookCount(testLibrary.getBookByISBN("1234")));
+        assertEquals(scannedLibrary.getReaderByCard(1).getBooks(), testLibrary.getReaderByCard(1).getBooks());
+
+        // Check a file with more copies than checked out books
+        testLibrary = new Library(name);
+        assertEquals(Code.SUCCESS, testLibrary.initMapped("Library01.csv"));
+        assertEquals(5, testLibrary.listBooks());
+        assertEquals(4, testLibrary.getShelf("sci-fi").getBookCount(testLibrary.getBookByISBN("42-w-87")));
+    }
+
+    // Test that parsing the books section in parallel chunks gives the same inventory as
+    // reading it one line at a time
+    @Test
+    void initMappedParallel(@TempDir Path tempDir) throws IOException {
+        // Write a file with enough book lines to be split into several chunks
+        Path file = tempDir.resolve("ParallelLibrary.csv");
+        int bookLines = Library.CHUNK_LINES * 3 + 7;
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println(bookLines);
+            for (int i = 0; i < bookLines; i++) {
+                int title = i % 500;
+                out.println(title + ",Title " + title + ",subject" + (title % 3) + "," + (title + 1) + ",Author,0000");
+            }
+            out.println(3);
+            out.println("1,subject0");
+            out.println("2,subject1");
+            out.println("3,subject2");
+            out.println(1);
+            out.println("1,Test Reader,555-555-5555,1,7,2020-11-15");
+        }
+
+        testLibrary = new Library(name);
+        Library sequentialLibrary = new Library(name);
+        assertEquals(Code.SUCCESS, testLibrary.initMapped(file.toString(), true));
+        assertEquals(Code.SUCCESS, sequentialLibrary.initMapped(file.toString(), false));
+
+        // Catalog order, totals, shelf counts and the reader's books should all match
+        assertEquals(sequentialLibrary.getCatalog(), testLibrary.getCatalog());
+        StringBuilder sequentialPage = new StringBuilder();
+        StringBuilder parallelPage = new StringBuilder();
+        sequentialLibrary.listBooks(null, 5, sequentialPage);
+        testLibrary.listBooks(null, 5, parallelPage);
+        assertEquals(sequentialPage.toString(), parallelPage.toString());
+        assertEquals(bookLines, testLibrary.listBooks());
+        assertEquals(sequentialLibrary.listBooks(), testLibrary.listBooks());
+        for (int title = 0; title < 500; title += 37) {
+            Book book = sequentialLibrary.getBookByISBN(String.valueOf(title));
+            Shelf shelf = sequentialLibrary.getShelf(book.getSubject());
+            assertEquals(shelf.getBookCount(book), testLibrary.getShelf(book.getSubject()).getBookCount(book));
+        }
+        assertEquals(sequentialLibrary.getReaderByCard(1).getBooks(), testLibrary.getReaderByCard(1).getBooks());
+    }
+
+    // Test that a snapshot brings back the same books, shelves and readers and that a
+    // damaged snapshot is rejected without changing the Library
+    @Test
+    void saveSnapshot(@TempDir Path tempDir) throws IOException {
+        testLibrary = new Library(name);
+        testLibrary.init("Library01.csv");
+        Path snapshot = tempDir.resolve("library.snapshot");
+        assertEquals(Code.SUCCESS, testLibrary.saveSnapshot(snapshot));
+
+        // Load into an empty Library and compare against the original
+        Library loadedLibrary = new Library(name);
+        assertEquals(Code.SUCCESS, loadedLibrary.loadSnapshot(snapshot));
+        Book hitchhikers = testLibrary.getBookByISBN("42-w-87");
+        assertEquals(testLibrary.listBooks(), loadedLibrary.listBooks());
+        assertEquals(testLibrary.getShelf("sci-fi"), loadedLibrary.getShelf("sci-fi"));
+        assertEquals(4, loadedLibrary.getShelf("sci-fi").getBookCount(hitchhikers));
+        assertEquals(testLibrary.getReaderByCard(1), loadedLibrary.getReaderByCard(1));
+        assertEquals(testLibrary.getReaderByCard(1).getBooks(), loadedLibrary.getReaderByCard(1).getBooks());
+        Reader loadedReader = loadedLibrary.getReaderByCard(1);
+        assertEquals(LocalDate.of(2020, 10, 12), loadedLibrary.getDueDate(loadedReader, loadedReader.getBooks().get(0)));
+
+        // The loaded Library should work like the original
+        assertEquals(Code.SUCCESS, loadedLibrary.returnBook(loadedLibrary.getReaderByCard(1), hitchhikers));
+        assertEquals(5, loadedLibrary.getShelf("sci-fi").getBookCount(hitchhikers));
+
+        // Damage the snapshot and check it is rejected
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 0x55;
+        Files.write(snapshot, bytes);
+        assertEquals(Code.SNAPSHOT_FORMAT_ERROR, loadedLibrary.loadSnapshot(snapshot));
+        assertEquals(5, loadedLibrary.getShelf("sci-fi").getBookCount(hitchhikers));
+        assertEquals(Code.FILE_NOT_FOUND_ERROR, loadedLibrary.loadSnapshot(tempDir.resolve("missing")));
+    }
+
+    // Test that init reports its sections to the listener and prints nothing itself
+    @Test
+    void quietInit() {
+        List<String> events = new ArrayList<>();
+        PrintStream console = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed));
+        try {
+            testLibrary = new Library(name);
+            testLibrary.setListener(LibraryListener.NONE);
+            assertEquals(Code.SUCCESS, testLibrary.init("Library01.csv"));
+            assertEquals(Code.SUCCESS, testLibrary.initMapped("Library01.csv", true));
+            assertEquals(Code.FILE_NOT_FOUND_ERROR, testLibrary.init("missing.csv"));
+
+            testLibrary = new Library(name);
+            testLibrary.setListener(new LibraryListener() {
+                @Override
+                public void sectionParsing(String section, int count) {
+                    events.add("parsing " + count + " " + section);
+                }
+
+                @Override
+                public void sectionParsed(String section, Code code) {
+                    events.add(section + " " + code);
+                }
+            });
+            assertEquals(Code.SUCCESS, testLibrary.init("Library01.csv"));
+        } finally {
+            System.setOut(console);
+        }
+        assertEquals("", printed.toString());
+        assertEquals(List.of("parsing 5 books", "books SUCCESS", "parsing 1 shelves", "shelves SUCCESS",
+                "readers SUCCESS"), events);
+    }
+
+    // Test that a snapshot keeps the order books were registered in and books and loans
+    // without a due date, and that its errors go to the listener
+    @Test
+    void snapshotOrder(@TempDir Path tempDir) throws IOException {
+        testLibrary = new Library(name);
+        testLibrary.setListener(LibraryListener.NONE);
+        testLibrary.addShelf("sci-fi");
+        for (int i = 0; i < 50; i++) {
+            testLibrary.addBook(new Book("catalog-" + i, "Title " + i, "sci-fi", 10 + i, "Author", LocalDate.now()));
+        }
+        Book undated = new Book("catalog-undated", "Undated", "sci-fi", 10, "Author", null);
+        testLibrary.addBook(undated);
+        Reader reader = new Reader(10, "Branch", "555-0001");
+        testLibrary.addReader(reader);
+        assertEquals(Code.SUCCESS, testLibrary.checkOutBook(reader, undated));
+        Path snapshot = tempDir.resolve("library.snapshot");
+        assertEquals(Code.SUCCESS, testLibrary.saveSnapshot(snapshot));
+
+        Library loadedLibrary = new Library(name);
+        List<Code> errors = new ArrayList<>();
+        loadedLibrary.setListener(new LibraryListener() {
+            @Override
+            public void error(Code code, Object subject) {
+                errors.add(code);
+            }
+        });
+        assertEquals(Code.SUCCESS, loadedLibrary.loadSnapshot(snapshot));
+        StringBuilder expected = new StringBuilder();
+        StringBuilder loaded = new StringBuilder();
+        assertNull(testLibrary.listBooks(null, 100, expected));
+        assertNull(loadedLibrary.listBooks(null, 100, loaded));
+        assertEquals(expected.toString(), loaded.toString());
+        Book loadedUndated = loadedLibrary.getBookByISBN("catalog-undated");
+        assertNull(loadedUndated.getDueDate());
+        Reader loadedReader = loadedLibrary.getReaderByCard(10);
+        assertTrue(loadedReader.hasBook(loadedUndated));
+        assertNull(loadedLibrary.getDueDate(loadedReader, loadedUndated));
+        assertTrue(errors.isEmpty());
+
+        assertEquals(Code.FILE_NOT_FOUND_ERROR, loadedLibrary.loadSnapshot(tempDir.resolve("missing")));
+        assertEquals(List.of(Code.FILE_NOT_FOUND_ERROR), errors);
+    }
+
+    // Test that changes made after openJournal come back when a new Library opens the same
+    // snapshot and journal, including after compaction and with a torn record at the end
+    @Test
+    void openJournal(@TempDir Path tempDir) throws IOException {
+        Path snapshot = tempDir.resolve("library.snapshot");
+        Path journal = tempDir.resolve("library.journal");
+        testLibrary = new Library(name);
+        testLibrary.init("Library01.csv");
+        assertEquals(Code.SUCCESS, testLibrary.openJournal(snapshot, journal));
+        assertEquals(Code.JOURNAL_ERROR, testLibrary.openJournal(snapshot, journal));
+
+        // Make one of each kind of change
+        Book hitchhikers = testLibrary.getBookByISBN("42-w-87");
+        Reader testReader = new Reader(2, "Test Reader 2", "444-444-4444");
+        testLibrary.addReader(testReader);
+        testLibrary.checkOutBook(testReader, hitchhikers);
+        testLibrary.returnBook(testLibrary.getReaderByCard(1), hitchhikers);
+        testLibrary.addBook(new Book("99", "Solaris", "sci-fi", 204, "Stanislaw Lem", LocalDate.now()));
+        testLibrary.addShelf("education");
+        assertEquals(Code.SUCCESS, testLibrary.syncJournal());
+
+        // Open the journal from a new Library as if the first one had crashed
+        Library recoveredLibrary = new Library(name);
+        assertEquals(Code.SUCCESS, recoveredLibrary.openJournal(snapshot, journal));
+        assertEquals(testLibrary.listBooks(), recoveredLibrary.listBooks());
+        assertEquals(4, recoveredLibrary.getShelf("sci-fi").getBookCount(hitchhikers));
+        assertEquals(1, recoveredLibrary.getShelf("sci-fi").getBookCount(recoveredLibrary.getBookByISBN("99")));
+        assertTrue(recoveredLibrary.getReaderByCard(2).hasBook(hitchhikers));
+        assertEquals(0, recoveredLibrary.getReaderByCard(1).getBookCount());
+        assertNotNull(recoveredLibrary.getShelf("education"));
+        assertEquals(Code.SUCCESS, testLibrary.closeJournal());
+
+        // Compact after every two records, then check the result still replays
+        recoveredLibrary.setJournalCompactLimit(2);
+        recoveredLibrary.removeReader(recoveredLibrary.getReaderByCard(1));
+        recoveredLibrary.returnBook(recoveredLibrary.getReaderByCard(2), hitchhikers);
+        recoveredLibrary.checkOutBook(recoveredLibrary.getReaderByCard(2), hitchhikers);
+        assertEquals(Code.SUCCESS, recoveredLibrary.closeJournal());
+
+        // Add half a record to the end of the journal as if a write was cut off
+        Files.write(journal, new byte[] {0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+        testLibrary = new Library(name);
+        assertEquals(Code.SUCCESS, testLibrary.openJournal(snapshot, journal));
+        assertNull(testLibrary.getReaderByCard(1));
+        assertTrue(testLibrary.getReaderByCard(2).hasBook(hitchhikers));
+        assertEquals(4, testLibrary.getShelf("sci-fi").getBookCount(hitchhikers));
+        assertEquals(Code.SUCCESS, testLibrary.closeJournal());
+    }
+
+    // Test that a change is on disk when it returns, that loans without a due date replay, and
+    // that a journal with a damaged header is refused instead of started over
+    @Test
+    void journalDurability(@TempDir Path tempDir) throws IOException {
+        Path snapshot = tempDir.resolve("library.snapshot");
+        Path journal = tempDir.resolve("library.journal");
+        testLibrary = new Library(name);
+        testLibrary.setListener(LibraryListener.NONE);
+        testLibrary.init("Library01.csv");
+        assertEquals(Code.SUCCESS, testLibrary.openJournal(snapshot, journal));
+        Book undated = new Book("catalog-undated", "Undated", "sci-fi", 10, "Author", null);
+        assertEquals(Code.SUCCESS, testLibrary.addBook(undated));
+        Reader reader = new Reader(10, "Branch", "555-0001");
+        assertEquals(Code.SUCCESS, testLibrary.addReader(reader));
+        assertEquals(Code.SUCCESS, testLibrary.checkOutBook(reader, undated));
+
+        // Recover from the files while the first Library still has the journal open
+        Library recoveredLibrary = new Library(name);
+        recoveredLibrary.setListener(LibraryListener.NONE);
+        assertEquals(Code.SUCCESS, recoveredLibrary.openJournal(snapshot, journal));
+        Book recoveredBook = recoveredLibrary.getBookByISBN("catalog-undated");
+        assertNull(recoveredBook.getDueDate());
+        Reader recoveredReader = recoveredLibrary.getReaderByCard(10);
+        assertTrue(recoveredReader.hasBook(recoveredBook));
+        assertNull(recoveredLibrary.getDueDate(recoveredReader, recoveredBook));
+        assertEquals(Code.SUCCESS, recoveredLibrary.closeJournal());
+        assertEquals(Code.SUCCESS, testLibrary.closeJournal());
+
+        // Damage the magic number and check the journal is left alone
+        byte[] bytes = Files.readAllBytes(journal);
+        bytes[0] ^= 0x55;
+        Files.write(journal, bytes);
+        Library damagedLibrary = new Library(name);
+        damagedLibrary.setListener(LibraryListener.NONE);
+        assertEquals(Code.JOURNAL_ERROR, damagedLibrary.openJournal(snapshot, journal));
+        assertArrayEquals(bytes, Files.readAllBytes(journal));
+    }
+
     // Test the addBook method of when a shelf exists or not to return a correct code
     @Test
     void addBook() {
@@ -148,6 +429,28 @@ class LibraryTest {
         assertEquals(testBook2, testLibrary.getBookByISBN("45"));
     }
 
+    // Test that findBookByISBN finds registered books by ISBN and returns empty otherwise
+    @Test
+    void findBookByISBN() {
+        testLibrary = new Library(name);
+        testLibrary.init("TestLibrary.txt");
+        Book testBook2 = new Book("45", "Tester", "education", 55, "Me", LocalDate.now());
+        assertFalse(testLibrary.findBookByISBN("45").isPresent());
+        testLibrary.addBook(testBook2);
+        testLibrary.addBook(testBook2);
+        assertSame(testBook2, testLibrary.findBookByISBN("45").get());
+        assertEquals("Test Book", testLibrary.findBookByISBN("1234").get().getTitle());
+    }
+
+    // Test that findReaderByCard finds registered readers and returns empty otherwise
+    @Test
+    void findReaderByCard() {
+        testLibrary = new Library(name);
+        testLibrary.init("TestLibrary.txt");
+        assertEquals("Test Reader", testLibrary.findReaderByCard(1).get().getName());
+        assertFalse(testLibrary.findReaderByCard(2).isPresent());
+    }
+
     // Test that listBooks returns Success code
     @Test
     void listShelves() {
@@ -341,4 +644,710 @@ class LibraryTest {
 //        System.out.println(testLibrary.getLibraryCardNumber());
 
     }
-}
\ No newline at end of file
+
+    // Test that setListener sends events through the async listener in order, with their Codes
+    @Test
+    void setListener() {
+        testLibrary = new Library(name);
+        List<String> events = new ArrayList<>();
+        LibraryListener recorder = new LibraryListener() {
+            @Override
+            public void bookAdded(Book book, int copies) {
+                events.add("added " + book.getIsbn() + " " + copies);
+            }
+
+            @Override
+            public void bookCheckedOut(Reader reader, Book book) {
+                events.add("checked out " + book.getIsbn());
+            }
+
+            @Override
+            public void error(Code code, Object subject) {
+                events.add(code + " " + subject);
+            }
+        };
+        AsyncLibraryListener async = new AsyncLibraryListener(recorder, 2);
+        testLibrary.setListener(async);
+        assertSame(async, testLibrary.getListener());
+
+        Book book = new Book("42-w-87", "Hitchhikers Guide To the Galaxy", "sci-fi", 42,
+                "Douglas Adams", LocalDate.now());
+        Reader reader = new Reader(1, "Drew Clinkenbeard", "831-582-4007");
+        testLibrary.addShelf("sci-fi");
+        testLibrary.addBook(book);
+        testLibrary.addBook(book);
+        testLibrary.addReader(reader);
+        assertEquals(Code.SUCCESS, testLibrary.checkOutBook(reader, book));
+        assertNull(testLibrary.getBookByISBN("1337"));
+        async.flush();
+        assertEquals(List.of("added 42-w-87 1", "added 42-w-87 2", "checked out 42-w-87",
+                "BOOK_NOT_IN_INVENTORY_ERROR 1337"), events);
+
+        // Events after close are dropped
+        async.close();
+        testLibrary.addBook(book);
+        async.flush();
+        assertEquals(4, events.size());
+    }
+
+    // Test that concurrent checkouts and returns keep every copy accounted for, and that the
+    // journal written meanwhile replays to the same counts
+    @Test
+    void concurrentCheckOutBook(@TempDir Path tempDir) throws Exception {
+        testLibrary = new Library(name);
+        testLibrary.setListener(LibraryListener.NONE);
+        String[] subjects = {"sci-fi", "education", "history", "poetry"};
+        List<Book> testBooks = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            Book book = new Book("c" + i, "Title " + i, subjects[i % subjects.length], 100,
+                    "Author " + i, LocalDate.now());
+            testBooks.add(book);
+            for (int copy = 0; copy < 3; copy++) {
+                testLibrary.addBook(book);
+            }
+        }
+        for (String subject : subjects) {
+            testLibrary.addShelf(subject);
+        }
+        List<Reader> testReaders = new ArrayList<>();
+        for (int i = 1; i <= 12; i++) {
+            Reader reader = new Reader(i, "Reader " + i, "555-555-" + i);
+            testReaders.add(reader);
+            testLibrary.addReader(reader);
+        }
+        Path snapshot = tempDir.resolve("library.snapshot");
+        Path journal = tempDir.resolve("library.journal");
+        assertEquals(Code.SUCCESS, testLibrary.openJournal(snapshot, journal));
+
+        // Each thread checks books out and returns them for its own few readers
+        AtomicInteger failedReturns = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int first = t;
+            threads[t] = new Thread(() -> {
+                Random random = new Random(first);
+                for (int i = 0; i < 5000; i++) {
+                    Reader reader = testReaders.get(first + threads.length * random.nextInt(3));
+                    Book book = testBooks.get(random.nextInt(testBooks.size()));
+                    if (reader.hasBook(book)) {
+                        if (testLibrary.returnBook(reader, book) != Code.SUCCESS) {
+                            failedReturns.incrementAndGet();
+                        }
+                    } else {
+                        testLibrary.checkOutBook(reader, book);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, failedReturns.get());
+
+        // Every copy is either on its shelf or with exactly one reader
+        for (Book book : testBooks) {
+            int loaned = 0;
+            for (Reader reader : testReaders) {
+                loaned += reader.hasBook(book) ? 1 : 0;
+                assertTrue(reader.getBookCount() <= Library.LENDING_LIMIT);
+            }
+            assertEquals(3, testLibrary.getShelf(book.getSubject()).getBookCount(book) + loaned);
+        }
+        assertEquals(Code.SUCCESS, testLibrary.closeJournal());
+
+        Library recoveredLibrary = new Library(name);
+        recoveredLibrary.setListener(LibraryListener.NONE);
+        assertEquals(Code.SUCCESS, recoveredLibrary.openJournal(snapshot, journal));
+        for (Book book : testBooks) {
+            assertEquals(testLibrary.getShelf(book.getSubject()).getBookCount(book),
+                    recoveredLibrary.getShelf(book.getSubject()).getBookCount(book));
+        }
+        assertEquals(Code.SUCCESS, recoveredLibrary.closeJournal());
+    }
+
+    // Test that addBook keeps one frozen Book per ISBN and lends that same object
+    @Test
+    void internBook() {
+        testLibrary = new Library(name);
+        testLibrary.init("TestLibrary.txt");
+        Book first = new Book("45", "Tester", "education", 55, "Me", LocalDate.now());
+        Book second = new Book("45", "Tester", "education", 55, "Me", LocalDate.now());
+        testLibrary.addBook(first);
+        testLibrary.addBook(second);
+        assertTrue(first.isFrozen());
+        assertFalse(second.isFrozen());
+        assertSame(first, testLibrary.getBookByISBN("45"));
+        assertEquals(2, testLibrary.getShelf("education").getBookCount(second));
+
+        Reader reader = testLibrary.getReaderByCard(1);
+        assertEquals(Code.SUCCESS, testLibrary.checkOutBook(reader, second));
+        assertSame(first, reader.getBooks().get(reader.getBookCount() - 1));
+        assertEquals(LocalDate.of(2020, 11, 15), testLibrary.getDueDate(reader, testLibrary.getBookByISBN("1234")));
+    }
+
+    // Test that every copy keeps its own borrower and due date, through a journal replay
+    @Test
+    void copyLedger(@TempDir Path tempDir) {
+        testLibrary = new Library(name);
+        testLibrary.setListener(LibraryListener.NONE);
+        testLibrary.init("Library01.csv");
+        Path snapshot = tempDir.resolve("library.snapshot");
+        Path journal = tempDir.resolve("library.journal");
+        assertEquals(Code.SUCCESS, testLibrary.openJournal(snapshot, journal));
+
+        Book hitchhikers = testLibrary.getBookByISBN("42-w-87");
+        Reader first = new Reader(10, "First", "555-0001");
+        Reader second = new Reader(11, "Second", "555-0002");
+        testLibrary.addReader(first);
+        testLibrary.addReader(second);
+        LocalDate firstDue = LocalDate.of(2026, 11, 1);
+        LocalDate secondDue = LocalDate.of(2026, 11, 8);
+        assertEquals(Code.SUCCESS, testLibrary.checkOutBook(first, hitchhikers, firstDue));
+        assertEquals(Code.SUCCESS, testLibrary.checkOutBook(second, hitchhikers, secondDue));
+        assertEquals(firstDue, testLibrary.getDueDate(first, hitchhikers));
+        assertEquals(secondDue, testLibrary.getDueDate(second, hitchhikers));
+
+        CopyLedger ledger = testLibrary.getCopyLedger(hitchhikers);
+        int copy = ledger.find(second.getCardNumber());
+        assertEquals(secondDue.toEpochDay(), ledger.getDueDay(copy));
+        int onLoan = ledger.getOnLoan();
+        assertEquals(Code.SUCCESS, testLibrary.returnBook(first, hitchhikers));
+        assertNull(testLibrary.getDueDate(first, hitchhikers));
+        assertEquals(onLoan - 1, ledger.getOnLoan());
+        assertEquals(Code.SUCCESS, testLibrary.closeJournal());
+
+        Library recoveredLibrary = new Library(name);
+        recoveredLibrary.setListener(LibraryListener.NONE);
+        assertEquals(Code.SUCCESS, recoveredLibrary.openJournal(snapshot, journal));
+        Reader recovered = recoveredLibrary.getReaderByCard(second.getCardNumber());
+        assertEquals(secondDue, recoveredLibrary.getDueDate(recovered, hitchhikers));
+        assertEquals(onLoan - 1, recoveredLibrary.getCopyLedger(hitchhikers).getOnLoan());
+        assertEquals(Code.SUCCESS, recoveredLibrary.closeJournal());
+    }
+
+    // Test that only registered copies are lent, even when a shelf holds more
+    @Test
+    void copyLedgerLimit() {
+        testLibrary = new Library(name);
+        testLibrary.setListener(LibraryListener.NONE);
+        testLibrary.init("Library01.csv");
+        Book hitchhikers = testLibrary.getBookByISBN("42-w-87");
+        // A copy returned without a reader puts a sixth copy on the shelf
+        assertEquals(Code.SUCCESS, testLibrary.returnBook(hitchhikers));
+        CopyLedger ledger = testLibrary.getCopyLedger(hitchhikers);
+        for (int card = 10; card < 14; card++) {
+            Reader reader = new Reader(card, "Reader " + card, "555-0001");
+            testLibrary.addReader(reader);
+            assertEquals(Code.SUCCESS, testLibrary.checkOutBook(reader, hitchhikers));
+        }
+        Reader last = new Reader(14, "Reader 14", "555-0001");
+        testLibrary.addReader(last);
+        assertEquals(Code.BOOK_NOT_IN_INVENTORY_ERROR, testLibrary.checkOutBook(last, hitchhikers));
+        assertEquals(5, ledger.getCopies());
+        assertEquals(5, ledger.getOnLoan());
+        assertEquals(1, testLibrary.getShelf("sci-fi").getBookCount(hitchhikers));
+        assertEquals(0, last.getBookCount());
+    }
+
+    // Test that checkouts and returns keep the loans in order of their due dates
+    @Test
+    void getLoansDueBy() {
+        testLibrary = new Library(name);
+        testLibrary.setListener(LibraryListener.NONE);
+        testLibrary.init("Library01.csv");
+        int loans = testLibrary.getNextDue(Integer.MAX_VALUE).size();
+        Book hitchhikers = testLibrary.getBookByISBN("42-w-87");
+        Reader reader = new Reader(10, "Reader", "555-0001");
+        testLibrary.addReader(reader);
+        LocalDate due = LocalDate.of(1999, 1, 1);
+        assertEquals(Code.SUCCESS, testLibrary.checkOutBook(reader, hitchhikers, due));
+
+        List<Loan> next = testLibrary.getNextDue(1);
+        assertEquals(1, next.size());
+        assertEquals(new Loan(10, hitchhikers, (int) due.toEpochDay()), next.get(0));
+        assertEquals(next, testLibrary.getLoansDueBy(due));
+        assertEquals(loans + 1, testLibrary.getLoansDueBy(LocalDate.MAX).size());
+
+        assertEquals(Code.SUCCESS, testLibrary.returnBook(reader, hitchhikers));
+        assertTrue(testLibrary.getLoansDueBy(due).isEmpty());
+        assertEquals(loans, testLibrary.getNextDue(Integer.MAX_VALUE).size());
+    }
+
+    // Test that searchBooks matches whole words in titles and authors and ranks rare words higher
+    @Test
+    void searchBooks() {
+        testLibrary = new Library(name);
+        testLibrary.setListener(LibraryListener.NONE);
+        testLibrary.init("Library01.csv");
+        Book guide = new Book("1", "Guide to Birds", "sci-fi", 10, "Ann Lee", LocalDate.now());
+        Book galaxy = new Book("2", "Galaxy Birds", "sci-fi", 10, "Bo Day", LocalDate.now());
+        testLibrary.addBook(guide);
+        testLibrary.addBook(galaxy);
+        Book hitchhikers = testLibrary.getBookByISBN("42-w-87");
+
+        assertEquals(List.of(hitchhikers), testLibrary.searchBooks("douglas GALAXY", true, 10));
+        assertEquals(List.of(hitchhikers, galaxy), testLibrary.searchBooks("galaxy hitchhikers", false, 10));
+        assertEquals(List.of(galaxy), testLibrary.searchBooks("galaxy birds", true, 10));
+        assertEquals(3, testLibrary.searchBooks("guide birds", false, 10).size());
+        assertEquals(1, testLibrary.searchBooks("guide birds", false, 1).size());
+        assertTrue(testLibrary.searchBooks("guide missing", true, 10).isEmpty());
+        assertTrue(testLibrary.searchBooks("gal", false, 10).isEmpty());
+    }
+
+    // Test that completions follow books and readers as they are added and removed
+    @Test
+    void completeBooks() {
+        testLibrary = new Library(name);
+        testLibrary.setListener(LibraryListener.NONE);
+        testLibrary.init("Library01.csv");
+        testLibrary.addBook(new Book("1", "Hitchcock", "sci-fi", 10, "Ann Lee", LocalDate.now()));
+        assertEquals(List.of("Hitchhikers Guide To the Galaxy", "Hitchcock"), testLibrary.completeBooks("hitch", 5));
+        assertEquals(List.of("Hitchhikers Guide To the Galaxy"), testLibrary.completeBooks("H", 1));
+        assertEquals(List.of("Douglas Adams"), testLibrary.completeBooks("doug", 5));
+
+        Reader reader = new Reader(10, "Drew Barrymore", "555-0001");
+        testLibrary.addReader(reader);
+        assertEquals(2, testLibrary.completeReaders("drew", 5).size());
+        testLibrary.removeReader(reader);
+        assertEquals(List.of("Drew Clinkenbeard"), testLibrary.completeReaders("drew", 5));
+    }
+
+    // Test that paging through books, shelves and readers visits each exactly once
+    @Test
+    void listPages() throws IOException {
+        testLibrary = new Library(name);
+        testLibrary.setListener(LibraryListener.NONE);
+        testLibrary.init("Library01.csv");
+        for (int i = 0; i < 6; i++) {
+            testLibrary.addBook(new Book("isbn-" + i, "Title " + i, "sci-fi", 10, "Author", LocalDate.now()));
+            testLibrary.addShelf("subject-" + i);
+            testLibrary.addReader(new Reader(10 + i, "Reader " + i, "555-000" + i));
+        }
+
+        StringBuilder out = new StringBuilder();
+        String cursor = null;
+        int pages = 0;
+        do {
+            cursor = testLibrary.listBooks(cursor, 3, out);
+            pages++;
+        } while (cursor != null);
+        assertEquals(3, pages);
+        assertEquals(7, out.toString().split("\n").length);
+        assertTrue(out.toString().startsWith("5 copies of Hitchhikers"));
+
+        out.setLength(0);
+        cursor = testLibrary.listShelves(false, null, 4, out);
+        assertNull(testLibrary.listShelves(false, cursor, 4, out));
+        assertEquals(7, out.toString().split("\n").length);
+
+        out.setLength(0);
+        cursor = testLibrary.listReaders(null, 5, out);
+        assertNull(testLibrary.listReaders(cursor, 5, out));
+        assertEquals(7, out.toString().split("\n").length);
+        assertThrows(IllegalArgumentException.class, () -> testLibrary.listReaders("b1", 5, new StringBuilder()));
+    }
+
+    // Test that a new shelf takes every registered copy of its subject with one event
+    @Test
+    void addShelfStocksSubject() {
+        testLibrary = new Library(name);
+        testLibrary.setListener(LibraryListener.NONE);
+        testLibrary.init("Library01.csv");
+        Book first = new Book("1", "First", "history", 10, "Ann Lee", LocalDate.now());
+        Book second = new Book("2", "Second", "history", 10, "Ann Lee", LocalDate.now());
+        testLibrary.addBook(first);
+        testLibrary.addBook(first);
+        testLibrary.addBook(second);
+        testLibrary.addBook(new Book("3", "Third", "poetry", 10, "Bo Day", LocalDate.now()));
+
+        List<String> events = new ArrayList<>();
+        testLibrary.setListener(new LibraryListener() {
+            @Override
+            public void bookShelved(Book book, Shelf shelf, int copies) {
+                events.add("shelved " + book.getIsbn());
+            }
+
+            @Override
+            public void shelfStocked(Shelf shelf, int books, int copies) {
+                events.add("stocked " + books + " " + copies);
+            }
+        });
+        assertEquals(Code.SUCCESS, testLibrary.addShelf("history"));
+        assertEquals(List.of("stocked 2 3"), events);
+        Shelf history = testLibrary.getShelf("history");
+        assertEquals(2, history.getBookCount(first));
+        assertEquals(1, history.getBookCount(second));
+    }
+
+    // Test that the running totals follow adds, checkouts, returns and snapshots
+    @Test
+    void runningTotals(@TempDir Path tempDir) {
+        testLibrary = new Library(name);
+        testLibrary.setListener(LibraryListener.NONE);
+        testLibrary.init("Library01.csv");
+        assertEquals(5, testLibrary.getCopyCount());
+        assertEquals(1, testLibrary.getTitleCount());
+        assertEquals(1, testLibrary.getLoanCount());
+        assertEquals(4, testLibrary.getAvailableCount());
+        Shelf sciFi = testLibrary.getShelf("sci-fi");
+        assertEquals(5, sciFi.getCopyCount());
+        assertEquals(1, sciFi.getLoanCount());
+        assertEquals(4, sciFi.getAvailableCount());
+        assertEquals(1, sciFi.getTitleCount());
+
+        testLibrary.addBook(new Book("1", "First", "sci-fi", 10, "Ann Lee", LocalDate.now()));
+        Reader reader = testLibrary.getReaderByCard(1);
+        assertEquals(Code.SUCCESS, testLibrary.checkOutBook(reader, testLibrary.getBookByISBN("1")));
+        assertEquals(6, testLibrary.getCopyCount());
+        assertEquals(2, testLibrary.getTitleCount());
+        assertEquals(2, testLibrary.getLoanCount());
+        assertEquals(6, sciFi.getCopyCount());
+        assertEquals(2, sciFi.getLoanCount());
+        assertEquals(4, sciFi.getAvailableCount());
+        // The only copy of the new book is out, so only one title has a copy on the shelf
+        assertEquals(1, sciFi.getTitleCount());
+
+        assertEquals(Code.SUCCESS, testLibrary.returnBook(reader, testLibrary.getBookByISBN("42-w-87")));
+        assertEquals(1, testLibrary.getLoanCount());
+        assertEquals(5, testLibrary.getAvailableCount());
+        assertEquals(6, sciFi.getCopyCount());
+        assertEquals(5, sciFi.getAvailableCount());
+
+        // A copy returned without a reader is on the shelf, and the totals agree about it
+        assertEquals(Code.SUCCESS, testLibrary.returnBook(testLibrary.getBookByISBN("42-w-87")));
+        assertEquals(6, testLibrary.getAvailableCount());
+        assertEquals(6, sciFi.getAvailableCount());
+        assertEquals(1, sciFi.getLoanCount());
+
+        Path snapshot = tempDir.resolve("library.snapshot");
+        assertEquals(Code.SUCCESS, testLibrary.saveSnapshot(snapshot));
+        Library loadedLibrary = new Library(name);
+        assertEquals(Code.SUCCESS, loadedLibrary.loadSnapshot(snapshot));
+        assertEquals(6, loadedLibrary.getCopyCount());
+        assertEquals(1, loadedLibrary.getLoanCount());
+        assertEquals(6, loadedLibrary.getAvailableCount());
+        assertEquals(7, loadedLibrary.getShelf("sci-fi").getCopyCount());
+        assertEquals(1, loadedLibrary.getShelf("sci-fi").getLoanCount());
+        assertEquals(1, loadedLibrary.getShelf("sci-fi").getTitleCount());
+    }
+
+    // Test that a reader's own lending limit is enforced and survives a journal replay
+    @Test
+    void setLendingLimit(@TempDir Path tempDir) {
+        testLibrary = new Library(name);
+        testLibrary.setListener(LibraryListener.NONE);
+        testLibrary.init("Library01.csv");
+        Path snapshot = tempDir.resolve("library.snapshot");
+        Path journal = tempDir.resolve("library.journal");
+        assertEquals(Code.SUCCESS, testLibrary.openJournal(snapshot, journal));
+        for (int i = 0; i < Library.LENDING_LIMIT + 2; i++) {
+            testLibrary.addBook(new Book("isbn-" + i, "Title " + i, "sci-fi", 10, "Author", LocalDate.now()));
+        }
+        Reader reader = new Reader(10, "Branch", "555-0001");
+        testLibrary.addReader(reader);
+        assertEquals(Code.SUCCESS, testLibrary.setLendingLimit(reader, Library.LENDING_LIMIT + 1));
+        assertEquals(Code.READER_NOT_IN_LIBRARY_ERROR,
+                testLibrary.setLendingLimit(new Reader(99, "Nobody", "555-0002"), 1));
+        for (int i = 0; i < Library.LENDING_LIMIT + 1; i++) {
+            assertEquals(Code.SUCCESS, testLibrary.checkOutBook(reader, testLibrary.getBookByISBN("isbn-" + i)));
+        }
+        assertEquals(Code.BOOK_LIMIT_REACHED_ERROR, testLibrary.checkOutBook(reader,
+                testLibrary.getBookByISBN("isbn-" + (Library.LENDING_LIMIT + 1))));
+        assertEquals(Code.SUCCESS, testLibrary.closeJournal());
+
+        Library recoveredLibrary = new Library(name);
+        recoveredLibrary.setListener(LibraryListener.NONE);
+        assertEquals(Code.SUCCESS, recoveredLibrary.openJournal(snapshot, journal));
+        Reader recovered = recoveredLibrary.getReaderByCard(10);
+        assertEquals(Library.LENDING_LIMIT + 1, recovered.getLendingLimit());
+        assertEquals(Library.LENDING_LIMIT + 1, recovered.getBookCount());
+        assertEquals(Code.SUCCESS, recoveredLibrary.checkpoint());
+        assertEquals(Code.SUCCESS, recoveredLibrary.closeJournal());
+
+        Library loadedLibrary = new Library(name);
+        assertEquals(Code.SUCCESS, loadedLibrary.loadSnapshot(snapshot));
+        assertEquals(Library.LENDING_LIMIT + 1, loadedLibrary.getReaderByCard(10).getLendingLimit());
+    }
+
+    // Test that shelves are found by subject in any case or punctuation, by number and by alias,
+    // and that aliases come back from the journal and the snapshot
+    @Test
+    void subjectIndex(@TempDir Path tempDir) {
+        testLibrary = new Library(name);
+        testLibrary.setListener(LibraryListener.NONE);
+        testLibrary.init("Library01.csv");
+        Path snapshot = tempDir.resolve("library.snapshot");
+        Path journal = tempDir.resolve("library.journal");
+        assertEquals(Code.SUCCESS, testLibrary.openJournal(snapshot, journal));
+        Shelf shelf = testLibrary.getShelf("sci-fi");
+        assertSame(shelf, testLibrary.getShelf("Sci-Fi"));
+        assertSame(shelf, testLibrary.getShelf(" SCIFI "));
+        assertSame(shelf, testLibrary.getShelf(1));
+        assertNull(testLibrary.getShelf("Science Fiction"));
+
+        // A book filed under another spelling goes on the same shelf and can be checked out
+        Book spelled = new Book("spelled-1", "Dune", "Sci-Fi", 412, "Frank Herbert", LocalDate.now());
+        assertEquals(Code.SUCCESS, testLibrary.addBook(spelled));
+        assertEquals(1, shelf.getBookCount(spelled));
+        Reader reader = new Reader(10, "Branch", "555-0001");
+        testLibrary.addReader(reader);
+        assertEquals(Code.SUCCESS, testLibrary.checkOutBook(reader, spelled));
+
+        // An alias sends a different subject to the shelf
+        assertEquals(Code.SUCCESS, testLibrary.addSubjectAlias("Science Fiction", "sci-fi"));
+        assertSame(shelf, testLibrary.getShelf("science fiction"));
+        Book aliased = new Book("aliased-1", "Solaris", "Science Fiction", 204, "Stanislaw Lem", LocalDate.now());
+        assertEquals(Code.SUCCESS, testLibrary.addBook(aliased));
+        assertEquals(1, shelf.getBookCount(aliased));
+        assertEquals(Code.SUCCESS, testLibrary.closeJournal());
+
+        Library recoveredLibrary = new Library(name);
+        recoveredLibrary.setListener(LibraryListener.NONE);
+        assertEquals(Code.SUCCESS, recoveredLibrary.openJournal(snapshot, journal));
+        assertNotNull(recoveredLibrary.getShelf("Science Fiction"));
+        assertEquals(1, recoveredLibrary.getShelf("SCI-FI").getBookCount(aliased));
+        assertEquals(Code.SUCCESS, recoveredLibrary.checkpoint());
+        assertEquals(Code.SUCCESS, recoveredLibrary.closeJournal());
+
+        Library loadedLibrary = new Library(name);
+        assertEquals(Code.SUCCESS, loadedLibrary.loadSnapshot(snapshot));
+        assertEquals(1, loadedLibrary.getShelf("science fiction").getBookCount(aliased));
+    }
+
+    // Test that shelves added by subject from many threads at once all get their own number
+    @Test
+    void concurrentShelfNumbers() throws InterruptedException {
+        testLibrary = new Library(name);
+        testLibrary.setListener(LibraryListener.NONE);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    testLibrary.addShelf("subject-" + thread + "-" + i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400, testLibrary.getShelves().size());
+        for (Shelf shelf : testLibrary.getShelves().values()) {
+            assertSame(shelf, testLibrary.getShelf(shelf.getShelfNumber()));
+        }
+    }
+
+    // Test that a subject has one shelf whatever its spelling, and that aliasing a subject with
+    // its own shelf moves that shelf's copies and loans to the subject's shelf
+    @Test
+    void shelfPerSubject(@TempDir Path tempDir) {
+        testLibrary = new Library(name);
+        testLibrary.setListener(LibraryListener.NONE);
+        testLibrary.init("Library01.csv");
+        Shelf sciFi = testLibrary.getShelf("sci-fi");
+        assertEquals(Code.SHELF_EXISTS_ERROR, testLibrary.addShelf("Sci-Fi"));
+        assertEquals(5, sciFi.getCopyCount());
+        assertEquals(4, testLibrary.getAvailableCount());
+        assertEquals(1, testLibrary.getShelves().size());
+
+        Book dune = new Book("dune-1", "Dune", "Science Fiction", 412, "Frank Herbert", LocalDate.now());
+        testLibrary.addBook(dune);
+        testLibrary.addBook(dune);
+        assertEquals(Code.SUCCESS, testLibrary.addShelf("Science Fiction"));
+        Shelf scienceFiction = testLibrary.getShelf("science fiction");
+        int number = scienceFiction.getShelfNumber();
+        Reader reader = testLibrary.getReaderByCard(1);
+        assertEquals(Code.SUCCESS, testLibrary.checkOutBook(reader, dune));
+        assertEquals(5, testLibrary.getAvailableCount());
+
+        // With no shelf for the subject there is nowhere to move the copies
+        assertEquals(Code.SHELF_EXISTS_ERROR, testLibrary.addSubjectAlias("Science Fiction", "horror"));
+        assertSame(scienceFiction, testLibrary.getShelf("Science Fiction"));
+
+        Path snapshot = tempDir.resolve("library.snapshot");
+        Path journal = tempDir.resolve("library.journal");
+        assertEquals(Code.SUCCESS, testLibrary.openJournal(snapshot, journal));
+        assertEquals(Code.SUCCESS, testLibrary.addSubjectAlias("Science Fiction", "sci-fi"));
+        assertSame(sciFi, testLibrary.getShelf("Science Fiction"));
+        assertNull(testLibrary.getShelf(number));
+        assertEquals(1, testLibrary.getShelves().size());
+        assertEquals(1, sciFi.getBookCount(dune));
+        assertEquals(7, sciFi.getCopyCount());
+        assertEquals(2, sciFi.getLoanCount());
+        assertEquals(5, testLibrary.getAvailableCount());
+        assertEquals(Code.SHELF_EXISTS_ERROR, testLibrary.addShelf("science-fiction"));
+        // A subject that is an alias is found under its subject, so it can't have a shelf
+        assertEquals(Code.SUCCESS, testLibrary.addSubjectAlias("Space Opera", "horror"));
+        assertEquals(Code.SHELF_SUBJECT_MISMATCH_ERROR, testLibrary.addShelf("Space Opera"));
+        assertEquals(Code.SUCCESS, testLibrary.returnBook(reader, dune));
+        assertEquals(2, sciFi.getBookCount(dune));
+        assertEquals(Code.SUCCESS, testLibrary.closeJournal());
+
+        Library recoveredLibrary = new Library(name);
+        recoveredLibrary.setListener(LibraryListener.NONE);
+        assertEquals(Code.SUCCESS, recoveredLibrary.openJournal(snapshot, journal));
+        assertEquals(1, recoveredLibrary.getShelves().size());
+        assertEquals(2, recoveredLibrary.getShelf("Science Fiction").getBookCount(dune));
+        assertEquals(6, recoveredLibrary.getAvailableCount());
+        assertEquals(Code.SUCCESS, recoveredLibrary.closeJournal());
+    }
+
+    // Test that books are found by any spelling of their ISBN, and that a number with a wrong
+    // check digit is kept as a catalog number
+    @Test
+    void isbnLookup() {
+        testLibrary = new Library(name);
+        testLibrary.setListener(LibraryListener.NONE);
+        testLibrary.init("Library01.csv");
+        Book book = new Book("0-306-40615-2", "Signals", "sci-fi", 300, "Author", LocalDate.now());
+        assertEquals(Code.SUCCESS, testLibrary.addBook(book));
+        assertSame(book, testLibrary.getBookByISBN("978-0-306-40615-7"));
+        assertSame(book, testLibrary.findBookByISBN("0306406152").orElse(null));
+        assertNotNull(testLibrary.getBookByISBN("42-w-87"));
+        assertTrue(testLibrary.findBookByISBN("42w87").isEmpty());
+
+        Book legacy = new Book("0-306-40615-3", "Signals", "sci-fi", 300, "Author", LocalDate.now());
+        assertEquals(Code.SUCCESS, testLibrary.addBook(legacy));
+        assertSame(legacy, testLibrary.getBookByISBN("0-306-40615-3"));
+        assertEquals(1, testLibrary.getBooks().get(book));
+        // A hyphenated and an unhyphenated spelling are the same registered book
+        assertEquals(Code.SUCCESS, testLibrary.addBook(new Book("9780306406157", "Signals", "sci-fi", 300, "Author", LocalDate.now())));
+        assertEquals(2, testLibrary.getBooks().get(book));
+
+        Reader reader = new Reader(4000, "Branch", "555-0001");
+        assertEquals(Code.SUCCESS, testLibrary.addReader(reader));
+        assertSame(reader, testLibrary.getReaderByCard(4000));
+        assertEquals(Code.SUCCESS, testLibrary.checkOutBook(reader, book));
+    }
+
+    // Test that once warmed up, checking a book out and returning it allocates nothing on the
+    // calling thread, so a change that adds an allocation to either path fails here
+    @Test
+    void checkOutAllocationFree() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean);
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        testLibrary = new Library(name);
+        testLibrary.setListener(LibraryListener.NONE);
+        testLibrary.init("Library01.csv");
+        Book book = new Book("978-0-306-40615-7", "Signals", "Sci-Fi", 300, "Author", LocalDate.now());
+        testLibrary.addBook(book);
+        testLibrary.addBook(book);
+        Reader reader = new Reader(5000, "Branch", "555-0001");
+        testLibrary.addReader(reader);
+        long loans = testLibrary.getLoanCount();
+        // A Book equal to the registered one, as a caller that read it from elsewhere would pass
+        Book request = new Book("978-0-306-40615-7", "Signals", "Sci-Fi", 300, "Author", LocalDate.now());
+
+        long threadId = Thread.currentThread().getId();
+        int iterations = 20000;
+        long allocated = 0;
+        for (int round = 0; round < 3; round++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < iterations; i++) {
+                if (testLibrary.checkOutBook(reader, request) != Code.SUCCESS
+                        || testLibrary.returnBook(reader, request) != Code.SUCCESS) {
+                    fail("checkout or return failed on iteration " + i);
+                }
+            }
+            allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        }
+        // Allow for the bean's own bookkeeping, far less than one object per call
+        assertTrue(allocated < 4096, allocated + " bytes allocated by " + iterations + " checkouts and returns");
+        assertEquals(loans, testLibrary.getLoanCount());
+        assertEquals(2, testLibrary.getShelf("sci-fi").getBookCount(book));
+    }
+
+    // Test that the column reports follow books, checkouts and returns, and a snapshot
+    @Test
+    void catalogReports(@TempDir Path tempDir) {
+        testLibrary = new Library(name);
+        testLibrary.setListener(LibraryListener.NONE);
+        testLibrary.init("Library01.csv");
+        // Library01 has 5 copies of a 42 page sci-fi book, one of them checked out
+        assertEquals(210L, testLibrary.getPagesBySubject().get("sci-fi"));
+        assertEquals(5L, testLibrary.getCopiesByAuthor().get("Douglas Adams"));
+        assertEquals(42, testLibrary.getAveragePagesOnLoan());
+
+        Book book = new Book("978-0-306-40615-7", "Signals", "SCI-FI", 300, "Douglas Adams", LocalDate.now());
+        testLibrary.addBook(book);
+        Reader reader = new Reader(10, "Branch", "555-0001");
+        testLibrary.addReader(reader);
+        assertEquals(Code.SUCCESS, testLibrary.checkOutBook(reader, book));
+        assertEquals(510L, testLibrary.getPagesBySubject().get("sci-fi"));
+        assertEquals(6L, testLibrary.getCopiesByAuthor().get("Douglas Adams"));
+        assertEquals(171, testLibrary.getAveragePagesOnLoan());
+        // The csv's copies have the default 1970 due date, the new one is due today
+        assertEquals(5, testLibrary.getCopiesDueBy(LocalDate.of(2000, 1, 1)));
+        assertEquals(6, testLibrary.getCopiesDueBy(LocalDate.now()));
+
+        Path snapshot = tempDir.resolve("library.snapshot");
+        assertEquals(Code.SUCCESS, testLibrary.saveSnapshot(snapshot));
+        assertEquals(Code.SUCCESS, testLibrary.returnBook(reader, book));
+        assertEquals(42, testLibrary.getAveragePagesOnLoan());
+
+        Library loadedLibrary = new Library(name);
+        assertEquals(Code.SUCCESS, loadedLibrary.loadSnapshot(snapshot));
+        // Both spellings of the subject are still counted together
+        assertEquals(List.of(510L), new ArrayList<>(loadedLibrary.getPagesBySubject().values()));
+        assertEquals(171, loadedLibrary.getAveragePagesOnLoan());
+    }
+
+    // Test that a book without a due date can be registered, reported on and checked out
+    @Test
+    void undatedBook() {
+        testLibrary = new Library(name);
+        testLibrary.setListener(LibraryListener.NONE);
+        testLibrary.init("Library01.csv");
+        Book undated = new Book("1-84356-028-3", "Undated", "sci-fi", 10, "Anon", null);
+        assertEquals(Code.SUCCESS, testLibrary.addBook(undated));
+        assertEquals(6, testLibrary.getCopyCount());
+        assertEquals(5, testLibrary.getCopiesDueBy(LocalDate.of(9999, 1, 1)));
+        assertSame(undated, testLibrary.getBookByISBN("1843560283"));
+
+        Reader reader = new Reader(10, "Branch", "555-0001");
+        testLibrary.addReader(reader);
+        assertEquals(Code.SUCCESS, testLibrary.checkOutBook(reader, undated));
+        assertNull(testLibrary.getDueDate(reader, undated));
+        List<Loan> loans = testLibrary.getNextDue(Integer.MAX_VALUE);
+        assertSame(undated, loans.get(loans.size() - 1).getBook());
+        assertNull(loans.get(loans.size() - 1).getDueDate());
+        assertEquals(26, testLibrary.getAveragePagesOnLoan());
+        assertEquals(Code.SUCCESS, testLibrary.returnBook(reader, undated));
+    }
+
+    // Test queries over the books, shelves, readers and loans of a Library
+    @Test
+    void query() {
+        testLibrary = new Library(name);
+        testLibrary.setListener(LibraryListener.NONE);
+        testLibrary.init("Library01.csv");
+        testLibrary.addShelf("horror");
+        Book dracula = new Book("978-0-306-40615-7", "Dracula", "horror", 300, "Stoker", LocalDate.now());
+        testLibrary.addBook(dracula);
+        testLibrary.addBook(dracula);
+        Reader reader = new Reader(10, "Branch", "555-0001");
+        testLibrary.addReader(reader);
+        testLibrary.checkOutBook(reader, dracula);
+
+        Map<String, LibraryQuery.Stats> pages = testLibrary.queryBooks()
+                .groupBy(holding -> holding.getBook().getSubject(),
+                        holding -> (long) holding.getBook().getPageCount() * holding.getCopies());
+        assertEquals(210, pages.get("sci-fi").getSum());
+        assertEquals(600, pages.get("horror").getSum());
+        assertEquals(List.of(dracula), testLibrary.queryBooks().filter(holding -> holding.getOnLoan() > 0)
+                .filter(holding -> holding.getBook().getPageCount() > 100)
+                .top(5, Holding::getOnLoan).stream().map(Holding::getBook).collect(Collectors.toList()));
+
+        assertEquals(5, testLibrary.queryShelves().aggregate(Shelf::getAvailableCount).getSum());
+        assertEquals(2, testLibrary.queryReaders().filter(r -> r.getBookCount() > 0).count());
+        Map<Integer, LibraryQuery.Stats> loans = testLibrary.queryLoans()
+                .groupBy(Loan::getCardNumber, loan -> loan.getBook().getPageCount());
+        assertEquals(300, loans.get(10).getMax());
+        assertEquals(42, loans.get(1).getMin());
+    }
+}
@@ -0,0 +1,87 @@
+import java.time.LocalDate;
+
+/**
+ * Title: Loan.java
+ * Author: Nicholas Fotinakes
+ * Description: This class is a read only record of one copy of a Book checked out by a Reader,
+ * with the day it is due back. Loans are equal when they are for the same reader, book and
+ * due day.
+ * Date: 10/18/2026
+ */
+public final class Loan {
+
+    private final int cardNumber;   // Card number of the reader who has the copy
+    private final Book book;        // The registered Book checked out
+    private final int dueDay;       // Due date as an epoch day, or CopyLedger.NO_DUE_DAY
+
+    /**
+     * Loan constructor
+     * @param cardNumber the card number of the reader
+     * @param book the book checked out
+     * @param dueDay the due date as an epoch day
+     */
+    public Loan(int cardNumber, Book book, int dueDay) {
+        this.cardNumber = cardNumber;
+        this.book = book;
+        this.dueDay = dueDay;
+    }
+
+    /**
+     * This method returns the card number of the reader who has the copy
+     * @return the card number
+     */
+    public int getCardNumber() {
+        return cardNumber;
+    }
+
+    /**
+     * This method returns the book checked out
+     * @return the Book
+     */
+    public Book getBook() {
+        return book;
+    }
+
+    /**
+     * This method returns the due date as an epoch day
+     * @return the due day
+     */
+    public int getDueDay() {
+        return dueDay;
+    }
+
+    /**
+     * This method returns the due date
+     * @return the due date, or null if the loan has no due date
+     */
+    public LocalDate getDueDate() {
+        return CopyLedger.toDueDate(dueDay);
+    }
+
+    /**
+     * Overridden equals method to check loan equality
+     * @param o the other Loan to check
+     * @return true or false if equal or not
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Loan loan = (Loan) o;
+        return cardNumber == loan.cardNumber && dueDay == loan.dueDay && book.equals(loan.book);
+    }
+
+    @Override
+    public int hashCode() {
+        return (cardNumber * 31 + dueDay) * 31 + book.hashCode();
+    }
+
+    /**
+     * Overridden toString method to return formatted Loan output
+     * @return the reader's card number, the book and the due date
+     */
+    @Override
+    public String toString() {
+        return "#" + cardNumber + " has " + book + " due " + getDueDate();
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * Title: LongMap.java
+ * Author: Nicholas Fotinakes
+ * Description: This class is a hash map from long keys to values that keeps its keys in a long
+ * array instead of boxing them. Collisions are handled by open addressing: a key that finds its
+ * slot taken goes in the next free slot, and a removal shifts later keys back so a lookup can
+ * stop at the first empty slot. Lookups allocate nothing. Null values aren't allowed, an empty
+ * slot is one with no value.
+ * The map is not thread safe, but lookups only read, so any number of them can run together
+ * while nothing changes the map.
+ * Date: 10/18/2026
+ */
+public class LongMap<V> {
+
+    private static final int MIN_CAPACITY = 16;   // Smallest table length, a power of two
+
+    private long[] keys;        // Keys by slot
+    private Object[] values;    // Values by slot, null for an empty slot
+    private int size;           // Number of keys in the map
+    private int shift;          // 64 less the log of the table length, for hashing a key to a slot
+
+    /**
+     * Constructor for an empty map
+     */
+    public LongMap() {
+        this(0);
+    }
+
+    /**
+     * Constructor for an empty map that can hold some keys before it grows
+     * @param expected the number of keys expected
+     */
+    public LongMap(int expected) {
+        int capacity = MIN_CAPACITY;
+        // Keep the table no more than three quarters full
+        while (capacity * 3 / 4 < expected) {
+            capacity *= 2;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * This method returns the value for a key
+     * @param key the key
+     * @return the value, or null if the key isn't in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key); values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * This method puts a value in the map, replacing the value for the key if there is one
+     * @param key the key
+     * @param value the value, not null
+     * @return the value replaced, or null if the key is new
+     */
+    public V put(long key, V value) {
+        return put(key, value, true);
+    }
+
+    /**
+     * This method puts a value in the map only if the key isn't in it yet
+     * @param key the key
+     * @param value the value, not null
+     * @return the value already in the map, or null if the value was put
+     */
+    public V putIfAbsent(long key, V value) {
+        return put(key, value, false);
+    }
+
+    /**
+     * This method removes a key and its value
+     * @param key the key
+     * @return the value removed, or null if the key isn't in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int mask = keys.length - 1;
+        int slot = slot(key);
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        V removed = (V) values[slot];
+        if (removed == null) {
+            return null;
+        }
+        // Move back any later key that can't be found past the slot being emptied
+        int empty = slot;
+        for (int next = (empty + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - empty) & mask)) {
+                keys[empty] = keys[next];
+                values[empty] = values[next];
+                empty = next;
+            }
+        }
+        values[empty] = null;
+        size--;
+        return removed;
+    }
+
+    /**
+     * This method returns the number of keys in the map
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This method puts a value in the map
+     * @param key the key
+     * @param value the value, not null
+     * @param replace true to replace the value of a key that is already in the map
+     * @return the value that was in the map, or null if the key is new
+     */
+    @SuppressWarnings("unchecked")
+    private V put(long key, V value, boolean replace) {
+        if (value == null) {
+            throw new NullPointerException("LongMap values can't be null");
+        }
+        int mask = keys.length - 1;
+        int slot = slot(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V old = (V) values[slot];
+                if (replace) {
+                    values[slot] = value;
+                }
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length * 3 / 4) {
+            grow();
+        }
+        return null;
+    }
+
+    /**
+     * This method doubles the table and puts every key back in it
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(keys.length * 2);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slot(oldKeys[i]);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * This method makes empty arrays for a table
+     * @param capacity the table length, a power of two
+     */
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    /**
+     * This method returns the slot a key is looked for first, spreading keys that differ only
+     * in their low digits across the table
+     * @param key the key
+     * @return the slot
+     */
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+}
@@ -0,0 +1,51 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Title: LongMapTest.java
+ * Author: Nicholas Fotinakes
+ * Abstract: Test file for the LongMap.java class
+ * Date: 10/18/2026
+ */
+class LongMapTest {
+
+    // Test put, putIfAbsent, get and remove on a few keys
+    @Test
+    void put() {
+        LongMap<String> map = new LongMap<>();
+        assertNull(map.put(9780306406157L, "a"));
+        assertEquals("a", map.putIfAbsent(9780306406157L, "b"));
+        assertEquals("a", map.put(9780306406157L, "c"));
+        assertEquals("c", map.get(9780306406157L));
+        assertNull(map.get(9780306406158L));
+        assertEquals(1, map.size());
+        assertEquals("c", map.remove(9780306406157L));
+        assertNull(map.remove(9780306406157L));
+        assertEquals(0, map.size());
+        assertThrows(NullPointerException.class, () -> map.put(1, null));
+    }
+
+    // Test that the map agrees with a HashMap through growth and many removals
+    @Test
+    void matchesHashMap() {
+        LongMap<Long> map = new LongMap<>();
+        HashMap<Long, Long> expected = new HashMap<>();
+        Random random = new Random(22);
+        for (int i = 0; i < 20000; i++) {
+            long key = 9780000000000L + random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (long key = 9780000000000L; key < 9780000005000L; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+}
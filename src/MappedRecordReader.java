@@ -0,0 +1,356 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * Title: MappedRecordReader.java
+ * Author: Nicholas Fotinakes
+ * Description: This class reads a Library file through a memory mapped window instead of a
+ * Scanner. It walks one line (record) at a time and scans the comma separated fields in place,
+ * so no line String or String[] is built for a record. Only the fields that end up inside a
+ * Book, Shelf or Reader are turned into Strings.
+ * Date: 10/18/2026
+ */
+class MappedRecordReader implements Closeable {
+
+    public static final int WINDOW_SIZE = 1 << 30;  // Largest slice of the file mapped at once
+    private static final byte COMMA = ',';
+    private static final byte NEW_LINE = '\n';
+    private static final byte RETURN = '\r';
+
+    private final FileChannel channel;  // Channel of the file being read
+    private final boolean ownsChannel;  // True if closing this reader closes the channel
+    private final long end;             // File offset just past the last byte this reader reads
+    private final int windowSize;       // Size of the windows mapped from the file
+    private MappedByteBuffer window;    // The currently mapped slice of the file
+    private long windowStart;           // File offset of the first byte in window
+    private int next;                   // Window index where the next record starts
+    private int fieldStart;             // Window index of the current field
+    private int lineEnd;                // Window index just past the current record (no line break)
+    private byte[] scratch;             // Reusable buffer used to copy field bytes into Strings
+
+    /**
+     * Constructor opens the file and maps the first window of it
+     * @param path the file to read
+     * @throws IOException if the file can't be opened or mapped
+     */
+    public MappedRecordReader(Path path) throws IOException {
+        this(path, WINDOW_SIZE);
+    }
+
+    /**
+     * Constructor opens the file and maps the first window of it using a set window size
+     * @param path the file to read
+     * @param windowSize the number of bytes to map at once, must hold the longest line
+     * @throws IOException if the file can't be opened or mapped
+     */
+    MappedRecordReader(Path path, int windowSize) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ), true, 0, -1, windowSize);
+    }
+
+    /**
+     * Constructor maps the first window of a range of an open channel
+     * @param channel the channel of the file to read
+     * @param ownsChannel true if closing this reader should close the channel
+     * @param start file offset of the first record to read
+     * @param end file offset just past the range, or -1 to read to the end of the file
+     * @param windowSize the number of bytes to map at once, must hold the longest line
+     * @throws IOException if the channel can't be mapped
+     */
+    private MappedRecordReader(FileChannel channel, boolean ownsChannel, long start, long end,
+                               int windowSize) throws IOException {
+        this.channel = channel;
+        this.ownsChannel = ownsChannel;
+        this.end = end < 0 ? channel.size() : end;
+        this.windowSize = windowSize;
+        this.scratch = new byte[128];
+        map(start);
+    }
+
+    /**
+     * This method creates a reader over a range of the same file. The range should start at the
+     * beginning of a record. Closing the new reader leaves this reader's file open
+     * @param from file offset of the first record in the range
+     * @param to file offset just past the range
+     * @return a new MappedRecordReader for the range
+     * @throws IOException if the file can't be mapped
+     */
+    public MappedRecordReader slice(long from, long to) throws IOException {
+        return new MappedRecordReader(channel, false, from, to, windowSize);
+    }
+
+    /**
+     * This method moves to the next record (line) of the file. If the line runs past the end of
+     * the mapped window the window is moved so that it starts at the line
+     * @return true if a record was found, false at the end of the file
+     * @throws IOException if the file can't be mapped or a line is longer than the window
+     */
+    public boolean nextRecord() throws IOException {
+        if (windowStart + next >= end) {
+            return false;
+        }
+        int end = findLineBreak(next);
+        // Line crosses the end of the window, so map a new window starting at this line
+        if (end < 0) {
+            map(windowStart + next);
+            end = findLineBreak(0);
+            if (end < 0) {
+                throw new IOException("Line at offset " + windowStart + " is longer than " + windowSize + " bytes");
+            }
+        }
+        fieldStart = next;
+        next = end < window.limit() ? end + 1 : end;
+        // Drop a trailing carriage return the same way Scanner.nextLine does
+        lineEnd = (end > fieldStart && window.get(end - 1) == RETURN) ? end - 1 : end;
+        return true;
+    }
+
+    /**
+     * This method checks if the current record still has a field left to read
+     * @return true if another field is left
+     */
+    public boolean hasMoreFields() {
+        return fieldStart < lineEnd;
+    }
+
+    /**
+     * This method reads the next field as a String
+     * @return the field value
+     */
+    public String readString() {
+        int end = fieldEnd();
+        String value = decode(fieldStart, end);
+        skipField(end);
+        return value;
+    }
+
+    /**
+     * This method reads the next field as an integer. Fields that aren't plain digits are handed
+     * to Integer.parseInt so the same exception is thrown as when parsing a split line
+     * @return the field value
+     */
+    public int readInt() {
+        int end = fieldEnd();
+        int value = parseDigits(fieldStart, end);
+        if (value < 0) {
+            value = Integer.parseInt(decode(fieldStart, end));
+        }
+        skipField(end);
+        return value;
+    }
+
+    /**
+     * This method reads the next field as an integer. Fields that aren't plain digits are handed
+     * to the Library's convertInt so errors are reported the same way
+     * @param library the Library used to convert fields that aren't plain digits
+     * @param code the Code associated with the value being converted
+     * @return the field value or the int value of the error Code
+     */
+    public int readInt(Library library, Code code) {
+        int end = fieldEnd();
+        int value = parseDigits(fieldStart, end);
+        if (value < 0) {
+            value = library.convertInt(decode(fieldStart, end), code);
+        }
+        skipField(end);
+        return value;
+    }
+
+    /**
+     * This method reads the whole record as a single integer, used for the section counts
+     * @param library the Library used to convert a line that isn't plain digits
+     * @param code the Code associated with the value being converted
+     * @return the line value or the int value of the error Code
+     */
+    public int readLineInt(Library library, Code code) {
+        int value = parseDigits(fieldStart, lineEnd);
+        if (value < 0) {
+            value = library.convertInt(decode(fieldStart, lineEnd), code);
+        }
+        fieldStart = lineEnd;
+        return value;
+    }
+
+    /**
+     * This method reads the next field as a date. The "0000" and yyyy-mm-dd forms are read
+     * straight from the bytes, anything else is handed to the Library's convertDate
+     * @param library the Library used to convert dates in other forms
+     * @param code the Code associated with date conversion
+     * @return the LocalDate
+     */
+    public LocalDate readDate(Library library, Code code) {
+        int end = fieldEnd();
+        LocalDate date = parseDate(fieldStart, end);
+        if (date == null) {
+            date = library.convertDate(decode(fieldStart, end), code);
+        }
+        skipField(end);
+        return date;
+    }
+
+    /**
+     * This method moves past a number of records without reading their fields
+     * @param count the number of records to skip
+     * @return the number of records skipped, less than count if the end was reached
+     * @throws IOException if the file can't be mapped
+     */
+    public int skipRecords(int count) throws IOException {
+        int skipped = 0;
+        while (skipped < count && nextRecord()) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * This method returns the file offset where the next record starts
+     * @return the offset in bytes
+     */
+    public long position() {
+        return windowStart + next;
+    }
+
+    /**
+     * This method moves the reader to a file offset, which must be the start of a record
+     * @param offset the offset in bytes
+     * @throws IOException if the file can't be mapped
+     */
+    public void seek(long offset) throws IOException {
+        if (offset >= windowStart && offset <= windowStart + window.limit()) {
+            next = (int) (offset - windowStart);
+            fieldStart = next;
+            lineEnd = next;
+        } else {
+            map(offset);
+        }
+    }
+
+    /**
+     * Closes the channel if this reader opened it. The mapped window is released when it is
+     * garbage collected
+     * @throws IOException if the channel can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (ownsChannel) {
+            channel.close();
+        }
+    }
+
+    /**
+     * This method maps a window of the file starting at an offset
+     * @param offset the file offset to start the window at
+     * @throws IOException if the file can't be mapped
+     */
+    private void map(long offset) throws IOException {
+        long length = Math.min(windowSize, end - offset);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        windowStart = offset;
+        next = 0;
+        fieldStart = 0;
+        lineEnd = 0;
+    }
+
+    /**
+     * This method finds the line break of the line starting at a window index. The end of the
+     * file counts as a line break
+     * @param from the window index the line starts at
+     * @return window index of the line break, or -1 if the line runs past the window
+     */
+    private int findLineBreak(int from) {
+        int limit = window.limit();
+        for (int i = from; i < limit; i++) {
+            if (window.get(i) == NEW_LINE) {
+                return i;
+            }
+        }
+        // The end of the window is only the end of the line if it is the end of the file
+        return windowStart + limit == end ? limit : -1;
+    }
+
+    /**
+     * This method finds where the current field ends
+     * @return window index of the comma or end of record after the field
+     */
+    private int fieldEnd() {
+        for (int i = fieldStart; i < lineEnd; i++) {
+            if (window.get(i) == COMMA) {
+                return i;
+            }
+        }
+        return lineEnd;
+    }
+
+    /**
+     * This method moves past a field and the comma that follows it
+     * @param end window index where the field ends
+     */
+    private void skipField(int end) {
+        fieldStart = end < lineEnd ? end + 1 : lineEnd;
+    }
+
+    /**
+     * This method parses a run of plain digits
+     * @param from window index of the first digit
+     * @param to window index just past the last digit
+     * @return the value, or -1 if the run is empty, too long or has something other than digits
+     */
+    private int parseDigits(int from, int to) {
+        if (to <= from || to - from > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = window.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * This method parses the date forms that convertDate always accepts. Day values above 28
+     * are left to convertDate so end of month dates resolve the same way
+     * @param from window index of the date
+     * @param to window index just past the date
+     * @return the LocalDate, or null if convertDate has to handle it
+     */
+    private LocalDate parseDate(int from, int to) {
+        int length = to - from;
+        if (length == 4 && parseDigits(from, to) == 0) {
+            return LocalDate.of(1970, 1, 1);
+        }
+        if (length != 10 || window.get(from + 4) != '-' || window.get(from + 7) != '-') {
+            return null;
+        }
+        int year = parseDigits(from, from + 4);
+        int month = parseDigits(from + 5, from + 7);
+        int day = parseDigits(from + 8, to);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 28) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * This method copies bytes out of the window and decodes them into a String
+     * @param from window index of the first byte
+     * @param to window index just past the last byte
+     * @return the decoded String
+     */
+    private String decode(int from, int to) {
+        int length = to - from;
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        window.get(from, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,529 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Title: OverdueIndex.java
+ * Author: Nicholas Fotinakes
+ * Description: This class keeps every loan in order of its due date so the loans due by a day,
+ * or the next few to come due, are read off the front without looking at any other loan. The
+ * loans are split by card number into stripes, each locked on its own, so checkouts and returns
+ * from different threads rarely wait on each other. A stripe holds its loans in primitive arrays
+ * with a binary heap of loan numbers, earliest due first, and an open addressing table to find
+ * a loan to remove. Once a stripe has grown to the most loans it holds at once, adding and
+ * removing a loan allocate nothing, and queries only allocate the Loans they return.
+ * Date: 10/18/2026
+ */
+public class OverdueIndex {
+
+    // Loans are ordered by due day, then by reader and book so no two loans compare as equal
+    private static final Comparator<Loan> ORDER = Comparator.comparingInt(Loan::getDueDay)
+            .thenComparingInt(Loan::getCardNumber)
+            .thenComparing((Loan loan) -> loan.getBook().getIsbn())
+            .thenComparing((Loan loan) -> loan.getBook().getTitle());
+    private static final int STRIPE_BITS = 4;      // Log of the number of stripes
+
+    private final Stripe[] stripes = new Stripe[1 << STRIPE_BITS];
+
+    /**
+     * Constructor makes the empty stripes
+     */
+    public OverdueIndex() {
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * This method adds a loan
+     * @param loan the loan to add
+     */
+    public void add(Loan loan) {
+        add(loan.getCardNumber(), loan.getBook(), loan.getDueDay());
+    }
+
+    /**
+     * This method adds a loan without making a Loan for it
+     * @param cardNumber the card number of the reader
+     * @param book the book checked out
+     * @param dueDay the due date as an epoch day
+     */
+    public void add(int cardNumber, Book book, int dueDay) {
+        stripe(cardNumber).add(cardNumber, book, dueDay);
+    }
+
+    /**
+     * This method removes a loan
+     * @param loan the loan to remove
+     * @return true if the loan was in the index
+     */
+    public boolean remove(Loan loan) {
+        return remove(loan.getCardNumber(), loan.getBook(), loan.getDueDay());
+    }
+
+    /**
+     * This method removes a loan without making a Loan for it
+     * @param cardNumber the card number of the reader
+     * @param book the book checked out
+     * @param dueDay the due date as an epoch day
+     * @return true if the loan was in the index
+     */
+    public boolean remove(int cardNumber, Book book, int dueDay) {
+        return stripe(cardNumber).remove(cardNumber, book, dueDay);
+    }
+
+    /**
+     * This method returns the loans due on or before a day, earliest first
+     * @param dueDay the last due day to include, as an epoch day
+     * @return the loans
+     */
+    public List<Loan> dueBy(int dueDay) {
+        return dueBy(dueDay, true);
+    }
+
+    /**
+     * This method collects the loans due on or before a day
+     * @param dueDay the last due day to include, as an epoch day
+     * @param sorted true to put the loans in order, earliest first
+     * @return the loans
+     */
+    private List<Loan> dueBy(int dueDay, boolean sorted) {
+        List<Loan> due = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.dueBy(dueDay, due);
+        }
+        if (sorted) {
+            due.sort(ORDER);
+        }
+        return due;
+    }
+
+    /**
+     * This method returns every loan, in no particular order
+     * @return the loans
+     */
+    public List<Loan> loans() {
+        return dueBy(Integer.MAX_VALUE, false);
+    }
+
+    /**
+     * This method returns the next loans to come due, earliest first
+     * @param count the most loans to return
+     * @return the loans
+     */
+    public List<Loan> nextDue(int count) {
+        List<Loan> due = new ArrayList<>();
+        if (count <= 0) {
+            return due;
+        }
+        // The next loans overall are among the next loans of each stripe. Once count loans are
+        // found a stripe only adds the loans that come before the last of them
+        for (Stripe stripe : stripes) {
+            int found = due.size();
+            stripe.nextDue(count, found == count ? due.get(count - 1) : null, due);
+            if (due.size() > found) {
+                // Two runs in order, which the sort merges in one pass
+                due.sort(ORDER);
+                if (due.size() > count) {
+                    due.subList(count, due.size()).clear();
+                }
+            }
+        }
+        return due;
+    }
+
+    /**
+     * This method returns the number of loans in the index
+     * @return the number of loans
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * This method returns the stripe that holds a reader's loans
+     * @param cardNumber the card number of the reader
+     * @return the stripe
+     */
+    private Stripe stripe(int cardNumber) {
+        return stripes[(cardNumber * 0x9E3779B9) >>> (32 - STRIPE_BITS)];
+    }
+
+    /**
+     * Title: Stripe
+     * Description: This class holds the loans of some of the readers. Each loan has a number,
+     * the loans are kept in numbers 0 to size - 1, and removing a loan moves the last loan into
+     * its number
+     */
+    private static final class Stripe {
+
+        private static final int MIN_CAPACITY = 8;     // Smallest number of loans, a power of two
+
+        private int[] cards = new int[MIN_CAPACITY];        // Card number of each loan
+        private Book[] books = new Book[MIN_CAPACITY];      // Book of each loan
+        private int[] dueDays = new int[MIN_CAPACITY];      // Due day of each loan
+        private int[] positions = new int[MIN_CAPACITY];    // Place of each loan in the heap
+        private int[] heap = new int[MIN_CAPACITY];         // Loan numbers, earliest due at 0
+        private int[] table = new int[MIN_CAPACITY * 2];    // Loan number plus one by slot, 0 if empty
+        private int[] scratch = new int[MIN_CAPACITY];      // Heap places waiting to be looked at
+        private int shift = 32 - Integer.numberOfTrailingZeros(MIN_CAPACITY * 2);
+        private int size;                                   // Number of loans
+
+        /**
+         * This method adds a loan unless the same loan is already in the stripe
+         * @param card the card number of the reader
+         * @param book the book checked out
+         * @param dueDay the due day
+         */
+        synchronized void add(int card, Book book, int dueDay) {
+            if (find(card, book, dueDay) >= 0) {
+                return;
+            }
+            if (size == cards.length) {
+                grow();
+            }
+            int loan = size++;
+            cards[loan] = card;
+            books[loan] = book;
+            dueDays[loan] = dueDay;
+            insert(loan);
+            heap[loan] = loan;
+            positions[loan] = loan;
+            siftUp(loan);
+        }
+
+        /**
+         * This method removes a loan
+         * @param card the card number of the reader
+         * @param book the book checked out
+         * @param dueDay the due day
+         * @return true if the loan was in the stripe
+         */
+        synchronized boolean remove(int card, Book book, int dueDay) {
+            int slot = find(card, book, dueDay);
+            if (slot < 0) {
+                return false;
+            }
+            int loan = table[slot] - 1;
+            delete(slot);
+            // Fill the loan's place in the heap with the last place and put that loan in order
+            int last = size - 1;
+            int position = positions[loan];
+            if (position != last) {
+                int moved = heap[last];
+                heap[position] = moved;
+                positions[moved] = position;
+                if (siftDown(position, last) == position) {
+                    siftUp(position);
+                }
+            }
+            // Give the last loan this loan's number so the numbers stay 0 to size - 1
+            if (loan != last) {
+                table[slotOf(last)] = loan + 1;
+                cards[loan] = cards[last];
+                books[loan] = books[last];
+                dueDays[loan] = dueDays[last];
+                positions[loan] = positions[last];
+                heap[positions[loan]] = loan;
+            }
+            books[last] = null;
+            size = last;
+            return true;
+        }
+
+        /**
+         * This method adds the loans due on or before a day to a list, in no order
+         * @param dueDay the last due day to include
+         * @param due the list to add to
+         */
+        synchronized void dueBy(int dueDay, List<Loan> due) {
+            // Only the children of a loan that is due can be due, so the rest of the heap is
+            // skipped. The places to look at are a stack in scratch, which never holds more
+            // places than the heap has
+            int top = 0;
+            if (size > 0) {
+                scratch[top++] = 0;
+            }
+            while (top > 0) {
+                int position = scratch[--top];
+                int loan = heap[position];
+                if (dueDays[loan] <= dueDay) {
+                    due.add(new Loan(cards[loan], books[loan], dueDays[loan]));
+                    for (int child = 2 * position + 1; child <= 2 * position + 2 && child < size; child++) {
+                        scratch[top++] = child;
+                    }
+                }
+            }
+        }
+
+        /**
+         * This method adds the next loans to come due to a list, earliest first
+         * @param count the most loans to add
+         * @param bound only loans that come before this one are added, or null for no bound
+         * @param due the list to add to
+         */
+        synchronized void nextDue(int count, Loan bound, List<Loan> due) {
+            // Take the earliest of the places whose parents have been taken, one at a time. The
+            // places waiting are a binary heap in scratch, earliest at 0
+            int waiting = 0;
+            if (size > 0) {
+                scratch[waiting++] = 0;
+            }
+            for (int taken = 0; taken < count && waiting > 0; taken++) {
+                int position = scratch[0];
+                int loan = heap[position];
+                if (bound != null && compare(loan, bound) >= 0) {
+                    break;
+                }
+                due.add(new Loan(cards[loan], books[loan], dueDays[loan]));
+                scratch[0] = scratch[--waiting];
+                siftDownWaiting(waiting);
+                for (int child = 2 * position + 1; child <= 2 * position + 2 && child < size; child++) {
+                    scratch[waiting] = child;
+                    siftUpWaiting(waiting++);
+                }
+            }
+        }
+
+        /**
+         * This method moves a waiting place towards the top of scratch until its parent is
+         * earlier
+         * @param index the index in scratch
+         */
+        private void siftUpWaiting(int index) {
+            int position = scratch[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (compare(heap[position], heap[scratch[parent]]) >= 0) {
+                    break;
+                }
+                scratch[index] = scratch[parent];
+                index = parent;
+            }
+            scratch[index] = position;
+        }
+
+        /**
+         * This method moves the waiting place at the top of scratch down until its children
+         * are later
+         * @param length the number of places waiting
+         */
+        private void siftDownWaiting(int length) {
+            if (length == 0) {
+                return;
+            }
+            int position = scratch[0];
+            int index = 0;
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= length) {
+                    break;
+                }
+                if (child + 1 < length && compare(heap[scratch[child + 1]], heap[scratch[child]]) < 0) {
+                    child++;
+                }
+                if (compare(heap[scratch[child]], heap[position]) >= 0) {
+                    break;
+                }
+                scratch[index] = scratch[child];
+                index = child;
+            }
+            scratch[index] = position;
+        }
+
+        /**
+         * This method returns the number of loans in the stripe
+         * @return the number of loans
+         */
+        synchronized int size() {
+            return size;
+        }
+
+        /**
+         * This method moves a heap place towards the top until its parent is earlier
+         * @param position the place
+         */
+        private void siftUp(int position) {
+            int loan = heap[position];
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (compare(loan, heap[parent]) >= 0) {
+                    break;
+                }
+                heap[position] = heap[parent];
+                positions[heap[position]] = position;
+                position = parent;
+            }
+            heap[position] = loan;
+            positions[loan] = position;
+        }
+
+        /**
+         * This method moves a heap place towards the bottom until its children are later
+         * @param position the place
+         * @param length the number of places in the heap
+         * @return the place the loan ended up in
+         */
+        private int siftDown(int position, int length) {
+            int loan = heap[position];
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= length) {
+                    break;
+                }
+                if (child + 1 < length && compare(heap[child + 1], heap[child]) < 0) {
+                    child++;
+                }
+                if (compare(heap[child], loan) >= 0) {
+                    break;
+                }
+                heap[position] = heap[child];
+                positions[heap[position]] = position;
+                position = child;
+            }
+            heap[position] = loan;
+            positions[loan] = position;
+            return position;
+        }
+
+        /**
+         * This method compares two loans in the same order as ORDER, without making Loans
+         * @param a a loan number
+         * @param b another loan number
+         * @return negative if a comes first, positive if b does, 0 if they are in the same place
+         */
+        private int compare(int a, int b) {
+            int order = Integer.compare(dueDays[a], dueDays[b]);
+            if (order == 0) {
+                order = Integer.compare(cards[a], cards[b]);
+            }
+            if (order == 0) {
+                order = books[a].getIsbn().compareTo(books[b].getIsbn());
+            }
+            if (order == 0) {
+                order = books[a].getTitle().compareTo(books[b].getTitle());
+            }
+            return order;
+        }
+
+        /**
+         * This method compares a loan with a Loan from outside the stripe, in the same order as
+         * ORDER
+         * @param a a loan number
+         * @param other the other Loan
+         * @return negative if a comes first, positive if other does, 0 if they are the same
+         */
+        private int compare(int a, Loan other) {
+            int order = Integer.compare(dueDays[a], other.getDueDay());
+            if (order == 0) {
+                order = Integer.compare(cards[a], other.getCardNumber());
+            }
+            if (order == 0) {
+                order = books[a].getIsbn().compareTo(other.getBook().getIsbn());
+            }
+            if (order == 0) {
+                order = books[a].getTitle().compareTo(other.getBook().getTitle());
+            }
+            return order;
+        }
+
+        /**
+         * This method finds the table slot of a loan
+         * @param card the card number of the reader
+         * @param book the book checked out
+         * @param dueDay the due day
+         * @return the slot, or -1 if the loan isn't in the stripe
+         */
+        private int find(int card, Book book, int dueDay) {
+            int mask = table.length - 1;
+            for (int slot = slot(card, book, dueDay); table[slot] != 0; slot = (slot + 1) & mask) {
+                int loan = table[slot] - 1;
+                if (cards[loan] == card && dueDays[loan] == dueDay && books[loan].equals(book)) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * This method finds the table slot holding a loan number
+         * @param loan the loan number
+         * @return the slot
+         */
+        private int slotOf(int loan) {
+            int mask = table.length - 1;
+            int slot = slot(cards[loan], books[loan], dueDays[loan]);
+            while (table[slot] != loan + 1) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * This method puts a loan number in the first free slot for its loan
+         * @param loan the loan number
+         */
+        private void insert(int loan) {
+            int mask = table.length - 1;
+            int slot = slot(cards[loan], books[loan], dueDays[loan]);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = loan + 1;
+        }
+
+        /**
+         * This method empties a table slot, moving back any later slot that can't be found past it
+         * @param slot the slot to empty
+         */
+        private void delete(int slot) {
+            int mask = table.length - 1;
+            int empty = slot;
+            for (int next = (empty + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+                int loan = table[next] - 1;
+                int home = slot(cards[loan], books[loan], dueDays[loan]);
+                if (((next - home) & mask) >= ((next - empty) & mask)) {
+                    table[empty] = table[next];
+                    empty = next;
+                }
+            }
+            table[empty] = 0;
+        }
+
+        /**
+         * This method doubles the arrays and builds the table again
+         */
+        private void grow() {
+            int capacity = cards.length * 2;
+            cards = Arrays.copyOf(cards, capacity);
+            books = Arrays.copyOf(books, capacity);
+            dueDays = Arrays.copyOf(dueDays, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            heap = Arrays.copyOf(heap, capacity);
+            scratch = new int[capacity];
+            table = new int[capacity * 2];
+            shift = 32 - Integer.numberOfTrailingZeros(table.length);
+            for (int loan = 0; loan < size; loan++) {
+                insert(loan);
+            }
+        }
+
+        /**
+         * This method returns the slot a loan is looked for first, hashed the same way as
+         * Loan.hashCode
+         * @param card the card number of the reader
+         * @param book the book checked out
+         * @param dueDay the due day
+         * @return the slot
+         */
+        private int slot(int card, Book book, int dueDay) {
+            int hash = (card * 31 + dueDay) * 31 + book.hashCode();
+            return (hash * 0x9E3779B9) >>> shift;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Title: OverdueIndexTest.java
+ * Author: Nicholas Fotinakes
+ * Abstract: Test file for the OverdueIndex.java class
+ * Date: 10/18/2026
+ */
+class OverdueIndexTest {
+
+    // Test that loans come back earliest first and stop at the day asked for
+    @Test
+    void dueBy() {
+        OverdueIndex index = new OverdueIndex();
+        Book book = new Book("123", "Deep Blue Sea", "sci-fi", 55, "Me", LocalDate.now());
+        Book other = new Book("45", "The Witcher", "history", 700, "Rupert", LocalDate.now());
+        index.add(new Loan(2, book, 30));
+        index.add(new Loan(1, book, 10));
+        index.add(new Loan(1, other, 10));
+        index.add(new Loan(3, other, 20));
+
+        List<Loan> due = index.dueBy(20);
+        assertEquals(3, due.size());
+        assertEquals(10, due.get(0).getDueDay());
+        assertEquals(20, due.get(2).getDueDay());
+        assertTrue(index.dueBy(9).isEmpty());
+        assertEquals(due.subList(0, 2), index.nextDue(2));
+
+        assertTrue(index.remove(new Loan(1, book, 10)));
+        assertFalse(index.remove(new Loan(1, book, 10)));
+        assertEquals(new Loan(1, other, 10), index.nextDue(1).get(0));
+        assertEquals(3, index.size());
+    }
+
+    // Test that the index agrees with a sorted set through many adds and removes
+    @Test
+    void matchesSortedSet() {
+        OverdueIndex index = new OverdueIndex();
+        TreeSet<Loan> expected = new TreeSet<>(Comparator.comparingInt(Loan::getDueDay)
+                .thenComparingInt(Loan::getCardNumber)
+                .thenComparing((Loan loan) -> loan.getBook().getIsbn()));
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            books.add(new Book("isbn-" + i, "Title " + i, "sci-fi", 100, "Author", LocalDate.now()));
+        }
+        Random random = new Random(23);
+        for (int i = 0; i < 20000; i++) {
+            Loan loan = new Loan(random.nextInt(200), books.get(random.nextInt(books.size())), random.nextInt(50));
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(loan), index.remove(loan.getCardNumber(), loan.getBook(), loan.getDueDay()));
+            } else {
+                expected.add(loan);
+                index.add(loan.getCardNumber(), loan.getBook(), loan.getDueDay());
+            }
+        }
+        assertEquals(expected.size(), index.size());
+        assertEquals(new ArrayList<>(expected.headSet(new Loan(Integer.MAX_VALUE, books.get(0), 25))), index.dueBy(25));
+        assertEquals(new ArrayList<>(expected).subList(0, 100), index.nextDue(100));
+        assertEquals(new ArrayList<>(expected), index.dueBy(Integer.MAX_VALUE));
+    }
+
+    // Test that the next loans across every stripe come out in order for any count, with undated loans last
+    @Test
+    void nextDueAcrossStripes() {
+        OverdueIndex index = new OverdueIndex();
+        TreeSet<Loan> expected = new TreeSet<>(Comparator.comparingInt(Loan::getDueDay)
+                .thenComparingInt(Loan::getCardNumber)
+                .thenComparing((Loan loan) -> loan.getBook().getIsbn()));
+        Book book = new Book("123", "Deep Blue Sea", "sci-fi", 55, "Me", LocalDate.now());
+        Random random = new Random(7);
+        for (int card = 0; card < 500; card++) {
+            int dueDay = card % 10 == 0 ? CopyLedger.NO_DUE_DAY : random.nextInt(100);
+            expected.add(new Loan(card, book, dueDay));
+            index.add(card, book, dueDay);
+        }
+        for (int count : new int[] {1, 3, 16, 17, 200, 500, 600}) {
+            List<Loan> all = new ArrayList<>(expected);
+            assertEquals(all.subList(0, Math.min(count, all.size())), index.nextDue(count));
+        }
+        assertEquals(CopyLedger.NO_DUE_DAY, index.nextDue(500).get(499).getDueDay());
+    }
+}
@@ -0,0 +1,176 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Title: PrefixIndex.java
+ * Author: Nicholas Fotinakes
+ * Description: This class completes what a user has typed so far. Each text (a title, an author
+ * or a reader's name) is kept under its lower case form in a sorted map with a weight, such as
+ * its number of copies, and completions are the heaviest texts starting with the prefix. The
+ * best completions of every prefix up to CACHED_PREFIX characters are cached and kept up to
+ * date as weights change, since short prefixes match the most texts. Longer prefixes match few
+ * enough texts to rank them on the spot.
+ * Date: 10/18/2026
+ */
+public class PrefixIndex {
+
+    public static final int CACHED_TOP = 10;    // Completions cached for each short prefix
+    public static final int CACHED_PREFIX = 3;  // Longest prefix whose completions are cached
+    // Heaviest first, then in alphabetical order
+    private static final Comparator<Entry> ORDER = Comparator.comparingLong((Entry entry) -> -entry.weight)
+            .thenComparing(entry -> entry.key);
+
+    private final TreeMap<String, Entry> entries = new TreeMap<>();     // Texts by lower case form
+    private final HashMap<String, Entry[]> cache = new HashMap<>();     // Best completions by short prefix
+
+    /**
+     * This method adds weight to a text, adding the text if it's new. A text whose weight drops
+     * to 0 or below is removed
+     * @param text the text
+     * @param weight the weight to add, negative to take weight away
+     */
+    public synchronized void add(String text, long weight) {
+        String key = normalize(text);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (weight <= 0) {
+                return;
+            }
+            entry = new Entry(key, text);
+            entries.put(key, entry);
+        }
+        entry.weight += weight;
+        if (entry.weight <= 0) {
+            entries.remove(key);
+        }
+        for (int length = 0; length <= Math.min(CACHED_PREFIX, key.length()); length++) {
+            String prefix = key.substring(0, length);
+            Entry[] top = cache.get(prefix);
+            if (top == null) {
+                continue;
+            }
+            if (weight > 0) {
+                cache.put(prefix, offer(top, entry));
+            } else if (Arrays.asList(top).contains(entry)) {
+                // Whatever replaces it is outside the cached completions, so rank them again later
+                cache.remove(prefix);
+            }
+        }
+    }
+
+    /**
+     * This method returns the heaviest texts that start with a prefix, ignoring case
+     * @param prefix what has been typed so far
+     * @param count the most completions to return
+     * @return the completions, heaviest first
+     */
+    public synchronized List<String> complete(String prefix, int count) {
+        String key = normalize(prefix);
+        Entry[] top;
+        if (count <= CACHED_TOP && key.length() <= CACHED_PREFIX) {
+            top = cache.get(key);
+            if (top == null) {
+                top = rank(key, CACHED_TOP);
+                cache.put(key, top);
+            }
+        } else {
+            top = rank(key, count);
+        }
+        List<String> completions = new ArrayList<>(Math.min(count, top.length));
+        for (int i = 0; i < top.length && i < count; i++) {
+            completions.add(top[i].text);
+        }
+        return completions;
+    }
+
+    /**
+     * This method returns the weight of a text
+     * @param text the text
+     * @return the weight, or 0 if the text isn't in the index
+     */
+    public synchronized long getWeight(String text) {
+        Entry entry = entries.get(normalize(text));
+        return entry == null ? 0 : entry.weight;
+    }
+
+    /**
+     * This method returns the number of texts in the index
+     * @return the number of texts
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * This method finds the heaviest texts that start with a prefix by looking at all of them
+     * @param key the lower case prefix
+     * @param count the most texts to return
+     * @return the texts, heaviest first
+     */
+    private Entry[] rank(String key, int count) {
+        // The worst of the best so far is at the head of the queue
+        PriorityQueue<Entry> best = new PriorityQueue<>(ORDER.reversed());
+        for (Entry entry : entries.subMap(key, true, key + Character.MAX_VALUE, false).values()) {
+            best.add(entry);
+            if (best.size() > count) {
+                best.poll();
+            }
+        }
+        Entry[] top = new Entry[best.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = best.poll();
+        }
+        return top;
+    }
+
+    /**
+     * This method puts an entry that gained weight into a cached list of completions if it
+     * now belongs there
+     * @param top the cached completions
+     * @param entry the entry that gained weight
+     * @return the new cached completions
+     */
+    private static Entry[] offer(Entry[] top, Entry entry) {
+        if (!Arrays.asList(top).contains(entry)) {
+            if (top.length < CACHED_TOP) {
+                top = Arrays.copyOf(top, top.length + 1);
+            } else if (ORDER.compare(entry, top[top.length - 1]) >= 0) {
+                return top;
+            }
+            top[top.length - 1] = entry;
+        }
+        Arrays.sort(top, ORDER);
+        return top;
+    }
+
+    /**
+     * This method returns the form texts and prefixes are compared in
+     * @param text the text
+     * @return the text in lower case without surrounding spaces
+     */
+    private static String normalize(String text) {
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Title: Entry
+     * Description: This class is one text and its weight
+     */
+    private static final class Entry {
+
+        private final String key;       // The text in lower case
+        private final String text;      // The text as it was first added
+        private long weight;            // Copies, readers or whatever the caller counts
+
+        Entry(String key, String text) {
+            this.key = key;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Title: PrefixIndexTest.java
+ * Author: Nicholas Fotinakes
+ * Abstract: Test file for the PrefixIndex.java class
+ * Date: 10/18/2026
+ */
+class PrefixIndexTest {
+
+    // Test that completions are ranked by weight and the cached ones follow weight changes
+    @Test
+    void complete() {
+        PrefixIndex index = new PrefixIndex();
+        index.add("Dune", 1);
+        index.add("Dune Messiah", 3);
+        index.add("Dracula", 2);
+        assertEquals(List.of("Dune Messiah", "Dracula", "Dune"), index.complete("d", 10));
+        assertEquals(List.of("Dune Messiah", "Dune"), index.complete("DUN", 10));
+        assertEquals(List.of("Dune Messiah"), index.complete("dune m", 10));
+
+        index.add("dune", 5);
+        assertEquals(List.of("Dune", "Dune Messiah"), index.complete("d", 2));
+        index.add("Dune", -6);
+        assertEquals(0, index.getWeight("dune"));
+        assertEquals(List.of("Dune Messiah", "Dracula"), index.complete("d", 10));
+        assertTrue(index.complete("x", 10).isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    // Test that a full cache still takes in a text that becomes one of the heaviest
+    @Test
+    void cachedTop() {
+        PrefixIndex index = new PrefixIndex();
+        for (int i = 0; i < PrefixIndex.CACHED_TOP * 2; i++) {
+            index.add("title " + i, i + 1);
+        }
+        assertEquals("title 19", index.complete("t", 1).get(0));
+        index.add("title 0", 100);
+        assertEquals(List.of("title 0", "title 19"), index.complete("ti", 2));
+        assertEquals(List.of("title 0", "title 19"), index.complete("t", 2));
+        index.add("title 0", -100);
+        assertEquals(PrefixIndex.CACHED_TOP, index.complete("t", PrefixIndex.CACHED_TOP).size());
+        assertEquals("title 19", index.complete("t", 1).get(0));
+    }
+}
@@ -1,4 +1,3 @@
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
@@ -21,10 +20,11 @@ public class Reader {
     private int cardNumber;
     private String name;
     private String phone;
-    private List<Book> books;   // This is the list of books Reader has checked out
+    private BookSet books;              // Books the Reader has checked out, in the order checked out
+    private int lendingLimit = Library.LENDING_LIMIT;  // Most books the Reader can have at once
 
     /**
-     * Reader constructor. Set fields and initialize a List for books
+     * Reader constructor. Set fields and initialize a set for books
      * @param cardNumber the reader's card number
      * @param name the reader's name
      * @param phone the reader's phone number
@@ -33,7 +33,7 @@ public class Reader {
         this.cardNumber = cardNumber;
         this.name = name;
         this.phone = phone;
-        books = new ArrayList<>();
+        books = new BookSet();
     }
 
     /**
@@ -42,10 +42,9 @@ public class Reader {
      * @param book the book to check out and add to list
      * @return the corresponding Code if successful or not
      */
-    public Code addBook(Book book){
-        // If book is not in Reader's List, add the book
-        if(!books.contains(book)){
-            books.add(book);
+    public synchronized Code addBook(Book book){
+        // If book is not in Reader's set, add the book
+        if(books.add(book)){
             return Code.SUCCESS;
 
         } else{
@@ -59,19 +58,12 @@ public class Reader {
      * @param book the book to remove
      * @return corresponding code
      */
-    public Code removeBook(Book book){
-        // If book isn't in List to be removed return error Code
-        if(!books.contains(book)){
-            return Code.READER_DOESNT_HAVE_BOOK_ERROR;
-        }
-        // Otherwise, remove book and send success code
-        if(books.contains(book)){
-            books.remove(book);
+    public synchronized Code removeBook(Book book){
+        // Remove the book with one lookup, or return error Code if it isn't in the set
+        if(books.remove(book)){
             return Code.SUCCESS;
-        } else{
-            // Handle any other error
-            return Code.READER_COULD_NOT_REMOVE_BOOK_ERROR;
         }
+        return Code.READER_DOESNT_HAVE_BOOK_ERROR;
     }
 
     /**
@@ -79,7 +71,7 @@ public class Reader {
      * @param book the book to check against reader's books
      * @return true or false if Reader has book in list
      */
-    public boolean hasBook(Book book){
+    public synchronized boolean hasBook(Book book){
         return books.contains(book);
     }
 
@@ -87,10 +79,28 @@ public class Reader {
      * This method returns the Reader's book count in list
      * @return the count of the reader's list
      */
-    public int getBookCount(){
+    public synchronized int getBookCount(){
         return books.size();
     }
 
+    /**
+     * This method returns the most books the Reader can have checked out at once
+     * @return the lending limit
+     */
+    public synchronized int getLendingLimit() {
+        return lendingLimit;
+    }
+
+    /**
+     * This method sets the most books the Reader can have checked out at once. Books already
+     * checked out are kept if the limit drops below them. Use Library.setLendingLimit for a
+     * registered Reader so the change is journaled
+     * @param lendingLimit the lending limit
+     */
+    public synchronized void setLendingLimit(int lendingLimit) {
+        this.lendingLimit = lendingLimit;
+    }
+
     /**
      * This method returns the reader's card number
      * @return reader's card number
@@ -140,19 +150,22 @@ public class Reader {
     }
 
     /**
-     * This method gets the Reader's book list
+     * This method gets a copy of the Reader's books in the order they were checked out
      * @return list of books
      */
-    public List<Book> getBooks() {
-        return books;
+    public synchronized List<Book> getBooks() {
+        return books.toList();
     }
 
     /**
      * This method can set a List of books of reader
      * @param books the List of books to set
      */
-    public void setBooks(List<Book> books) {
-        this.books = books;
+    public synchronized void setBooks(List<Book> books) {
+        this.books = new BookSet();
+        for (Book book : books) {
+            this.books.add(book);
+        }
     }
 
     /**
@@ -178,7 +191,7 @@ public class Reader {
      * @return formatted string about Reader's information
      */
     @Override
-    public String toString() {
+    public synchronized String toString() {
         // Use StringBuilder and iterate through List to remove Brackets
         StringBuilder str = new StringBuilder();
         for (Book book : books){
@@ -188,4 +188,19 @@ class ReaderTest {
         assertEquals(outputTest, testReader.toString());
 
     }
-}
\ No newline at end of file
+
+    // Test that the loan set keeps checkout order and getBooks hands out a copy
+    @Test
+    void loanOrder() {
+        testReader = new Reader(cardNumber, name, phone);
+        Book testBook2 = new Book("45", "The Witcher", "history", 700, "Rupert", LocalDate.now());
+        testReader.addBook(testBook2);
+        testReader.addBook(testBook);
+        assertEquals(List.of(testBook2, testBook), testReader.getBooks());
+        testReader.getBooks().clear();
+        assertEquals(2, testReader.getBookCount());
+        assertEquals(Code.SUCCESS, testReader.removeBook(testBook2));
+        assertEquals(Code.READER_DOESNT_HAVE_BOOK_ERROR, testReader.removeBook(testBook2));
+        assertEquals(List.of(testBook), testReader.getBooks());
+    }
+}
@@ -0,0 +1,196 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Title: SearchIndex.java
+ * Author: Nicholas Fotinakes
+ * Description: This class is an inverted index over the titles and authors of Books. Each Book
+ * gets a document number in the order it is added, and each word maps to a posting list of the
+ * documents it appears in and how many times, held in int arrays that stay sorted because
+ * documents are only ever appended. Queries match all of their words (AND) or any of them (OR)
+ * and are ranked by tf-idf, so rare words count for more than common ones.
+ * The index is not thread safe, Library only changes it under its write lock.
+ * Date: 10/18/2026
+ */
+public class SearchIndex {
+
+    private final HashMap<String, Postings> postings = new HashMap<>();  // Posting list by word
+    private Book[] documents = new Book[16];    // Books by document number
+    private int documentCount;                  // Number of Books added
+
+    /**
+     * This method adds a Book to the index
+     * @param book the Book to add
+     */
+    public void add(Book book) {
+        if (documentCount == documents.length) {
+            documents = Arrays.copyOf(documents, documentCount * 2);
+        }
+        int document = documentCount++;
+        documents[document] = book;
+        // Count each word once per Book before adding it to its posting list
+        HashMap<String, Integer> counts = new HashMap<>();
+        for (String word : tokenize(book.getTitle() + " " + book.getAuthor())) {
+            counts.merge(word, 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), word -> new Postings()).add(document, entry.getValue());
+        }
+    }
+
+    /**
+     * This method finds the Books matching a query, best match first
+     * @param query the words to look for
+     * @param matchAll true if a Book must have every word, false if any word is enough
+     * @param limit the most Books to return
+     * @return the matching Books
+     */
+    public List<Book> search(String query, boolean matchAll, int limit) {
+        List<String> words = tokenize(query);
+        List<Postings> lists = new ArrayList<>(words.size());
+        for (String word : words) {
+            Postings list = postings.get(word);
+            if (list != null && !lists.contains(list)) {
+                lists.add(list);
+            } else if (list == null && matchAll) {
+                return new ArrayList<>();
+            }
+        }
+        if (lists.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        // Walk the posting lists together in document order, scoring every match
+        int[] positions = new int[lists.size()];
+        double[] idf = new double[lists.size()];
+        for (int i = 0; i < idf.length; i++) {
+            idf[i] = Math.log(1 + (double) documentCount / lists.get(i).size);
+        }
+        // The best matches so far, with the worst of them at the head of the queue
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.min(limit, 64) + 1);
+        while (true) {
+            int document = Integer.MAX_VALUE;
+            int found = 0;
+            for (int i = 0; i < positions.length; i++) {
+                Postings list = lists.get(i);
+                if (positions[i] < list.size) {
+                    int next = list.documents[positions[i]];
+                    if (next < document) {
+                        document = next;
+                        found = 1;
+                    } else if (next == document) {
+                        found++;
+                    }
+                } else if (matchAll) {
+                    // One list has run out, so no other document can have every word
+                    document = Integer.MAX_VALUE;
+                    break;
+                }
+            }
+            if (document == Integer.MAX_VALUE) {
+                break;
+            }
+            double score = 0;
+            for (int i = 0; i < positions.length; i++) {
+                Postings list = lists.get(i);
+                if (positions[i] < list.size && list.documents[positions[i]] == document) {
+                    score += list.frequencies[positions[i]] * idf[i];
+                    positions[i]++;
+                }
+            }
+            if (!matchAll || found == positions.length) {
+                best.add(new Match(document, score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+
+        Book[] books = new Book[best.size()];
+        for (int i = books.length - 1; i >= 0; i--) {
+            books[i] = documents[best.poll().document];
+        }
+        return new ArrayList<>(Arrays.asList(books));
+    }
+
+    /**
+     * This method returns the number of Books in the index
+     * @return the number of Books
+     */
+    public int size() {
+        return documentCount;
+    }
+
+    /**
+     * This method splits text into lower case words of letters and digits
+     * @param text the text to split
+     * @return the words, in order
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Title: Postings
+     * Description: This class holds the documents a word appears in, in increasing order, and
+     * how many times it appears in each
+     */
+    private static final class Postings {
+
+        private int[] documents = new int[2];   // Document numbers, in increasing order
+        private int[] frequencies = new int[2]; // Times the word appears in each document
+        private int size;                       // Number of documents
+
+        /**
+         * This method appends a document to the list
+         * @param document the document number, higher than any already in the list
+         * @param frequency the times the word appears in it
+         */
+        void add(int document, int frequency) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            documents[size] = document;
+            frequencies[size] = frequency;
+            size++;
+        }
+    }
+
+    /**
+     * Title: Match
+     * Description: This class is a scored document. Matches order worst first, and documents
+     * added earlier win ties, so the head of a queue of them is the one to drop
+     */
+    private static final class Match implements Comparable<Match> {
+
+        private final int document;     // Document number
+        private final double score;     // tf-idf score
+
+        Match(int document, double score) {
+            this.document = document;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Match other) {
+            int order = Double.compare(score, other.score);
+            return order != 0 ? order : Integer.compare(other.document, document);
+        }
+    }
+}
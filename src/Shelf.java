@@ -1,11 +1,18 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Title: Shelf.java - Pt 3/4 of Library Project
  * Author: Nicholas Fotinakes
  * Description: This class represents a Shelf to store books and their counts based on subject
- * which will be used in the Library Project
+ * which will be used in the Library Project. Each book's count is an AtomicInteger, so adding
+ * and removing a copy are single compare-and-set updates that never lock the whole Shelf
  * Date: 11/8/2021
  */
 public class Shelf {
@@ -16,13 +23,20 @@ public class Shelf {
     // Private fields to hold Shelf info
     private int shelfNumber;
     private String subject;
-    private HashMap<Book, Integer> books;   // HashMap to hold what book is on Shelf and how many
+    // Map to hold what book is on Shelf and how many, the counter of a book is never replaced
+    private final ConcurrentHashMap<Book, AtomicInteger> books;
+    private final LongAdder copies = new LongAdder();   // Copies on the shelf, kept with every change
+    private final LongAdder loaned = new LongAdder();   // Copies of the shelf's books out on loan
+    private final AtomicInteger titles = new AtomicInteger();   // Books with a copy on the shelf
+    private volatile LongAdder shelved;         // Library's copies on every shelf, null when not in a Library
+    private LibraryListener listener = ConsoleLibraryListener.CONSOLE;  // Receives shelf events
+    private volatile SubjectIndex subjects;     // Library's subject index, null when not in a Library
 
     /**
-     * Constructor takes no params but will create a new instance of HashMap
+     * Constructor takes no params but will create a new instance of ConcurrentHashMap
      */
     public Shelf(){
-        books = new HashMap<>();
+        books = new ConcurrentHashMap<>();
     }
 
     /**
@@ -58,19 +72,96 @@ public class Shelf {
     }
 
     /**
-     * This method returns the HashMap of books stored on Shelf
+     * This method returns a copy of the books stored on Shelf and their counts
      * @return Shelf HashMap of Books
      */
     public HashMap<Book, Integer> getBooks() {
-        return books;
+        HashMap<Book, Integer> copy = new HashMap<>();
+        for (Map.Entry<Book, AtomicInteger> entry : books.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().get());
+        }
+        return copy;
     }
 
     /**
-     * This method sets a HashMap of books on Shelf
+     * This method replaces the books on Shelf with the books and counts in a HashMap
      * @param books the HashMap of books to set
      */
     public void setBooks(HashMap<Book, Integer> books) {
-        this.books = books;
+        this.books.clear();
+        count(-copies.sum());
+        titles.set(0);
+        for (Map.Entry<Book, Integer> entry : books.entrySet()) {
+            this.books.put(entry.getKey(), new AtomicInteger(entry.getValue()));
+            count(entry.getValue());
+            if (entry.getValue() > 0) {
+                titles.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * This method sets the listener told about books added to and removed from the Shelf
+     * @param listener the LibraryListener to use, or LibraryListener.NONE for no events
+     */
+    public void setListener(LibraryListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * This method sets the subject index the Shelf compares subjects with, so a book whose
+     * subject differs only in case, punctuation or by an alias still belongs on it
+     * @param subjects the Library's SubjectIndex
+     */
+    void setSubjects(SubjectIndex subjects) {
+        this.subjects = subjects;
+    }
+
+    /**
+     * This method sets the Library's total of copies on every shelf, adding the copies already
+     * on the Shelf to it. From then on every copy added to or removed from the Shelf is counted
+     * in it too
+     * @param shelved the Library's total, or null to stop counting in it
+     */
+    void setShelvedCount(LongAdder shelved) {
+        this.shelved = shelved;
+        if (shelved != null) {
+            shelved.add(copies.sum());
+        }
+    }
+
+    /**
+     * This method counts copies of the Shelf's books going out on loan or coming back from one
+     * @param change the copies lent, or negative for the copies returned
+     */
+    void loaned(int change) {
+        loaned.add(change);
+    }
+
+    /**
+     * This method counts copies put on or taken off the Shelf, in its own total and the
+     * Library's
+     * @param change the copies added, or negative for the copies removed
+     */
+    private void count(long change) {
+        copies.add(change);
+        LongAdder shelved = this.shelved;
+        if (shelved != null) {
+            shelved.add(change);
+        }
+    }
+
+    /**
+     * This method checks whether a book belongs on the Shelf by its subject
+     * @param book the Book to check
+     * @return true if the book's subject is the Shelf's subject
+     */
+    private boolean holds(Book book) {
+        SubjectIndex subjects = this.subjects;
+        if (subjects == null) {
+            return book.getSubject().equals(subject);
+        }
+        return subjects.resolve(book.getSubject()).equals(subjects.resolve(subject));
     }
 
     /**
@@ -102,10 +193,11 @@ public class Shelf {
     }
 
     public int getBookCount(Book book) {
-        if(!books.containsKey(book)) {
+        AtomicInteger count = books.get(book);
+        if(count == null) {
             return -1;
         } else {
-            return books.get(book);
+            return count.get();
         }
     }
 
@@ -115,23 +207,32 @@ public class Shelf {
      * @return corresponding Code
      */
     public Code addBook(Book book) {
-        // If Shelf already has book, increment the books corresponding count in HashMap
-        if(books.containsKey(book)) {
-            int count = books.get(book);
-            count = count + 1;
-            books.put(book, count);
-            System.out.println(book + " added to shelf " + this);
-            return Code.SUCCESS;
+        return addBook(book, 1);
+    }
+
+    /**
+     * This method adds several copies of a Book object to the shelf in one update
+     * @param book the Book to add
+     * @param copies how many copies to add
+     * @return corresponding Code
+     */
+    public Code addBook(Book book, int copies) {
+        AtomicInteger count = books.get(book);
+        // If book is not on shelf, check subject and make its counter if correct
+        if(count == null) {
+            if(!holds(book)) {
+                // If subject doesn't match return error
+                return Code.SHELF_SUBJECT_MISMATCH_ERROR;
+            }
+            count = books.computeIfAbsent(book, key -> new AtomicInteger());
         }
-        // If book is not on shelf, check subject and add if correct
-        if(!books.containsKey(book) && book.getSubject().equals(subject)){
-            books.put(book, 1);
-            System.out.println(book + " added to shelf " + this);
-            return Code.SUCCESS;
-        } else {
-            // If subject doesn't match return error
-            return Code.SHELF_SUBJECT_MISMATCH_ERROR;
+        // The first copy of a book, or the first since its last one was taken, adds a title
+        if (count.addAndGet(copies) == copies && copies > 0) {
+            titles.incrementAndGet();
         }
+        count(copies);
+        listener.bookShelved(book, this, copies);
+        return Code.SUCCESS;
     }
 
     /**
@@ -140,22 +241,87 @@ public class Shelf {
      * @return corresponding Code
      */
     public Code removeBook(Book book) {
-        // Check if book isn't on shelf and return message if not
-        if(!books.containsKey(book)) {
-            System.out.println(book.getTitle() + " is not on shelf " + book.getSubject());
+        AtomicInteger count = books.get(book);
+        // Check if book isn't on shelf and report it if not
+        if(count == null) {
+            listener.error(Code.BOOK_NOT_IN_INVENTORY_ERROR, book);
             return Code.BOOK_NOT_IN_INVENTORY_ERROR;
         }
-        // Check if spot exists but no books on shelf
-        if(books.containsKey(book) && books.get(book) == 0) {
-            System.out.println("No copies of " + book.getTitle() + " remain on shelf " + book.getSubject());
-            return Code.BOOK_NOT_IN_INVENTORY_ERROR;
-        } else {
-            // If book is on shelf remove it and return Success Code
-            int count = books.get(book) - 1;
-            books.put(book, count);
-            System.out.println(book + " successfully removed from shelf " + book.getSubject());
-            return Code.SUCCESS;
+        // Take a copy only if one is left, retrying if another thread changed the count first
+        int copies;
+        do {
+            copies = count.get();
+            // Check if spot exists but no books on shelf
+            if(copies == 0) {
+                listener.error(Code.BOOK_NOT_IN_INVENTORY_ERROR, book);
+                return Code.BOOK_NOT_IN_INVENTORY_ERROR;
+            }
+        } while(!count.compareAndSet(copies, copies - 1));
+        if (copies == 1) {
+            titles.decrementAndGet();
+        }
+        count(-1);
+        // If book was on shelf it is removed, return Success Code
+        listener.bookUnshelved(book, this);
+        return Code.SUCCESS;
+    }
+
+    /**
+     * This method adds many books at once with their counts, sending one shelfStocked event
+     * instead of one event per book. Nothing is added if any book has a different subject
+     * @param counts map of books to add and how many copies of each
+     * @return the corresponding Code
+     */
+    public Code addBooks(Map<Book, Integer> counts) {
+        for (Book book : counts.keySet()) {
+            if (!holds(book)) {
+                return Code.SHELF_SUBJECT_MISMATCH_ERROR;
+            }
         }
+        int copies = 0;
+        for (Map.Entry<Book, Integer> entry : counts.entrySet()) {
+            AtomicInteger count = books.computeIfAbsent(entry.getKey(), key -> new AtomicInteger());
+            if (count.addAndGet(entry.getValue()) == entry.getValue() && entry.getValue() > 0) {
+                titles.incrementAndGet();
+            }
+            copies = copies + entry.getValue();
+        }
+        count(copies);
+        listener.shelfStocked(this, counts.size(), copies);
+        return Code.SUCCESS;
+    }
+
+    /**
+     * This method returns the number of copies of the Shelf's books, on the Shelf or out on
+     * loan, from running totals without looking at each book
+     * @return the number of copies
+     */
+    public int getCopyCount() {
+        return copies.intValue() + loaned.intValue();
+    }
+
+    /**
+     * This method returns the number of copies on the Shelf ready to lend
+     * @return the number of copies available
+     */
+    public int getAvailableCount() {
+        return copies.intValue();
+    }
+
+    /**
+     * This method returns the number of copies of the Shelf's books out on loan
+     * @return the number of copies on loan
+     */
+    public int getLoanCount() {
+        return loaned.intValue();
+    }
+
+    /**
+     * This method returns the number of different books with at least one copy on the Shelf
+     * @return the number of books
+     */
+    public int getTitleCount() {
+        return titles.get();
     }
 
     /**
@@ -163,29 +329,33 @@ public class Shelf {
      * @return a String of books on Shelf
      */
     public String listBooks() {
-
-        int count = 0;                              // Count to hold num of books on shelf
-        String output;                              // String to hold output info
         StringBuilder str = new StringBuilder();    // StringBuilder to add Books
-        // For each value in books map, add to count
-        for(Book book : books.keySet()){
-            count = count + books.get(book);
-        }
-        // Build a String of each book in Map to a StringBuilder
-        for(Book book : books.keySet()) {
-            str.append(book.toString()).append(" ").append(books.get(book)).append("\n");
+        try {
+            listBooks(str);
+        } catch (IOException e) {
+            // A StringBuilder never throws
+            throw new UncheckedIOException(e);
         }
+        return str.toString();
+    }
+
+    /**
+     * This method writes the same listing as listBooks straight to an Appendable, so a large
+     * Shelf is never built into one String. The total comes from the running count of copies
+     * and the books are walked once for the lines, so while copies are being lent the two may
+     * differ
+     * @param out where to write the listing
+     * @throws IOException if out can't be written
+     */
+    public void listBooks(Appendable out) throws IOException {
+        int count = copies.intValue();  // Count to hold num of books on shelf
         // If only one book make output return singular version, otherwise plural
-        if (count == 1){
-            output = count + " book on shelf: " + getShelfNumber() + " : " + getSubject();
-        } else {
-            output = count + " books on shelf: " + getShelfNumber() + " : " + getSubject();
-        }
-        // As long as a book was on shelf, remove extra line from string builder and output
-        if(str.length() > 1) {
-            str.deleteCharAt(str.length() -1);
-            return output + "\n" + str;
+        out.append(Integer.toString(count)).append(count == 1 ? " book on shelf: " : " books on shelf: ")
+                .append(Integer.toString(getShelfNumber())).append(" : ").append(getSubject());
+        // Each book goes on its own line after the header
+        for (Map.Entry<Book, AtomicInteger> entry : books.entrySet()) {
+            out.append("\n").append(entry.getKey().toString()).append(" ")
+                    .append(Integer.toString(entry.getValue().get()));
         }
-        return output;  //Output if no books on Shelf
     }
 }
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -190,4 +191,49 @@ class ShelfTest {
         testShelf.addBook(testBook);
         assertEquals(testString, testShelf.listBooks());
     }
-}
\ No newline at end of file
+
+    // Test that addBooks adds every count at once and refuses books of another subject
+    @Test
+    void addBooks() {
+        testShelf = new Shelf();
+        testShelf.setSubject("sci-fi");
+        HashMap<Book, Integer> counts = new HashMap<>();
+        counts.put(testBook, 3);
+        assertEquals(Code.SUCCESS, testShelf.addBooks(counts));
+        assertEquals(Code.SUCCESS, testShelf.addBooks(counts));
+        assertEquals(6, testShelf.getBookCount(testBook));
+
+        Book history = new Book("45", "The Witcher", "history", 700, "Rupert", LocalDate.now());
+        counts.put(history, 1);
+        assertEquals(Code.SHELF_SUBJECT_MISMATCH_ERROR, testShelf.addBooks(counts));
+        assertEquals(6, testShelf.getBookCount(testBook));
+        assertEquals(-1, testShelf.getBookCount(history));
+    }
+
+    // Test that removeBook never hands out more copies than the shelf holds when many
+    // threads take copies at once
+    @Test
+    void concurrentRemoveBook() throws InterruptedException {
+        testShelf = new Shelf();
+        testShelf.setSubject("sci-fi");
+        testShelf.setListener(LibraryListener.NONE);
+        testShelf.addBook(testBook, 1000);
+        AtomicInteger removed = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 200; j++) {
+                    if (testShelf.removeBook(testBook) == Code.SUCCESS) {
+                        removed.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1000, removed.get());
+        assertEquals(0, testShelf.getBookCount(testBook));
+    }
+}
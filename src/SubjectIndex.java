@@ -0,0 +1,147 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Title: SubjectIndex.java
+ * Author: Nicholas Fotinakes
+ * Description: This class finds Shelves by subject or by shelf number with one hash lookup.
+ * Subjects are compared in a normal form that ignores case, spaces and punctuation, so
+ * "Sci-Fi", "sci-fi" and "SciFi" all find the same Shelf, and an alias can send a different
+ * subject such as "Science Fiction" to a Shelf as well.
+ * The index is not thread safe, Library only changes it under its write lock.
+ * Date: 10/18/2026
+ */
+public class SubjectIndex {
+
+    private final HashMap<String, Shelf> bySubject = new HashMap<>();     // Shelves by normal subject
+    private final IntMap<Shelf> byNumber = new IntMap<>();                // Shelves by shelf number
+    private final HashMap<String, String> aliases = new HashMap<>();      // Normal alias to normal subject
+
+    /**
+     * This method adds a Shelf, replacing any Shelf with the same normal subject
+     * @param shelf the Shelf to add
+     */
+    public void add(Shelf shelf) {
+        Shelf replaced = bySubject.put(normalize(shelf.getSubject()), shelf);
+        if (replaced != null && byNumber.get(replaced.getShelfNumber()) == replaced) {
+            byNumber.remove(replaced.getShelfNumber());
+        }
+        // The first Shelf with a number keeps it
+        byNumber.putIfAbsent(shelf.getShelfNumber(), shelf);
+    }
+
+    /**
+     * This method takes a Shelf out of the index, if it is the one there
+     * @param shelf the Shelf to remove
+     */
+    public void remove(Shelf shelf) {
+        String key = normalize(shelf.getSubject());
+        if (bySubject.get(key) == shelf) {
+            bySubject.remove(key);
+        }
+        if (byNumber.get(shelf.getShelfNumber()) == shelf) {
+            byNumber.remove(shelf.getShelfNumber());
+        }
+    }
+
+    /**
+     * This method finds the Shelf for a subject, following an alias if there is one
+     * @param subject the subject in any case or spelling with the same letters and digits
+     * @return the Shelf, or null if there isn't one
+     */
+    public Shelf get(String subject) {
+        return bySubject.get(resolve(subject));
+    }
+
+    /**
+     * This method finds the Shelf for a book's subject, following an alias if there is one.
+     * The book's subject is already in normal form, so this allocates nothing
+     * @param book the book
+     * @return the Shelf, or null if there isn't one
+     */
+    public Shelf get(Book book) {
+        String key = book.getSubjectKey();
+        return bySubject.get(aliases.getOrDefault(key, key));
+    }
+
+    /**
+     * This method finds a Shelf by its number
+     * @param shelfNumber the shelf number
+     * @return the Shelf, or null if there isn't one
+     */
+    public Shelf get(int shelfNumber) {
+        return byNumber.get(shelfNumber);
+    }
+
+    /**
+     * This method makes one subject find the Shelf of another
+     * @param alias the subject to send elsewhere
+     * @param subject the subject it stands for
+     */
+    public void addAlias(String alias, String subject) {
+        String key = normalize(alias);
+        String target = resolve(subject);
+        // Aliases of the alias follow it to its subject, so no alias is ever two steps away
+        for (Map.Entry<String, String> entry : aliases.entrySet()) {
+            if (entry.getValue().equals(key)) {
+                entry.setValue(target);
+            }
+        }
+        aliases.put(key, target);
+    }
+
+    /**
+     * This method returns the aliases, normal alias to the normal subject it stands for
+     * @return a read only view of the aliases
+     */
+    public Map<String, String> getAliases() {
+        return Collections.unmodifiableMap(aliases);
+    }
+
+    /**
+     * This method returns the normal form of a subject with any alias followed
+     * @param subject the subject
+     * @return the normal subject the Shelf is found under
+     */
+    public String resolve(String subject) {
+        String key = normalize(subject);
+        return aliases.getOrDefault(key, key);
+    }
+
+    /**
+     * This method returns every normal subject that resolves to a normal subject, including
+     * the subject itself
+     * @param key a normal subject
+     * @return the normal subjects that stand for it
+     */
+    public List<String> keysFor(String key) {
+        List<String> keys = new ArrayList<>();
+        keys.add(key);
+        for (Map.Entry<String, String> alias : aliases.entrySet()) {
+            if (alias.getValue().equals(key) && !alias.getKey().equals(key)) {
+                keys.add(alias.getKey());
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * This method returns a subject in lower case with everything but letters and digits
+     * taken out
+     * @param subject the subject
+     * @return the normal subject
+     */
+    public static String normalize(String subject) {
+        StringBuilder key = new StringBuilder(subject.length());
+        for (int i = 0; i < subject.length(); i++) {
+            char c = subject.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                key.append(Character.toLowerCase(c));
+            }
+        }
+        return key.toString();
+    }
+}
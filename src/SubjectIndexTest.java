@@ -0,0 +1,80 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Title: SubjectIndexTest.java
+ * Author: Nicholas Fotinakes
+ * Abstract: Test file for the SubjectIndex.java class
+ * Date: 10/18/2026
+ */
+class SubjectIndexTest {
+
+    // Test that subjects are compared in normal form and shelves are found by number
+    @Test
+    void get() {
+        SubjectIndex index = new SubjectIndex();
+        Shelf shelf = shelf(1, "Sci-Fi");
+        index.add(shelf);
+        assertEquals("scifi", SubjectIndex.normalize(" Sci-Fi! "));
+        assertSame(shelf, index.get("sci fi"));
+        assertSame(shelf, index.get("SCIFI"));
+        assertSame(shelf, index.get(1));
+        assertNull(index.get("fantasy"));
+        assertNull(index.get(2));
+
+        // A shelf with the same normal subject replaces the old one, number and all
+        Shelf replacement = shelf(2, "sci-fi");
+        index.add(replacement);
+        assertSame(replacement, index.get("Sci-Fi"));
+        assertNull(index.get(1));
+        assertSame(replacement, index.get(2));
+    }
+
+    // Test that aliases resolve to the subject they stand for, also when added first
+    @Test
+    void addAlias() {
+        SubjectIndex index = new SubjectIndex();
+        index.addAlias("Science Fiction", "sci-fi");
+        Shelf shelf = shelf(1, "Sci-Fi");
+        index.add(shelf);
+        assertSame(shelf, index.get("science-fiction"));
+        assertEquals("scifi", index.resolve("Science Fiction"));
+        assertEquals(List.of("scifi", "sciencefiction"), index.keysFor("scifi"));
+        index.addAlias("SF", "Science Fiction");
+        assertSame(shelf, index.get("sf"));
+        assertEquals(2, index.getAliases().size());
+    }
+
+    // Test that a removed shelf is gone by subject and number, and that aliases of an alias
+    // follow it to its new subject
+    @Test
+    void remove() {
+        SubjectIndex index = new SubjectIndex();
+        Shelf sciFi = shelf(1, "Sci-Fi");
+        Shelf scienceFiction = shelf(2, "Science Fiction");
+        index.add(sciFi);
+        index.add(scienceFiction);
+        index.addAlias("SF", "Science Fiction");
+        index.remove(scienceFiction);
+        assertNull(index.get("science fiction"));
+        assertNull(index.get(2));
+        // Removing a shelf that was replaced leaves the one in the index
+        index.remove(shelf(1, "sci-fi"));
+        assertSame(sciFi, index.get(1));
+
+        index.addAlias("Science Fiction", "sci-fi");
+        assertSame(sciFi, index.get("SF"));
+        assertEquals("scifi", index.getAliases().get("sf"));
+    }
+
+    // Make a shelf with a number and subject
+    private static Shelf shelf(int shelfNumber, String subject) {
+        Shelf shelf = new Shelf();
+        shelf.setShelfNumber(shelfNumber);
+        shelf.setSubject(subject);
+        return shelf;
+    }
+}